@@ -306,15 +306,29 @@ public abstract class NettyStreamingService<T> {
 
     public void resubscribeChannels() {
         for (String channelId : channels.keySet()) {
-            try {
-                Subscription subscription = channels.get(channelId);
-                String message = getSubscribeMessage(subscription.channelName, subscription.args);
-                if (message != null) {
-                    sendMessage(message);
-                }
-            } catch (IOException e) {
-                LOG.error("Failed to reconnect channel: {}", channelId);
+            resubscribeChannel(channelId);
+        }
+    }
+
+    /**
+     * Sends the subscribe message of an already subscribed channel again, e.g. to obtain a fresh snapshot
+     * after a sequence gap. Local subscribers are kept.
+     *
+     * @param channelId Unique id of the channel, see {@link #getSubscriptionUniqueId(String, Object...)}.
+     */
+    public void resubscribeChannel(String channelId) {
+        Subscription subscription = channels.get(channelId);
+        if (subscription == null) {
+            LOG.warn("Cannot resubscribe unexisting channel {}", channelId);
+            return;
+        }
+        try {
+            String message = getSubscribeMessage(subscription.channelName, subscription.args);
+            if (message != null) {
+                sendMessage(message);
             }
+        } catch (IOException e) {
+            LOG.error("Failed to reconnect channel: {}", channelId);
         }
     }
 
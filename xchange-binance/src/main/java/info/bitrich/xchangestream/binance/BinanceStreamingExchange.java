@@ -4,8 +4,10 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.SymbolTable;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
+import org.knowm.xchange.binance.BinanceAdapters;
 import org.knowm.xchange.binance.BinanceExchange;
 import org.knowm.xchange.binance.service.BinanceMarketDataService;
 import org.knowm.xchange.currency.CurrencyPair;
@@ -18,6 +20,12 @@ import java.util.stream.Stream;
 public class BinanceStreamingExchange extends BinanceExchange implements StreamingExchange {
     private static final String API_BASE_URI = "wss://stream.binance.com:9443/";
 
+    /**
+     * Binance symbols, e.g. {@code BNBBTC}, shared by the DTOs and the channel names.
+     */
+    public static final SymbolTable SYMBOLS = new SymbolTable(
+            pair -> pair.base.getCurrencyCode() + pair.counter.getCurrencyCode(), BinanceAdapters::adaptSymbol);
+
     private BinanceStreamingService streamingService;
     private BinanceStreamingMarketDataService streamingMarketDataService;
 
@@ -25,28 +33,40 @@ public class BinanceStreamingExchange extends BinanceExchange implements Streami
     }
 
     /**
-     * Binance streaming API expects connections to multiple channels to be defined at connection time. To define the channels for this
-     * connection pass a `ProductSubscription` in at connection time.
+     * Opens the connection with the streams of the `ProductSubscription`, which are part of the connection URL and
+     * receive messages as soon as the socket is open. Streams requested later by the market data service are
+     * subscribed on the open socket.
+     * <p>
+     * Calling connect again while connected subscribes the given products on the current connection.
      *
-     * @param args A single `ProductSubscription` to define the subscriptions required to be available during this connection.
+     * @param args An optional `ProductSubscription` with the streams required from the start of this connection.
      * @return
      */
     @Override
     public Completable connect(ProductSubscription... args) {
-        if (args == null || args.length == 0) {
-            throw new IllegalArgumentException("Subscriptions must be made at connection time");
-        }
+        ProductSubscription subscriptions = args == null || args.length == 0 ? ProductSubscription.create().build() : args[0];
         if (streamingService != null) {
-            throw new UnsupportedOperationException("Exchange only handles a single connection - disconnect the current connection.");
+            return Completable.fromAction(() -> streamingMarketDataService.openSubscriptions(subscriptions));
         }
 
-        ProductSubscription subscriptions = args[0];
+        SYMBOLS.register(exchangeMetaData);
         streamingService = createStreamingService(subscriptions);
         streamingMarketDataService = new BinanceStreamingMarketDataService(streamingService, (BinanceMarketDataService) marketDataService);
         return streamingService.connect()
                 .doOnComplete(() -> streamingMarketDataService.openSubscriptions(subscriptions));
     }
 
+    /**
+     * Unsubscribes the streams of the products from the current connection, the connection stays open.
+     * Subscribers of the affected streams keep receiving updates until they dispose their subscription.
+     */
+    public Completable unsubscribe(ProductSubscription subscriptions) {
+        if (streamingService == null) {
+            return Completable.complete();
+        }
+        return Completable.fromAction(() -> streamingMarketDataService.closeSubscriptions(subscriptions));
+    }
+
     @Override
     public Completable disconnect() {
         BinanceStreamingService service = streamingService;
@@ -80,7 +100,8 @@ public class BinanceStreamingExchange extends BinanceExchange implements Streami
     }
 
     private BinanceStreamingService createStreamingService(ProductSubscription subscription) {
-        String path = API_BASE_URI + "stream?streams=" + buildSubscriptionStreams(subscription);
+        String streams = buildSubscriptionStreams(subscription);
+        String path = API_BASE_URI + (streams.isEmpty() ? "stream" : "stream?streams=" + streams);
         return new BinanceStreamingService(path, subscription);
     }
 
@@ -98,7 +119,7 @@ public class BinanceStreamingExchange extends BinanceExchange implements Streami
 
     private static Stream<String> subscriptionStrings(List<CurrencyPair> currencyPairs) {
         return currencyPairs.stream()
-                .map(pair -> String.join("", pair.toString().split("/")).toLowerCase());
+                .map(pair -> SYMBOLS.toSymbol(pair).toLowerCase());
     }
 
     @Override
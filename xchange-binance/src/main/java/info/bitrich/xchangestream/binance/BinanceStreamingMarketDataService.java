@@ -1,17 +1,31 @@
 package info.bitrich.xchangestream.binance;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.binance.dto.AggTradeBinanceWebsocketTransaction;
+import info.bitrich.xchangestream.binance.dto.AggTradeBinanceWebsocketTransactionDecoder;
 import info.bitrich.xchangestream.binance.dto.BinanceRawTrade;
 import info.bitrich.xchangestream.binance.dto.BinanceWebsocketTransaction;
+import info.bitrich.xchangestream.binance.dto.BookTickerBinanceWebsocketTransaction;
+import info.bitrich.xchangestream.binance.dto.BookTickerBinanceWebsocketTransactionDecoder;
 import info.bitrich.xchangestream.binance.dto.DepthBinanceWebSocketTransaction;
+import info.bitrich.xchangestream.binance.dto.PartialDepthBinanceWebSocketTransaction;
 import info.bitrich.xchangestream.binance.dto.TickerBinanceWebsocketTransaction;
+import info.bitrich.xchangestream.binance.dto.TickerBinanceWebsocketTransactionDecoder;
 import info.bitrich.xchangestream.binance.dto.TradeBinanceWebsocketTransaction;
+import info.bitrich.xchangestream.binance.dto.TradeBinanceWebsocketTransactionDecoder;
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.FanOutTable;
 import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
+import info.bitrich.xchangestream.core.decoder.StreamingDecoder;
+import info.bitrich.xchangestream.core.orderbook.OrderBookSequencer;
+import info.bitrich.xchangestream.core.orderbook.SequenceStrategy;
 import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Consumer;
 import org.knowm.xchange.binance.BinanceAdapters;
 import org.knowm.xchange.binance.dto.marketdata.BinanceOrderbook;
@@ -28,11 +42,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
-
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.AGG_TRADE;
 import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.DEPTH_UPDATE;
 import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.TICKER_24_HR;
 import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.TRADE;
@@ -40,52 +63,139 @@ import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransac
 public class BinanceStreamingMarketDataService implements StreamingMarketDataService {
     private static final Logger LOG = LoggerFactory.getLogger(BinanceStreamingMarketDataService.class);
 
-    private final BinanceStreamingService service;
-    private final Map<CurrencyPair, OrderbookSubscription> orderbooks = new HashMap<>();
+    private static final int SNAPSHOT_THREADS = 2;
+    private static final int SNAPSHOT_QUEUE_CAPACITY = 256;
+    private static final long SNAPSHOT_MIN_INTERVAL_MILLIS = 3000;
+
+    private static final StreamingDecoder<TickerBinanceWebsocketTransaction> TICKER_DECODER =
+            new TickerBinanceWebsocketTransactionDecoder();
+    private static final StreamingDecoder<BookTickerBinanceWebsocketTransaction> BOOK_TICKER_DECODER =
+            new BookTickerBinanceWebsocketTransactionDecoder();
+    private static final StreamingDecoder<AggTradeBinanceWebsocketTransaction> AGG_TRADE_DECODER =
+            new AggTradeBinanceWebsocketTransactionDecoder();
+    private static final StreamingDecoder<TradeBinanceWebsocketTransaction> TRADE_DECODER =
+            new TradeBinanceWebsocketTransactionDecoder();
 
-    private final Map<CurrencyPair, Observable<BinanceTicker24h>> tickerSubscriptions = new HashMap<>();
-    private final Map<CurrencyPair, Observable<OrderBook>> orderbookSubscriptions = new HashMap<>();
-    private final Map<CurrencyPair, Observable<BinanceRawTrade>> tradeSubscriptions = new HashMap<>();
+    private final BinanceStreamingService service;
+    // channel name -> diff depth book
+    private final Map<String, OrderbookSubscription> orderbooks = new ConcurrentHashMap<>();
+
+    // channel name -> shared stream of the channel
+    private final Map<String, Observable<?>> subscriptions = new ConcurrentHashMap<>();
+    // keeps the streams of the product subscriptions subscribed until they are closed, channel name -> subscription
+    private final Map<String, Disposable> openStreams = new ConcurrentHashMap<>();
+    private final FanOutTable<CurrencyPair, BinanceTicker24h> allTickers;
     private final ObjectMapper mapper = new ObjectMapper();
     private final BinanceMarketDataService marketDataService;
+    private final Executor snapshotExecutor;
 
     public BinanceStreamingMarketDataService(BinanceStreamingService service, BinanceMarketDataService marketDataService) {
+        this(service, marketDataService, createSnapshotExecutor());
+    }
+
+    /**
+     * @param snapshotExecutor Executes the REST order book snapshot requests, so they don't block the web socket's
+     *                         event loop. Should be bounded, rejected requests are retried after the backoff.
+     */
+    public BinanceStreamingMarketDataService(BinanceStreamingService service, BinanceMarketDataService marketDataService,
+                                             Executor snapshotExecutor) {
         this.service = service;
         this.marketDataService = marketDataService;
+        this.snapshotExecutor = snapshotExecutor;
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.allTickers = new FanOutTable<>(allTickersStream(), BinanceTicker24h::getCurrencyPair);
+    }
+
+    private static Executor createSnapshotExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(SNAPSHOT_THREADS, SNAPSHOT_THREADS,
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(SNAPSHOT_QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "binance-snapshot-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
+    /**
+     * Streams which were not subscribed at connection time are subscribed on the open connection by the first
+     * subscriber and unsubscribed once the last one has disposed.
+     *
+     * @param args An optional {@link BinanceSubscriptionType} of the order book category, {@code DEPTH} by default,
+     *             and an optional {@link Conflation}. Conflated subscribers receive copies of the book, as the
+     *             emission may happen on another thread while the book is updated.
+     */
     @Override
     public Observable<OrderBook> getOrderBook(CurrencyPair currencyPair, Object... args) {
-        if (!service.getProductSubscription().getOrderBook().contains(currencyPair)) {
-            throw new UnsupportedOperationException("Binance exchange only supports up front subscriptions - subscribe at connect time");
+        BinanceSubscriptionType type = BinanceSubscriptionType.fromArgs(BinanceSubscriptionType.Category.ORDER_BOOK, args);
+        Observable<OrderBook> orderBooks = type.isPartialDepth()
+                ? subscription(currencyPair, type, channel -> partialOrderBookStream(currencyPair, channel))
+                : subscription(currencyPair, type, channel -> orderBookStream(currencyPair, channel));
+        if (Conflation.fromArgs(args) == null) {
+            return orderBooks;
+        }
+        return orderBooks.compose(Conflation.apply(args, BinanceStreamingMarketDataService::copyOf));
+    }
+
+    /**
+     * The depth book is updated in place while holding its monitor, so it is copied while holding it as well.
+     */
+    private static OrderBook copyOf(OrderBook orderBook) {
+        synchronized (orderBook) {
+            return new OrderBook(orderBook.getTimeStamp(), new ArrayList<>(orderBook.getAsks()),
+                    new ArrayList<>(orderBook.getBids()), false);
         }
-        return orderbookSubscriptions.get(currencyPair);
     }
 
+    /**
+     * @param args An optional {@link BinanceSubscriptionType}, {@code ALL_MARKET_TICKER} reads the ticker from the
+     *             all market stream. Otherwise the ticker stream of the pair is used.
+     */
     public Observable<BinanceTicker24h> getRawTicker(CurrencyPair currencyPair, Object... args) {
-        if (!service.getProductSubscription().getTicker().contains(currencyPair)) {
-            throw new UnsupportedOperationException("Binance exchange only supports up front subscriptions - subscribe at connect time");
+        if (BinanceSubscriptionType.fromArgs(BinanceSubscriptionType.Category.TICKER, args) == BinanceSubscriptionType.ALL_MARKET_TICKER) {
+            return allTickers.observe(currencyPair);
         }
-        return tickerSubscriptions.get(currencyPair);
+        return subscription(currencyPair, BinanceSubscriptionType.TICKER, channel -> rawTickerStream(currencyPair, channel));
     }
 
+    public Observable<BookTickerBinanceWebsocketTransaction> getRawBookTicker(CurrencyPair currencyPair) {
+        return subscription(currencyPair, BinanceSubscriptionType.BOOK_TICKER, this::bookTickerStream);
+    }
+
+    /**
+     * @param args An optional {@link BinanceSubscriptionType} of the trades category, {@code TRADE} by default.
+     */
     public Observable<BinanceRawTrade> getRawTrades(CurrencyPair currencyPair, Object... args) {
-        if (!service.getProductSubscription().getTrades().contains(currencyPair)) {
-            throw new UnsupportedOperationException("Binance exchange only supports up front subscriptions - subscribe at connect time");
-        }
-        return tradeSubscriptions.get(currencyPair);
+        BinanceSubscriptionType type = BinanceSubscriptionType.fromArgs(BinanceSubscriptionType.Category.TRADES, args);
+        return type == BinanceSubscriptionType.AGG_TRADE
+                ? subscription(currencyPair, type, channel -> rawAggTradeStream(currencyPair, channel))
+                : subscription(currencyPair, type, channel -> rawTradeStream(currencyPair, channel));
     }
 
+    /**
+     * @param args An optional {@link BinanceSubscriptionType} of the ticker category, {@code TICKER} by default,
+     *             and an optional {@link Conflation}. The {@code BOOK_TICKER} tickers have the best bid and ask only.
+     */
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
-        return getRawTicker(currencyPair)
-                .map(BinanceTicker24h::toTicker);
+        BinanceSubscriptionType type = BinanceSubscriptionType.fromArgs(BinanceSubscriptionType.Category.TICKER, args);
+        if (type == BinanceSubscriptionType.BOOK_TICKER) {
+            return getRawBookTicker(currencyPair)
+                    .compose(Conflation.apply(args, BookTickerBinanceWebsocketTransaction::toTicker));
+        }
+        return getRawTicker(currencyPair, type)
+                .compose(Conflation.apply(args, BinanceTicker24h::toTicker));
     }
 
+    /**
+     * @param args An optional {@link BinanceSubscriptionType} of the trades category, {@code TRADE} by default.
+     */
     @Override
     public Observable<Trade> getTrades(CurrencyPair currencyPair, Object... args) {
-        return getRawTrades(currencyPair)
+        return getRawTrades(currencyPair, args)
                 .map(rawTrade -> new Trade(
                         BinanceAdapters.convertType(rawTrade.isBuyerMarketMaker()),
                         rawTrade.getQuantity(),
@@ -97,7 +207,7 @@ public class BinanceStreamingMarketDataService implements StreamingMarketDataSer
     }
 
     private static String channelFromCurrency(CurrencyPair currencyPair, String subscriptionType) {
-        String currency = String.join("", currencyPair.toString().split("/")).toLowerCase();
+        String currency = BinanceStreamingExchange.SYMBOLS.toSymbol(currencyPair).toLowerCase();
         return currency + "@" + subscriptionType;
     }
 
@@ -105,73 +215,152 @@ public class BinanceStreamingMarketDataService implements StreamingMarketDataSer
      * Registers subsriptions with the streaming service for the given products.
      *
      * As we receive messages as soon as the connection is open, we need to register subscribers to handle these before the
-     * first messages arrive.
+     * first messages arrive. Products which are not part of the connection URL are subscribed on the open connection.
+     * The streams stay subscribed until they are closed with {@link #closeSubscriptions(ProductSubscription)}.
      */
     public void openSubscriptions(ProductSubscription productSubscription) {
-        productSubscription.getTicker()
-                .forEach(currencyPair ->
-                        tickerSubscriptions.put(currencyPair, triggerObservableBody(rawTickerStream(currencyPair).share())));
-        productSubscription.getOrderBook()
-                .forEach(currencyPair ->
-                        orderbookSubscriptions.put(currencyPair, triggerObservableBody(orderBookStream(currencyPair).share())));
-        productSubscription.getTrades()
-                .forEach(currencyPair ->
-                        tradeSubscriptions.put(currencyPair, triggerObservableBody(rawTradeStream(currencyPair).share())));
+        productSubscription.getTicker().forEach(pair ->
+                keepOpen(pair, BinanceSubscriptionType.TICKER, getRawTicker(pair)));
+        productSubscription.getOrderBook().forEach(pair ->
+                keepOpen(pair, BinanceSubscriptionType.DEPTH, getOrderBook(pair)));
+        productSubscription.getTrades().forEach(pair ->
+                keepOpen(pair, BinanceSubscriptionType.TRADE, getRawTrades(pair)));
     }
 
-    private Observable<BinanceTicker24h> rawTickerStream(CurrencyPair currencyPair) {
-        return service.subscribeChannel(channelFromCurrency(currencyPair, "ticker"))
-                .map((JsonNode s) -> tickerTransaction(s.toString()))
-                .filter(transaction ->
-                        transaction.getData().getCurrencyPair().equals(currencyPair) &&
-                            transaction.getData().getEventType() == TICKER_24_HR)
-                .map(transaction -> transaction.getData().getTicker());
+    /**
+     * Closes the streams of all types of the given products, e.g. both the trade and the aggTrade stream of a pair
+     * listed under trades. A stream is unsubscribed from the connection once its last subscriber has disposed, the
+     * next request for it subscribes it again.
+     */
+    public void closeSubscriptions(ProductSubscription productSubscription) {
+        productSubscription.getTicker().forEach(pair -> closeStreams(pair, BinanceSubscriptionType.Category.TICKER));
+        productSubscription.getOrderBook().forEach(pair -> closeStreams(pair, BinanceSubscriptionType.Category.ORDER_BOOK));
+        productSubscription.getTrades().forEach(pair -> closeStreams(pair, BinanceSubscriptionType.Category.TRADES));
     }
 
-    private final class OrderbookSubscription {
-        long snapshotlastUpdateId;
-        AtomicLong lastUpdateId = new AtomicLong(0L);
-        OrderBook orderBook;
-        Observable<BinanceWebsocketTransaction<DepthBinanceWebSocketTransaction>> stream;
-        AtomicLong lastSyncTime = new AtomicLong(0L);
+    /**
+     * The stream of a channel is shared by its subscribers. It subscribes the channel with the first subscriber and
+     * unsubscribes it after the last one, a later subscriber subscribes it again.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Observable<T> subscription(CurrencyPair currencyPair, BinanceSubscriptionType type,
+                                           Function<String, Observable<T>> stream) {
+        String channelName = channelFromCurrency(currencyPair, type.getStreamName());
+        return (Observable<T>) subscriptions.computeIfAbsent(channelName, channel ->
+                Observable.defer(() -> stream.apply(channel)).share());
+    }
 
-        void invalidateSnapshot() {
-            snapshotlastUpdateId = 0L;
+    private void closeStreams(CurrencyPair currencyPair, BinanceSubscriptionType.Category category) {
+        for (BinanceSubscriptionType type : BinanceSubscriptionType.values()) {
+            if (type.getCategory() != category || type == BinanceSubscriptionType.ALL_MARKET_TICKER) {
+                continue;
+            }
+            String channelName = channelFromCurrency(currencyPair, type.getStreamName());
+            subscriptions.remove(channelName);
+            orderbooks.remove(channelName);
+            Disposable stream = openStreams.remove(channelName);
+            if (stream != null) {
+                stream.dispose();
+            }
         }
+    }
 
-        void initSnapshotIfInvalid(CurrencyPair currencyPair) {
+    private Observable<BinanceTicker24h> rawTickerStream(CurrencyPair currencyPair, String channelName) {
+        return service.subscribeChannel(channelName)
+                .map((JsonNode s) -> decode(s, TICKER_DECODER, "ticker transaction"))
+                .filter(transaction ->
+                        transaction.getCurrencyPair().equals(currencyPair) &&
+                            transaction.getEventType() == TICKER_24_HR)
+                .map(TickerBinanceWebsocketTransaction::getTicker);
+    }
 
-            if (snapshotlastUpdateId != 0L)
-                return;
+    private final class OrderbookSubscription {
+        final CurrencyPair currencyPair;
+        final OrderBookSequencer<DepthBinanceWebSocketTransaction> sequencer;
+        volatile OrderBook orderBook;
+        Observable<BinanceWebsocketTransaction<DepthBinanceWebSocketTransaction>> stream;
+        long lastSyncTime = 0L;
+
+        OrderbookSubscription(CurrencyPair currencyPair) {
+            this.currencyPair = currencyPair;
+            // 4. Drop any event where u is <= lastUpdateId in the snapshot
+            // 5. The first processed should have U <= lastUpdateId+1 AND u >= lastUpdateId+1
+            // 6. While listening to the stream, each new event's U should be equal to the previous event's u+1
+            this.sequencer = new OrderBookSequencer<>(
+                    "Binance " + currencyPair,
+                    SequenceStrategy.range(DepthBinanceWebSocketTransaction::getFirstUpdateId,
+                            DepthBinanceWebSocketTransaction::getLastUpdateId),
+                    this::applyDepth,
+                    this::fetchSnapshot);
+        }
 
+        /**
+         * Called by the sequencer on the event loop, so the snapshot is fetched on the snapshot executor while the
+         * sequencer buffers the incoming events. Once it arrives, the buffered events are replayed from its lastUpdateId.
+         *
+         * If the snapshot doesn't line up with the buffered updates, the sequencer asks for another one. This
+         * will commonly occur a few times when starting up, since given update ids 1,2,3,4,5,6,7,8,9, Binance may
+         * sometimes return a snapshot as of 5, but update events covering 1-3, 4-6 and 7-9.  We can't apply the
+         * 4-6 update event without double-counting 5, and we can't apply the 7-9 update without missing 6.
+         */
+        void fetchSnapshot() {
             // Don't attempt reconnects too often to avoid bans. 3 seconds will do it.
             long now = System.currentTimeMillis();
-            if (now - lastSyncTime.get() < 3000) {
+            long wait = lastSyncTime + SNAPSHOT_MIN_INTERVAL_MILLIS - now;
+            if (wait > 0) {
+                sequencer.retrySnapshot(wait, TimeUnit.MILLISECONDS);
                 return;
             }
+            lastSyncTime = now;
 
             try {
-                LOG.info("Fetching initial orderbook snapshot for {} ", currencyPair);
-                BinanceOrderbook book = marketDataService.getBinanceOrderbook(currencyPair, 1000);
-                snapshotlastUpdateId = book.lastUpdateId;
-                lastUpdateId.set(book.lastUpdateId);
-                orderBook = BinanceMarketDataService.convertOrderBook(book, currencyPair);
-            } catch (Throwable e) {
-                LOG.error("Failed to fetch initial order book for " + currencyPair, e);
-                snapshotlastUpdateId = 0L;
-                lastUpdateId.set(0L);
-                orderBook = null;
+                snapshotExecutor.execute(() -> {
+                    try {
+                        LOG.info("Fetching initial orderbook snapshot for {} ", currencyPair);
+                        BinanceOrderbook book = marketDataService.getBinanceOrderbook(currencyPair, 1000);
+                        sequencer.onSnapshot(book.lastUpdateId,
+                                () -> orderBook = BinanceMarketDataService.convertOrderBook(book, currencyPair));
+                    } catch (Throwable e) {
+                        LOG.error("Failed to fetch initial order book for " + currencyPair, e);
+                        sequencer.snapshotFailed();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.warn("Too many pending order book snapshots, {} will be retried", currencyPair);
+                sequencer.retrySnapshot(SNAPSHOT_MIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        // 7. The data in each event is the absolute quantity for a price level
+        // 8. If the quantity is 0, remove the price level
+        // 9. Receiving an event that removes a price level that is not in your local order book can happen and is normal.
+        void applyDepth(DepthBinanceWebSocketTransaction depth) {
+            BinanceOrderbook ob = depth.getOrderBook();
+            synchronized (orderBook) {
+                ob.bids.forEach((key, value) -> orderBook.update(new OrderBookUpdate(
+                        OrderType.BID,
+                        null,
+                        currencyPair,
+                        key,
+                        depth.getEventTime(),
+                        value)));
+                ob.asks.forEach((key, value) -> orderBook.update(new OrderBookUpdate(
+                        OrderType.ASK,
+                        null,
+                        currencyPair,
+                        key,
+                        depth.getEventTime(),
+                        value)));
             }
-            lastSyncTime.set(now);
         }
     }
 
-    private OrderbookSubscription connectOrderBook(CurrencyPair currencyPair) {
-        OrderbookSubscription subscription = new OrderbookSubscription();
+    private OrderbookSubscription connectOrderBook(CurrencyPair currencyPair, String channelName) {
+        OrderbookSubscription subscription = new OrderbookSubscription(currencyPair);
 
         // 1. Open a stream to wss://stream.binance.com:9443/ws/bnbbtc@depth
         // 2. Buffer the events you receive from the stream.
-        subscription.stream = service.subscribeChannel(channelFromCurrency(currencyPair, "depth"))
+        subscription.stream = service.subscribeChannel(channelName)
             .map((JsonNode s) -> depthTransaction(s.toString()))
             .filter(transaction ->
                     transaction.getData().getCurrencyPair().equals(currencyPair) &&
@@ -181,106 +370,90 @@ public class BinanceStreamingMarketDataService implements StreamingMarketDataSer
         return subscription;
     }
 
-    private Observable<OrderBook> orderBookStream(CurrencyPair currencyPair) {
-        OrderbookSubscription subscription = orderbooks.computeIfAbsent(currencyPair, pair -> connectOrderBook(pair));
+    private Observable<OrderBook> orderBookStream(CurrencyPair currencyPair, String channelName) {
+        OrderbookSubscription subscription = orderbooks.computeIfAbsent(channelName,
+                channel -> connectOrderBook(currencyPair, channel));
 
         return subscription.stream
+                .map(BinanceWebsocketTransaction::getData)
 
                 // 3. Get a depth snapshot from https://www.binance.com/api/v1/depth?symbol=BNBBTC&limit=1000
-                // (we do this if we don't already have one or we've invalidated a previous one)
-                .doOnNext(transaction -> subscription.initSnapshotIfInvalid(currencyPair))
+                // (the sequencer buffers the events and asks for a snapshot if it doesn't have one or detects a gap)
+                .filter(subscription.sequencer::onUpdate)
+                .map(depth -> subscription.orderBook)
+                // once unsubscribed, the book is rebuilt from a new snapshot
+                .doFinally(() -> orderbooks.remove(channelName, subscription));
+    }
 
-                // If we failed, don't return anything. Just keep trying until it works
-                .filter(transaction -> subscription.snapshotlastUpdateId > 0L)
+    /**
+     * The partial book streams send the top levels as a whole, each message is converted to a new book.
+     */
+    private Observable<OrderBook> partialOrderBookStream(CurrencyPair currencyPair, String channelName) {
+        return service.subscribeChannel(channelName)
+                .map((JsonNode s) -> partialDepthTransaction(s.toString()))
+                .map(transaction -> BinanceMarketDataService.convertOrderBook(transaction.getData().getOrderBook(), currencyPair));
+    }
 
-                .map(BinanceWebsocketTransaction::getData)
+    /**
+     * @return the sequencer of a subscribed {@code DEPTH} order book, which exposes gap and resync counters.
+     */
+    public OrderBookSequencer<DepthBinanceWebSocketTransaction> getOrderBookSequencer(CurrencyPair currencyPair) {
+        return getOrderBookSequencer(currencyPair, BinanceSubscriptionType.DEPTH);
+    }
 
-                // 4. Drop any event where u is <= lastUpdateId in the snapshot
-                .filter(depth -> depth.getLastUpdateId() > subscription.snapshotlastUpdateId)
-
-                // 5. The first processed should have U <= lastUpdateId+1 AND u >= lastUpdateId+1
-                .filter(depth -> {
-                    long lastUpdateId = subscription.lastUpdateId.get();
-                    if (lastUpdateId == 0L) {
-                        return depth.getFirstUpdateId() <= lastUpdateId + 1 &&
-                               depth.getLastUpdateId() >= lastUpdateId + 1;
-                    } else {
-                        return true;
-                    }
-                })
-
-                // 6. While listening to the stream, each new event's U should be equal to the previous event's u+1
-                .filter(depth -> {
-                    long lastUpdateId = subscription.lastUpdateId.get();
-                    boolean result;
-                    if (lastUpdateId == 0L) {
-                        result = true;
-                    } else {
-                        result = depth.getFirstUpdateId() == lastUpdateId + 1;
-                    }
-                    if (result) {
-                        subscription.lastUpdateId.set(depth.getLastUpdateId());
-                    } else {
-                        // If not, we re-sync.  This will commonly occur a few times when starting up, since
-                        // given update ids 1,2,3,4,5,6,7,8,9, Binance may sometimes return a snapshot
-                        // as of 5, but update events covering 1-3, 4-6 and 7-9.  We can't apply the 4-6
-                        // update event without double-counting 5, and we can't apply the 7-9 update without
-                        // missing 6.  The only thing we can do is to keep requesting a fresh snapshot until
-                        // we get to a situation where the snapshot and an update event precisely line up.
-                        LOG.info("Orderbook snapshot for {} out of date (last={}, U={}, u={}). This is normal. Re-syncing.", currencyPair, lastUpdateId, depth.getFirstUpdateId(), depth.getLastUpdateId());
-                        subscription.invalidateSnapshot();
-                    }
-                    return result;
-                })
-
-                // 7. The data in each event is the absolute quantity for a price level
-                // 8. If the quantity is 0, remove the price level
-                // 9. Receiving an event that removes a price level that is not in your local order book can happen and is normal.
-                .map(depth -> {
-                    BinanceOrderbook ob = depth.getOrderBook();
-                    ob.bids.forEach((key, value) -> subscription.orderBook.update(new OrderBookUpdate(
-                            OrderType.BID,
-                            null,
-                            currencyPair,
-                            key,
-                            depth.getEventTime(),
-                            value)));
-                    ob.asks.forEach((key, value) -> subscription.orderBook.update(new OrderBookUpdate(
-                            OrderType.ASK,
-                            null,
-                            currencyPair,
-                            key,
-                            depth.getEventTime(),
-                            value)));
-                    return subscription.orderBook;
-                });
+    /**
+     * @param type {@code DEPTH} or {@code DEPTH_100MS}, the partial book streams have no sequencer.
+     * @return the sequencer of a subscribed order book, which exposes gap and resync counters.
+     */
+    public OrderBookSequencer<DepthBinanceWebSocketTransaction> getOrderBookSequencer(CurrencyPair currencyPair,
+                                                                                      BinanceSubscriptionType type) {
+        OrderbookSubscription subscription = orderbooks.get(channelFromCurrency(currencyPair, type.getStreamName()));
+        return subscription == null ? null : subscription.sequencer;
     }
 
-    private Observable<BinanceRawTrade> rawTradeStream(CurrencyPair currencyPair) {
-        return service.subscribeChannel(channelFromCurrency(currencyPair, "trade"))
-                .map((JsonNode s) -> tradeTransaction(s.toString()))
+    /**
+     * All market tickers, subscribed by the {@link FanOutTable} while any pair is observed.
+     */
+    private Observable<BinanceTicker24h> allTickersStream() {
+        return Observable.defer(() -> service.subscribeChannel(BinanceSubscriptionType.ALL_MARKET_TICKER.getStreamName()))
+                .flatMapIterable((JsonNode s) -> decodeAll(s, TICKER_DECODER, "all market ticker transaction"))
+                .filter(transaction -> transaction.getEventType() == TICKER_24_HR)
+                .map(TickerBinanceWebsocketTransaction::getTicker);
+    }
+
+    private Observable<BookTickerBinanceWebsocketTransaction> bookTickerStream(String channelName) {
+        return service.subscribeChannel(channelName)
+                .map((JsonNode s) -> decode(s, BOOK_TICKER_DECODER, "book ticker transaction"));
+    }
+
+    private Observable<BinanceRawTrade> rawAggTradeStream(CurrencyPair currencyPair, String channelName) {
+        return service.subscribeChannel(channelName)
+                .map((JsonNode s) -> decode(s, AGG_TRADE_DECODER, "aggregated trade transaction"))
+                .filter(transaction ->
+                        transaction.getCurrencyPair().equals(currencyPair) &&
+                                transaction.getEventType() == AGG_TRADE
+                )
+                .map(AggTradeBinanceWebsocketTransaction::getRawTrade);
+    }
+
+    private Observable<BinanceRawTrade> rawTradeStream(CurrencyPair currencyPair, String channelName) {
+        return service.subscribeChannel(channelName)
+                .map((JsonNode s) -> decode(s, TRADE_DECODER, "trade transaction"))
                 .filter(transaction ->
-                        transaction.getData().getCurrencyPair().equals(currencyPair) &&
-                                transaction.getData().getEventType() == TRADE
+                        transaction.getCurrencyPair().equals(currencyPair) &&
+                                transaction.getEventType() == TRADE
                 )
-                .map(transaction -> transaction.getData().getRawTrade());
+                .map(TradeBinanceWebsocketTransaction::getRawTrade);
     }
 
     /** Force observable to execute its body, this way we get `BinanceStreamingService` to register the observables emitter
-     * ready for our message arrivals. */
-    private <T> Observable<T> triggerObservableBody(Observable<T> observable) {
+     * ready for our message arrivals. The stream stays subscribed until it is closed. */
+    private <T> void keepOpen(CurrencyPair currencyPair, BinanceSubscriptionType type, Observable<T> observable) {
         Consumer<T> NOOP = whatever -> {};
-        observable.subscribe(NOOP);
-        return observable;
+        openStreams.computeIfAbsent(channelFromCurrency(currencyPair, type.getStreamName()),
+                channel -> observable.subscribe(NOOP));
     }
 
-    private BinanceWebsocketTransaction<TickerBinanceWebsocketTransaction> tickerTransaction(String s) {
-        try {
-            return mapper.readValue(s, new TypeReference<BinanceWebsocketTransaction<TickerBinanceWebsocketTransaction>>() {});
-        } catch (IOException e) {
-            throw new ExchangeException("Unable to parse ticker transaction", e);
-        }
-    }
 
     private BinanceWebsocketTransaction<DepthBinanceWebSocketTransaction> depthTransaction(String s) {
         try {
@@ -290,12 +463,39 @@ public class BinanceStreamingMarketDataService implements StreamingMarketDataSer
         }
     }
 
-    private BinanceWebsocketTransaction<TradeBinanceWebsocketTransaction> tradeTransaction(String s) {
+
+    private BinanceWebsocketTransaction<PartialDepthBinanceWebSocketTransaction> partialDepthTransaction(String s) {
         try {
-            return mapper.readValue(s, new TypeReference<BinanceWebsocketTransaction<TradeBinanceWebsocketTransaction>>() {});
+            return mapper.readValue(s, new TypeReference<BinanceWebsocketTransaction<PartialDepthBinanceWebSocketTransaction>>() {});
         } catch (IOException e) {
-            throw new ExchangeException("Unable to parse trade transaction", e);
+            throw new ExchangeException("Unable to parse partial order book transaction", e);
         }
     }
 
+    /**
+     * Decodes the {@code data} of a combined stream message with a generated decoder, straight from the tree's
+     * tokens instead of printing and parsing it again.
+     */
+    private <T> T decode(JsonNode message, StreamingDecoder<T> decoder, String description) {
+        try (JsonParser parser = mapper.treeAsTokens(message.get("data"))) {
+            return decoder.decode(parser);
+        } catch (IOException | RuntimeException e) {
+            throw new ExchangeException("Unable to parse " + description, e);
+        }
+    }
+
+    private <T> List<T> decodeAll(JsonNode message, StreamingDecoder<T> decoder, String description) {
+        JsonNode data = message.get("data");
+        List<T> values = new ArrayList<>(data == null ? 0 : data.size());
+        try {
+            for (JsonNode value : data) {
+                try (JsonParser parser = mapper.treeAsTokens(value)) {
+                    values.add(decoder.decode(parser));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new ExchangeException("Unable to parse " + description, e);
+        }
+        return values;
+    }
 }
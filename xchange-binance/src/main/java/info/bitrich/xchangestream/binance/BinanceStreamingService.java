@@ -1,62 +1,89 @@
 package info.bitrich.xchangestream.binance;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.binance.dto.BinanceSubscriptionMessage;
 import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.service.netty.JsonNettyStreamingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static info.bitrich.xchangestream.binance.dto.BinanceSubscriptionMessage.SUBSCRIBE;
+import static info.bitrich.xchangestream.binance.dto.BinanceSubscriptionMessage.UNSUBSCRIBE;
+
+/**
+ * Binance combined stream. The streams of the {@link ProductSubscription} given at connection time are part of
+ * the connection URL, every other stream is subscribed and unsubscribed on the open socket with the
+ * {@code SUBSCRIBE} and {@code UNSUBSCRIBE} methods.
+ */
 public class BinanceStreamingService extends JsonNettyStreamingService {
     private static final Logger LOG = LoggerFactory.getLogger(BinanceStreamingService.class);
 
-    private ProductSubscription productSubscription;
+    private final ProductSubscription productSubscription;
+    // streams of the connection URL, Binance resubscribes them on every reconnect
+    private final Set<String> connectionStreams = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requestId = new AtomicLong();
+    private final ObjectMapper mapper = new ObjectMapper();
 
     public BinanceStreamingService(String baseUri, ProductSubscription productSubscription) {
         super(baseUri, Integer.MAX_VALUE);
         this.productSubscription = productSubscription;
-    }
-
-    @Override
-    public void messageHandler(String message) {
-        super.messageHandler(message);
+        String streams = BinanceStreamingExchange.buildSubscriptionStreams(productSubscription);
+        if (!streams.isEmpty()) {
+            connectionStreams.addAll(Arrays.asList(streams.split("/")));
+        }
     }
 
     @Override
     protected void handleMessage(JsonNode message) {
+        if (!message.has("stream") && message.has("id")) {
+            // response to a SUBSCRIBE or UNSUBSCRIBE request
+            if (message.has("error")) {
+                LOG.error("Binance rejected request {}: {}", message.get("id").asText(), message.get("error"));
+            } else {
+                LOG.debug("Binance accepted request {}", message.get("id").asText());
+            }
+            return;
+        }
         super.handleMessage(message);
     }
 
     @Override
     protected String getChannelNameFromMessage(JsonNode message) throws IOException {
-        return message.get("stream").asText();
+        JsonNode stream = message.get("stream");
+        return stream == null ? null : stream.asText();
     }
 
     @Override
     public String getSubscribeMessage(String channelName, Object... args) throws IOException {
-        // No op. Disconnecting from the web socket will cancel subscriptions.
-        return null;
+        if (connectionStreams.contains(channelName)) {
+            return null;
+        }
+        return request(SUBSCRIBE, channelName);
     }
 
     @Override
     public String getUnsubscribeMessage(String channelName, Object... args) throws IOException {
-        // No op. Disconnecting from the web socket will cancel subscriptions.
-        return null;
+        // once unsubscribed, the stream has to be subscribed explicitly again
+        connectionStreams.remove(channelName);
+        return request(UNSUBSCRIBE, channelName);
     }
 
-    @Override
-    public void sendMessage(String message) {
-        // Subscriptions are made upon connection - no messages are sent.
+    private String request(String method, String channelName) throws IOException {
+        return mapper.writeValueAsString(new BinanceSubscriptionMessage(method, requestId.incrementAndGet(), channelName));
     }
 
     /**
-     * The available subscriptions for this streaming service.
-     * @return The subscriptions for the currently open connection.
+     * The subscriptions of the connection URL.
+     * @return The subscriptions the current connection was opened with.
      */
     public ProductSubscription getProductSubscription() {
         return productSubscription;
     }
-
-
 }
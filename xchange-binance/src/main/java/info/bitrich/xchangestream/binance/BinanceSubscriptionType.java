@@ -0,0 +1,105 @@
+package info.bitrich.xchangestream.binance;
+
+/**
+ * Binance market streams. Pass one as an argument of {@code getOrderBook}, {@code getTicker} or {@code getTrades}
+ * to select the stream the service subscribes, e.g.
+ * <pre>
+ * exchange.getStreamingMarketDataService().getOrderBook(CurrencyPair.BTC_USDT, BinanceSubscriptionType.DEPTH10)
+ * </pre>
+ * Without one the services use {@link #DEPTH}, {@link #TICKER} and {@link #TRADE}.
+ */
+public enum BinanceSubscriptionType {
+    /**
+     * Full book kept with the REST snapshot and the diff depth updates of each second.
+     */
+    DEPTH(Category.ORDER_BOOK, "depth", 0),
+    /**
+     * Same as {@link #DEPTH} with updates every 100 ms.
+     */
+    DEPTH_100MS(Category.ORDER_BOOK, "depth@100ms", 0),
+    /**
+     * Top 5 levels of each side, sent as a whole every second. Needs no REST snapshot.
+     */
+    DEPTH5(Category.ORDER_BOOK, "depth5", 5),
+    DEPTH10(Category.ORDER_BOOK, "depth10", 10),
+    DEPTH20(Category.ORDER_BOOK, "depth20", 20),
+    /**
+     * 24 hour rolling statistics, every second.
+     */
+    TICKER(Category.TICKER, "ticker", 0),
+    /**
+     * {@link #TICKER}s of all pairs from the single {@code !ticker@arr} stream. Each message carries the tickers
+     * which changed in the last second, it is parsed once whatever the number of subscribed pairs.
+     */
+    ALL_MARKET_TICKER(Category.TICKER, "!ticker@arr", 0),
+    /**
+     * Best bid and ask with their quantities, on every change of the top of the book.
+     */
+    BOOK_TICKER(Category.TICKER, "bookTicker", 0),
+    TRADE(Category.TRADES, "trade", 0),
+    /**
+     * Trades of one taker order at one price aggregated into one message.
+     */
+    AGG_TRADE(Category.TRADES, "aggTrade", 0);
+
+    public enum Category {
+        ORDER_BOOK, TICKER, TRADES
+    }
+
+    private final Category category;
+    private final String streamName;
+    private final int levels;
+
+    BinanceSubscriptionType(Category category, String streamName, int levels) {
+        this.category = category;
+        this.streamName = streamName;
+        this.levels = levels;
+    }
+
+    public Category getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the suffix of the stream name, e.g. {@code depth5} in {@code btcusdt@depth5}, or the whole name of
+     * the all market streams.
+     */
+    public String getStreamName() {
+        return streamName;
+    }
+
+    /**
+     * @return true for the partial book streams, which send the top levels as a whole.
+     */
+    public boolean isPartialDepth() {
+        return levels > 0;
+    }
+
+    /**
+     * @return the number of levels of each side of a partial book stream, 0 for the other streams.
+     */
+    public int getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return the first type of the category among the args, or the default of the category.
+     */
+    public static BinanceSubscriptionType fromArgs(Category category, Object... args) {
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof BinanceSubscriptionType && ((BinanceSubscriptionType) arg).category == category) {
+                    return (BinanceSubscriptionType) arg;
+                }
+            }
+        }
+        switch (category) {
+            case ORDER_BOOK:
+                return DEPTH;
+            case TICKER:
+                return TICKER;
+            default:
+                return TRADE;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package info.bitrich.xchangestream.binance.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
+
+import java.math.BigDecimal;
+
+/**
+ * Message of the {@code <symbol>@aggTrade} stream: the fills of one taker order at one price.
+ */
+@GenerateDecoder
+public class AggTradeBinanceWebsocketTransaction extends ProductBinanceWebSocketTransaction {
+
+    private final BinanceRawTrade rawTrade;
+    private final long firstTradeId;
+    private final long lastTradeId;
+
+    public AggTradeBinanceWebsocketTransaction(
+            @JsonProperty("e") String eventType,
+            @JsonProperty("E") String eventTime,
+            @JsonProperty("s") String symbol,
+            @JsonProperty("a") long aggregateTradeId,
+            @JsonProperty("p") BigDecimal price,
+            @JsonProperty("q") BigDecimal quantity,
+            @JsonProperty("f") long firstTradeId,
+            @JsonProperty("l") long lastTradeId,
+            @JsonProperty("T") long timestamp,
+            @JsonProperty("m") boolean buyerMarketMaker,
+            @JsonProperty("M") boolean ignore)
+    {
+        super(eventType, eventTime, symbol);
+        this.firstTradeId = firstTradeId;
+        this.lastTradeId = lastTradeId;
+
+        // aggregated trades carry no order ids
+        rawTrade = new BinanceRawTrade(
+                eventType,
+                eventTime,
+                symbol,
+                aggregateTradeId,
+                price,
+                quantity,
+                0L,
+                0L,
+                timestamp,
+                buyerMarketMaker,
+                ignore);
+    }
+
+    /**
+     * @return the aggregated trade, its trade id is the aggregate trade id.
+     */
+    public BinanceRawTrade getRawTrade() {
+        return rawTrade;
+    }
+
+    public long getFirstTradeId() {
+        return firstTradeId;
+    }
+
+    public long getLastTradeId() {
+        return lastTradeId;
+    }
+}
@@ -0,0 +1,41 @@
+package info.bitrich.xchangestream.binance.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Live subscription request of the combined stream, e.g.
+ * {@code {"method":"SUBSCRIBE","params":["btcusdt@depth"],"id":1}}. Binance answers with
+ * {@code {"result":null,"id":1}}.
+ */
+public class BinanceSubscriptionMessage {
+    public static final String SUBSCRIBE = "SUBSCRIBE";
+    public static final String UNSUBSCRIBE = "UNSUBSCRIBE";
+
+    private final String method;
+    private final List<String> params;
+    private final long id;
+
+    public BinanceSubscriptionMessage(String method, long id, String... streams) {
+        this.method = method;
+        this.params = Arrays.asList(streams);
+        this.id = id;
+    }
+
+    @JsonProperty("method")
+    public String getMethod() {
+        return method;
+    }
+
+    @JsonProperty("params")
+    public List<String> getParams() {
+        return params;
+    }
+
+    @JsonProperty("id")
+    public long getId() {
+        return id;
+    }
+}
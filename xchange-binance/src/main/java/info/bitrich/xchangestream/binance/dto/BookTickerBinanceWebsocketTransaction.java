@@ -0,0 +1,74 @@
+package info.bitrich.xchangestream.binance.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.binance.BinanceStreamingExchange;
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.marketdata.Ticker;
+
+import java.math.BigDecimal;
+
+/**
+ * Message of the {@code <symbol>@bookTicker} stream: best bid and ask with their quantities. The message has no
+ * event type or time.
+ */
+@GenerateDecoder
+public class BookTickerBinanceWebsocketTransaction {
+
+    private final long updateId;
+    private final CurrencyPair currencyPair;
+    private final BigDecimal bidPrice;
+    private final BigDecimal bidQuantity;
+    private final BigDecimal askPrice;
+    private final BigDecimal askQuantity;
+
+    public BookTickerBinanceWebsocketTransaction(
+            @JsonProperty("u") long updateId,
+            @JsonProperty("s") String symbol,
+            @JsonProperty("b") BigDecimal bidPrice,
+            @JsonProperty("B") BigDecimal bidQuantity,
+            @JsonProperty("a") BigDecimal askPrice,
+            @JsonProperty("A") BigDecimal askQuantity
+    ) {
+        this.updateId = updateId;
+        this.currencyPair = BinanceStreamingExchange.SYMBOLS.toCurrencyPair(symbol);
+        this.bidPrice = bidPrice;
+        this.bidQuantity = bidQuantity;
+        this.askPrice = askPrice;
+        this.askQuantity = askQuantity;
+    }
+
+    public long getUpdateId() {
+        return updateId;
+    }
+
+    public CurrencyPair getCurrencyPair() {
+        return currencyPair;
+    }
+
+    public BigDecimal getBidPrice() {
+        return bidPrice;
+    }
+
+    public BigDecimal getBidQuantity() {
+        return bidQuantity;
+    }
+
+    public BigDecimal getAskPrice() {
+        return askPrice;
+    }
+
+    public BigDecimal getAskQuantity() {
+        return askQuantity;
+    }
+
+    public Ticker toTicker() {
+        return new Ticker.Builder()
+                .currencyPair(currencyPair)
+                .bid(bidPrice)
+                .bidSize(bidQuantity)
+                .ask(askPrice)
+                .askSize(askQuantity)
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package info.bitrich.xchangestream.binance.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.knowm.xchange.binance.dto.marketdata.BinanceOrderbook;
+
+import java.util.List;
+
+/**
+ * Message of the partial book streams ({@code <symbol>@depth<levels>}), which carry the top levels of the book as a
+ * whole. The message has no event type or symbol, the pair is known from the stream.
+ */
+public class PartialDepthBinanceWebSocketTransaction {
+
+    private final BinanceOrderbook orderBook;
+
+    public PartialDepthBinanceWebSocketTransaction(
+            @JsonProperty("lastUpdateId") long lastUpdateId,
+            @JsonProperty("bids") List<Object[]> _bids,
+            @JsonProperty("asks") List<Object[]> _asks
+    ) {
+        orderBook = new BinanceOrderbook(lastUpdateId, _bids, _asks);
+    }
+
+    public BinanceOrderbook getOrderBook() {
+        return orderBook;
+    }
+
+    public long getLastUpdateId() {
+        return orderBook.lastUpdateId;
+    }
+}
@@ -1,7 +1,7 @@
 package info.bitrich.xchangestream.binance.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import org.knowm.xchange.binance.BinanceAdapters;
+import info.bitrich.xchangestream.binance.BinanceStreamingExchange;
 import org.knowm.xchange.currency.CurrencyPair;
 
 public class ProductBinanceWebSocketTransaction extends BaseBinanceWebSocketTransaction {
@@ -13,7 +13,7 @@ public class ProductBinanceWebSocketTransaction extends BaseBinanceWebSocketTran
             @JsonProperty("E") String eventTime,
             @JsonProperty("s") String symbol) {
         super(eventType, eventTime);
-        currencyPair = BinanceAdapters.adaptSymbol(symbol);
+        currencyPair = BinanceStreamingExchange.SYMBOLS.toCurrencyPair(symbol);
     }
 
     public CurrencyPair getCurrencyPair() {
@@ -1,12 +1,14 @@
 package info.bitrich.xchangestream.binance.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
 
 import java.math.BigDecimal;
 
 import org.knowm.xchange.binance.BinanceAdapters;
 import org.knowm.xchange.binance.dto.marketdata.BinanceTicker24h;
 
+@GenerateDecoder
 public class TickerBinanceWebsocketTransaction extends ProductBinanceWebSocketTransaction {
 
     private final BinanceTicker24h ticker;
@@ -1,9 +1,11 @@
 package info.bitrich.xchangestream.binance.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
 
 import java.math.BigDecimal;
 
+@GenerateDecoder
 public class TradeBinanceWebsocketTransaction extends ProductBinanceWebSocketTransaction {
 
     private final BinanceRawTrade rawTrade;
@@ -0,0 +1,247 @@
+package info.bitrich.xchangestream.binance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.ProductSubscription;
+import info.bitrich.xchangestream.core.orderbook.OrderBookSequencer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.knowm.xchange.binance.dto.marketdata.BinanceOrderbook;
+import org.knowm.xchange.binance.service.BinanceMarketDataService;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.marketdata.Ticker;
+import org.knowm.xchange.dto.marketdata.Trade;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinanceStreamingMarketDataServiceTest {
+
+    @Mock
+    private BinanceStreamingService streamingService;
+    @Mock
+    private BinanceMarketDataService marketDataService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> snapshotTasks = new ArrayList<>();
+    private final PublishSubject<JsonNode> depthChannel = PublishSubject.create();
+    private BinanceStreamingMarketDataService marketDataStreamingService;
+
+    @Before
+    public void setUp() {
+        ProductSubscription subscription = ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USDT).build();
+        when(streamingService.subscribeChannel(eq("btcusdt@depth"))).thenReturn(depthChannel);
+
+        marketDataStreamingService = new BinanceStreamingMarketDataService(streamingService, marketDataService,
+                snapshotTasks::add);
+        marketDataStreamingService.openSubscriptions(subscription);
+    }
+
+    @Test
+    public void testEventsReceivedWhileSnapshotInFlightAreReplayed() throws Exception {
+        when(marketDataService.getBinanceOrderbook(CurrencyPair.BTC_USDT, 1000)).thenReturn(new BinanceOrderbook(5,
+                Collections.singletonList(new Object[]{"100", "1"}),
+                Collections.singletonList(new Object[]{"101", "1"})));
+
+        TestObserver<OrderBook> test = marketDataStreamingService.getOrderBook(CurrencyPair.BTC_USDT).test();
+
+        depthChannel.onNext(depthEvent(1, 3, "99", "2"));
+        depthChannel.onNext(depthEvent(4, 6, "100", "3"));
+        test.assertNoValues();
+        assertThat(snapshotTasks).hasSize(1);
+
+        // the snapshot lands after both events were received
+        snapshotTasks.get(0).run();
+        depthChannel.onNext(depthEvent(7, 7, "98", "4"));
+
+        test.assertValueCount(1);
+        OrderBook orderBook = test.values().get(0);
+        assertThat(orderBook.getBids()).extracting(order -> order.getLimitPrice().toPlainString())
+                .containsExactly("100", "98");
+        assertThat(orderBook.getBids().get(0).getOriginalAmount()).isEqualByComparingTo(new BigDecimal("3"));
+        assertThat(marketDataStreamingService.getOrderBookSequencer(CurrencyPair.BTC_USDT).getResyncCount())
+                .isEqualTo(1);
+        verify(marketDataService, times(1)).getBinanceOrderbook(CurrencyPair.BTC_USDT, 1000);
+    }
+
+    @Test
+    public void testGapDuringBackoffIsRetriedOnceAndCountedOnce() throws Exception {
+        when(marketDataService.getBinanceOrderbook(CurrencyPair.BTC_USDT, 1000)).thenReturn(new BinanceOrderbook(5,
+                Collections.singletonList(new Object[]{"100", "1"}),
+                Collections.singletonList(new Object[]{"101", "1"})));
+        marketDataStreamingService.getOrderBook(CurrencyPair.BTC_USDT).test();
+        depthChannel.onNext(depthEvent(4, 6, "99", "2"));
+        snapshotTasks.get(0).run();
+
+        // a gap right after the snapshot, within the backoff
+        depthChannel.onNext(depthEvent(9, 9, "98", "1"));
+        depthChannel.onNext(depthEvent(10, 10, "97", "1"));
+        depthChannel.onNext(depthEvent(11, 11, "96", "1"));
+
+        OrderBookSequencer<?> sequencer = marketDataStreamingService.getOrderBookSequencer(CurrencyPair.BTC_USDT);
+        assertThat(sequencer.getGapCount()).isEqualTo(1);
+        assertThat(sequencer.getResyncCount()).isEqualTo(1);
+        assertThat(sequencer.getBufferedCount()).isEqualTo(3);
+        assertThat(snapshotTasks).hasSize(1);
+    }
+
+    @Test
+    public void testConflatedBookIsNotChangedByLaterUpdates() throws Exception {
+        when(marketDataService.getBinanceOrderbook(CurrencyPair.BTC_USDT, 1000)).thenReturn(new BinanceOrderbook(5,
+                Collections.singletonList(new Object[]{"100", "1"}),
+                Collections.singletonList(new Object[]{"101", "1"})));
+        TestScheduler scheduler = new TestScheduler();
+
+        TestObserver<OrderBook> test = marketDataStreamingService.getOrderBook(CurrencyPair.BTC_USDT,
+                Conflation.latest(100, TimeUnit.MILLISECONDS, scheduler)).test();
+        depthChannel.onNext(depthEvent(4, 6, "99", "2"));
+        snapshotTasks.get(0).run();
+        depthChannel.onNext(depthEvent(7, 7, "98", "4"));
+        test.assertValueCount(1);
+        OrderBook emitted = test.values().get(0);
+
+        // updated in place after the emission
+        depthChannel.onNext(depthEvent(8, 8, "97", "5"));
+        assertThat(emitted.getBids()).extracting(order -> order.getLimitPrice().toPlainString())
+                .containsExactly("100", "99", "98");
+
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        test.assertValueCount(2);
+        assertThat(test.values().get(1).getBids()).extracting(order -> order.getLimitPrice().toPlainString())
+                .containsExactly("100", "99", "98", "97");
+    }
+
+    @Test
+    public void testStreamsAreSubscribedOnFirstRequestAndClosedOnDemand() {
+        PublishSubject<JsonNode> tradeChannel = PublishSubject.create();
+        when(streamingService.subscribeChannel(eq("ethbtc@trade"))).thenReturn(tradeChannel);
+
+        marketDataStreamingService.getTrades(CurrencyPair.ETH_BTC).test();
+        marketDataStreamingService.getTrades(CurrencyPair.ETH_BTC).test();
+
+        verify(streamingService, times(1)).subscribeChannel(eq("ethbtc@trade"));
+        assertThat(tradeChannel.hasObservers()).isTrue();
+
+        marketDataStreamingService.closeSubscriptions(ProductSubscription.create().addTrades(CurrencyPair.ETH_BTC).build());
+        marketDataStreamingService.getTrades(CurrencyPair.ETH_BTC).test();
+
+        verify(streamingService, times(2)).subscribeChannel(eq("ethbtc@trade"));
+    }
+
+    @Test
+    public void testLazilyOpenedStreamIsUnsubscribedAfterLastSubscriber() {
+        List<String> sent = new ArrayList<>();
+        BinanceStreamingService service = new BinanceStreamingService("wss://stream.binance.com:9443/stream",
+                ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USDT).build()) {
+            @Override
+            public void sendMessage(String message) {
+                sent.add(message);
+            }
+        };
+        BinanceStreamingMarketDataService marketData = new BinanceStreamingMarketDataService(service,
+                marketDataService, snapshotTasks::add);
+        marketData.openSubscriptions(ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USDT).build());
+
+        TestObserver<Trade> first = marketData.getTrades(CurrencyPair.ETH_BTC).test();
+        TestObserver<Trade> second = marketData.getTrades(CurrencyPair.ETH_BTC).test();
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).contains("\"SUBSCRIBE\"").contains("ethbtc@trade");
+
+        first.dispose();
+        assertThat(sent).hasSize(1);
+        second.dispose();
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1)).contains("\"UNSUBSCRIBE\"").contains("ethbtc@trade");
+
+        // subscribed again by the next subscriber, the stream of the connection URL is kept
+        marketData.getTrades(CurrencyPair.ETH_BTC).test();
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(2)).contains("\"SUBSCRIBE\"").contains("ethbtc@trade");
+        assertThat(sent).filteredOn(message -> message.contains("btcusdt@depth")).isEmpty();
+    }
+
+    @Test
+    public void testPartialDepthNeedsNoSnapshot() throws Exception {
+        PublishSubject<JsonNode> partialChannel = PublishSubject.create();
+        when(streamingService.subscribeChannel(eq("btcusdt@depth5"))).thenReturn(partialChannel);
+
+        TestObserver<OrderBook> test = marketDataStreamingService
+                .getOrderBook(CurrencyPair.BTC_USDT, BinanceSubscriptionType.DEPTH5).test();
+        partialChannel.onNext(objectMapper.readTree("{\"stream\":\"btcusdt@depth5\",\"data\":{\"lastUpdateId\":160," +
+                "\"bids\":[[\"0.0024\",\"10\"]],\"asks\":[[\"0.0026\",\"100\"],[\"0.0027\",\"5\"]]}}"));
+
+        test.assertValueCount(1);
+        OrderBook orderBook = test.values().get(0);
+        assertThat(orderBook.getBids()).hasSize(1);
+        assertThat(orderBook.getAsks()).extracting(order -> order.getLimitPrice().toPlainString())
+                .containsExactly("0.0026", "0.0027");
+        assertThat(snapshotTasks).isEmpty();
+    }
+
+    @Test
+    public void testBookTicker() throws Exception {
+        PublishSubject<JsonNode> bookTickerChannel = PublishSubject.create();
+        when(streamingService.subscribeChannel(eq("btcusdt@bookTicker"))).thenReturn(bookTickerChannel);
+
+        TestObserver<Ticker> test = marketDataStreamingService
+                .getTicker(CurrencyPair.BTC_USDT, BinanceSubscriptionType.BOOK_TICKER).test();
+        bookTickerChannel.onNext(objectMapper.readTree("{\"stream\":\"btcusdt@bookTicker\",\"data\":{\"u\":400900217," +
+                "\"s\":\"BTCUSDT\",\"b\":\"6500.10\",\"B\":\"1.5\",\"a\":\"6500.20\",\"A\":\"0.3\"}}"));
+
+        test.assertValueCount(1);
+        Ticker ticker = test.values().get(0);
+        assertThat(ticker.getCurrencyPair()).isEqualTo(CurrencyPair.BTC_USDT);
+        assertThat(ticker.getBid()).isEqualByComparingTo("6500.10");
+        assertThat(ticker.getAskSize()).isEqualByComparingTo("0.3");
+    }
+
+    @Test
+    public void testAllMarketTickersAreParsedOnceAndFannedOut() throws Exception {
+        PublishSubject<JsonNode> allTickersChannel = PublishSubject.create();
+        when(streamingService.subscribeChannel(eq("!ticker@arr"))).thenReturn(allTickersChannel);
+
+        TestObserver<Ticker> eth = marketDataStreamingService
+                .getTicker(CurrencyPair.ETH_BTC, BinanceSubscriptionType.ALL_MARKET_TICKER).test();
+        TestObserver<Ticker> ltc = marketDataStreamingService
+                .getTicker(CurrencyPair.LTC_BTC, BinanceSubscriptionType.ALL_MARKET_TICKER).test();
+        allTickersChannel.onNext(objectMapper.readTree("{\"stream\":\"!ticker@arr\",\"data\":[" +
+                tickerEvent("ETHBTC", "0.0917") + "," + tickerEvent("BNBBTC", "0.0015") + "]}"));
+
+        eth.assertValueCount(1);
+        assertThat(eth.values().get(0).getLast()).isEqualByComparingTo("0.0917");
+        ltc.assertNoValues();
+        verify(streamingService, times(1)).subscribeChannel(eq("!ticker@arr"));
+    }
+
+    private static String tickerEvent(String symbol, String last) {
+        return "{\"e\":\"24hrTicker\",\"E\":1516135684559,\"s\":\"" + symbol + "\",\"p\":\"0\",\"P\":\"0\"," +
+                "\"w\":\"0\",\"x\":\"0\",\"c\":\"" + last + "\",\"Q\":\"0\",\"b\":\"0\",\"B\":\"0\",\"a\":\"0\"," +
+                "\"A\":\"0\",\"o\":\"0\",\"h\":\"0\",\"l\":\"0\",\"v\":\"0\",\"q\":\"0\",\"O\":1516049284557," +
+                "\"C\":1516135684557,\"F\":1,\"L\":2,\"n\":2}";
+    }
+
+    private JsonNode depthEvent(long firstUpdateId, long lastUpdateId, String bidPrice, String bidQuantity)
+            throws Exception {
+        return objectMapper.readTree("{\"stream\":\"btcusdt@depth\",\"data\":{\"e\":\"depthUpdate\",\"E\":1499404630606," +
+                "\"s\":\"BTCUSDT\",\"U\":" + firstUpdateId + ",\"u\":" + lastUpdateId + "," +
+                "\"b\":[[\"" + bidPrice + "\",\"" + bidQuantity + "\",[]]],\"a\":[]}}");
+    }
+}
@@ -0,0 +1,50 @@
+package info.bitrich.xchangestream.binance;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.ProductSubscription;
+import io.reactivex.observers.TestObserver;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinanceStreamingServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BinanceStreamingService service = new BinanceStreamingService("wss://stream.binance.com:9443/stream",
+            ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USDT).build());
+
+    @Test
+    public void testConnectionStreamsAreNotSubscribedAgain() throws Exception {
+        assertThat(service.getSubscribeMessage("btcusdt@depth")).isNull();
+    }
+
+    @Test
+    public void testOtherStreamsAreSubscribedOnTheOpenSocket() throws Exception {
+        JsonNode subscribe = mapper.readTree(service.getSubscribeMessage("ethbtc@trade"));
+        JsonNode unsubscribe = mapper.readTree(service.getUnsubscribeMessage("ethbtc@trade"));
+
+        assertThat(subscribe.get("method").asText()).isEqualTo("SUBSCRIBE");
+        assertThat(subscribe.get("params").get(0).asText()).isEqualTo("ethbtc@trade");
+        assertThat(unsubscribe.get("method").asText()).isEqualTo("UNSUBSCRIBE");
+        assertThat(unsubscribe.get("id").asLong()).isGreaterThan(subscribe.get("id").asLong());
+    }
+
+    @Test
+    public void testUnsubscribedConnectionStreamIsSubscribedExplicitly() throws Exception {
+        service.getUnsubscribeMessage("btcusdt@depth");
+
+        assertThat(service.getSubscribeMessage("btcusdt@depth")).contains("SUBSCRIBE");
+    }
+
+    @Test
+    public void testRequestResponsesAreNotRoutedToChannels() throws Exception {
+        TestObserver<JsonNode> depth = service.subscribeChannel("btcusdt@depth").test();
+
+        service.messageHandler("{\"result\":null,\"id\":1}");
+        service.messageHandler("{\"stream\":\"btcusdt@depth\",\"data\":{}}");
+
+        depth.assertValueCount(1);
+    }
+}
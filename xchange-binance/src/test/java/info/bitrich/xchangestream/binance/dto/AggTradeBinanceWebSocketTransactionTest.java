@@ -0,0 +1,43 @@
+package info.bitrich.xchangestream.binance.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.assertEquals;
+
+public class AggTradeBinanceWebSocketTransactionTest {
+    private static ObjectMapper mapper;
+
+    @BeforeClass
+    public static void setupClass() {
+        JsonFactory jf = new JsonFactory();
+        jf.enable(JsonParser.Feature.ALLOW_COMMENTS);
+        mapper = new ObjectMapper(jf);
+    }
+
+    @Test
+    public void testMapping() throws Exception {
+        InputStream stream = this.getClass().getResourceAsStream("testAggTradeEvent.json");
+        AggTradeBinanceWebsocketTransaction transaction = mapper.readValue(stream, AggTradeBinanceWebsocketTransaction.class);
+        assertEquals(BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.AGG_TRADE, transaction.getEventType());
+        assertThat(transaction.getFirstTradeId()).isEqualTo(100L);
+        assertThat(transaction.getLastTradeId()).isEqualTo(105L);
+
+        BinanceRawTrade rawTrade = transaction.getRawTrade();
+
+        assertThat(rawTrade.getEventType()).isEqualTo("aggTrade");
+        assertThat(rawTrade.getSymbol()).isEqualTo("BNBBTC");
+        assertThat(rawTrade.getTradeId()).isEqualTo(12345L);
+        assertThat(rawTrade.getPrice()).isEqualByComparingTo(BigDecimal.valueOf(0.001));
+        assertThat(rawTrade.getQuantity()).isEqualByComparingTo(BigDecimal.valueOf(100));
+        assertThat(rawTrade.getTimestamp()).isEqualTo(123456785L);
+        assertThat(rawTrade.isBuyerMarketMaker()).isTrue();
+    }
+}
@@ -3,7 +3,9 @@ package info.bitrich.xchangestream.binance.dto;
 import static info.bitrich.xchangestream.binance.dto.BaseBinanceWebSocketTransaction.BinanceWebSocketTypes.TICKER_24_HR;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -60,4 +62,21 @@ public class TickerBinanceWebsocketTransactionTest {
         assertThat(ticker.getTradeCount()).isEqualTo(418675L);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void test_generated_decoder_matches_jackson() throws IOException {
+        JsonNode message = mapper.readTree(
+                TickerBinanceWebsocketTransactionTest.class.getResourceAsStream("testTickerEvent.json"));
+        TickerBinanceWebsocketTransaction expected =
+                mapper.treeToValue(message.get("data"), TickerBinanceWebsocketTransaction.class);
+
+        TickerBinanceWebsocketTransaction decoded;
+        try (JsonParser parser = mapper.treeAsTokens(message.get("data"))) {
+            decoded = new TickerBinanceWebsocketTransactionDecoder().decode(parser);
+        }
+
+        assertThat(decoded.eventType).isEqualTo(expected.eventType);
+        assertThat(decoded.getEventTime()).isEqualTo(expected.getEventTime());
+        assertThat(decoded.getCurrencyPair()).isEqualTo(expected.getCurrencyPair());
+        assertThat(decoded.getTicker()).isEqualToComparingFieldByField(expected.getTicker());
+    }
+}
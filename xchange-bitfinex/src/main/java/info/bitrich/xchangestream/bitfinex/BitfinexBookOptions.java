@@ -0,0 +1,130 @@
+package info.bitrich.xchangestream.bitfinex;
+
+import java.util.Objects;
+
+/**
+ * Options of a Bitfinex book subscription. Pass them as arguments of {@code getOrderBook}, e.g.
+ * <pre>
+ * exchange.getStreamingMarketDataService().getOrderBook(CurrencyPair.BTC_USD, Precision.P2, Frequency.F1, Length.L25)
+ * </pre>
+ * Aggregated or throttled books send far fewer updates, they are cheaper to follow for secondary pairs. Without
+ * options the book is {@code P0}, realtime and 100 levels long. A plain number or text argument is still read as the
+ * length.
+ */
+public final class BitfinexBookOptions {
+
+    /**
+     * Aggregation of the price levels, from {@link #P0} (5 significant digits) to {@link #P4} (1 significant digit),
+     * or the raw book of single orders, {@link #R0}.
+     */
+    public enum Precision {
+        P0, P1, P2, P3, P4, R0
+    }
+
+    /**
+     * {@link #F0} sends every update as it happens, {@link #F1} every 2 seconds.
+     */
+    public enum Frequency {
+        F0, F1
+    }
+
+    /**
+     * Number of price levels of each side.
+     */
+    public enum Length {
+        L1(1), L25(25), L100(100), L250(250);
+
+        private final int levels;
+
+        Length(int levels) {
+            this.levels = levels;
+        }
+
+        public int getLevels() {
+            return levels;
+        }
+    }
+
+    public static final BitfinexBookOptions DEFAULT = new BitfinexBookOptions(Precision.P0, Frequency.F0, "100");
+
+    private final Precision precision;
+    private final Frequency frequency;
+    private final String length;
+
+    private BitfinexBookOptions(Precision precision, Frequency frequency, String length) {
+        this.precision = precision;
+        this.frequency = frequency;
+        this.length = length;
+    }
+
+    /**
+     * @return the options found among the args, the defaults for the missing ones.
+     */
+    public static BitfinexBookOptions fromArgs(Object... args) {
+        Precision precision = DEFAULT.precision;
+        Frequency frequency = DEFAULT.frequency;
+        String length = DEFAULT.length;
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof Precision) {
+                    precision = (Precision) arg;
+                } else if (arg instanceof Frequency) {
+                    frequency = (Frequency) arg;
+                } else if (arg instanceof Length) {
+                    length = String.valueOf(((Length) arg).getLevels());
+                } else if (arg instanceof Number || arg instanceof String) {
+                    length = arg.toString();
+                }
+            }
+        }
+        return new BitfinexBookOptions(precision, frequency, length);
+    }
+
+    /**
+     * @return the same options with another precision, e.g. {@link Precision#R0} for the raw book.
+     */
+    public BitfinexBookOptions withPrecision(Precision precision) {
+        return new BitfinexBookOptions(precision, frequency, length);
+    }
+
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public String getLength() {
+        return length;
+    }
+
+    public boolean isRaw() {
+        return precision == Precision.R0;
+    }
+
+    /**
+     * @return the arguments of the {@code book} channel subscription.
+     */
+    Object[] toSubscriptionArgs(String pair) {
+        return new Object[]{pair, precision.name(), frequency.name(), length};
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BitfinexBookOptions that = (BitfinexBookOptions) o;
+        return precision == that.precision && frequency == that.frequency && length.equals(that.length);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(precision, frequency, length);
+    }
+
+    @Override
+    public String toString() {
+        return precision + "-" + frequency + "-" + length;
+    }
+}
@@ -1,10 +1,16 @@
 package info.bitrich.xchangestream.bitfinex;
 
 import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketOrder;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketUserTrade;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketWallet;
+import info.bitrich.xchangestream.core.SymbolTable;
+import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.account.Balance;
 import org.knowm.xchange.dto.trade.LimitOrder;
 import org.knowm.xchange.dto.trade.MarketOrder;
+import org.knowm.xchange.dto.trade.UserTrade;
 import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
 import org.knowm.xchange.utils.DateUtils;
 import org.slf4j.Logger;
@@ -16,6 +22,20 @@ public class BitfinexStreamingAdapters {
 
     private static final Logger log = LoggerFactory.getLogger(BitfinexStreamingAdapters.class);
 
+    /**
+     * Pairs of the public channels, e.g. {@code BTCUSD}.
+     */
+    public static final SymbolTable PAIRS = new SymbolTable(
+            pair -> pair.base.getCurrencyCode() + pair.counter.getCurrencyCode(),
+            symbol -> adaptSymbol("t" + symbol));
+
+    /**
+     * Trading symbols of the authenticated channels, e.g. {@code tBTCUSD}.
+     */
+    public static final SymbolTable SYMBOLS = new SymbolTable(
+            pair -> "t" + pair.base.getCurrencyCode() + pair.counter.getCurrencyCode(),
+            BitfinexStreamingAdapters::adaptSymbol);
+
     public static Order adaptOrder(BitfinexWebSocketOrder order) {
         switch (order.getType()) {
             case "LIMIT":
@@ -32,7 +52,7 @@ public class BitfinexStreamingAdapters {
 
     private static Order adaptMarketOrder(BitfinexWebSocketOrder order) {
         MarketOrder.Builder builder = (MarketOrder.Builder) new MarketOrder.Builder(
-                adaptType(order.getAmountOrig()), adaptSymbol(order.getSymbol()))
+                adaptType(order.getAmountOrig()), SYMBOLS.toCurrencyPair(order.getSymbol()))
                 .id(String.valueOf(order.getId()))
                 .averagePrice(order.getPriceAvg())
                 .orderStatus(adaptStatus(order.getOrderStatus()))
@@ -43,7 +63,7 @@ public class BitfinexStreamingAdapters {
     }
 
     private static Order adaptLimitOrder(BitfinexWebSocketOrder order) {
-        return new LimitOrder.Builder(adaptType(order.getAmountOrig()), adaptSymbol(order.getSymbol()))
+        return new LimitOrder.Builder(adaptType(order.getAmountOrig()), SYMBOLS.toCurrencyPair(order.getSymbol()))
                 .id(String.valueOf(order.getId()))
                 .limitPrice(order.getPrice())
                 .averagePrice(order.getPriceAvg())
@@ -54,6 +74,35 @@ public class BitfinexStreamingAdapters {
                 .build();
     }
 
+    /**
+     * The available balance is the total one until Bitfinex has calculated it.
+     */
+    public static Balance adaptBalance(BitfinexWebSocketWallet wallet) {
+        Currency currency = Currency.getInstance(wallet.getCurrency());
+        if (wallet.getBalanceAvailable() == null) {
+            return new Balance(currency, wallet.getBalance());
+        }
+        return new Balance(currency, wallet.getBalance(), wallet.getBalanceAvailable());
+    }
+
+    public static UserTrade adaptUserTrade(BitfinexWebSocketUserTrade trade) {
+        UserTrade.Builder builder = new UserTrade.Builder()
+                .type(adaptType(trade.getExecAmount()))
+                .originalAmount(adaptAmount(trade.getExecAmount()))
+                .currencyPair(SYMBOLS.toCurrencyPair(trade.getSymbol()))
+                .price(trade.getExecPrice())
+                .timestamp(DateUtils.fromMillisUtc(trade.getMtsCreate()))
+                .id(String.valueOf(trade.getId()))
+                .orderId(String.valueOf(trade.getOrderId()));
+        if (trade.getFee() != null) {
+            builder.feeAmount(trade.getFee().abs());
+        }
+        if (trade.getFeeCurrency() != null) {
+            builder.feeCurrency(Currency.getInstance(trade.getFeeCurrency()));
+        }
+        return builder.build();
+    }
+
     private static Order.OrderStatus adaptStatus(String status) {
 
         if (status == null) {
@@ -4,6 +4,7 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.StreamingTradeService;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
@@ -15,9 +16,16 @@ import org.knowm.xchange.bitfinex.v1.BitfinexExchange;
 public class BitfinexStreamingExchange extends BitfinexExchange implements StreamingExchange {
     private static final String API_URI = "wss://api.bitfinex.com/ws/2";
 
+    /**
+     * Exchange specific parameter, the configuration flags sent on connection as the sum of the {@code FLAG_}
+     * constants of {@link BitfinexStreamingService}, e.g. {@code FLAG_BULK_UPDATES + FLAG_SEQ_ALL}.
+     */
+    public static final String P_CONF_FLAGS = "Conf_Flags";
+
     private final BitfinexStreamingService streamingService;
     private BitfinexStreamingMarketDataService streamingMarketDataService;
     private BitfinexStreamingPrivateDataService streamingPrivateDataService;
+    private BitfinexStreamingTradeService streamingTradeService;
 
     public BitfinexStreamingExchange() {
         this.streamingService = new BitfinexStreamingService(this, API_URI);
@@ -27,17 +35,25 @@ public class BitfinexStreamingExchange extends BitfinexExchange implements Strea
         this.streamingService = streamingService;
         streamingMarketDataService = new BitfinexStreamingMarketDataService(streamingService);
         streamingPrivateDataService = new BitfinexStreamingPrivateDataService(streamingService);
+        streamingTradeService = new BitfinexStreamingTradeService(streamingService, streamingPrivateDataService);
     }
 
     @Override
     protected void initServices() {
         super.initServices();
+        BitfinexStreamingAdapters.PAIRS.register(exchangeMetaData);
+        BitfinexStreamingAdapters.SYMBOLS.register(exchangeMetaData);
         streamingMarketDataService = new BitfinexStreamingMarketDataService(streamingService);
         streamingPrivateDataService = new BitfinexStreamingPrivateDataService(streamingService);
+        streamingTradeService = new BitfinexStreamingTradeService(streamingService, streamingPrivateDataService);
     }
 
     @Override
     public Completable connect(ProductSubscription... args) {
+        Object confFlags = getExchangeSpecification().getExchangeSpecificParametersItem(P_CONF_FLAGS);
+        if (confFlags != null) {
+            streamingService.setConfFlags(Integer.parseInt(confFlags.toString()));
+        }
         return streamingService.connect();
     }
 
@@ -73,6 +89,11 @@ public class BitfinexStreamingExchange extends BitfinexExchange implements Strea
         return streamingPrivateDataService;
     }
 
+    @Override
+    public StreamingTradeService getStreamingTradeService() {
+        return streamingTradeService;
+    }
+
     @Override
     public void useCompressedMessages(boolean compressedMessages) {
         streamingService.useCompressedMessages(compressedMessages);
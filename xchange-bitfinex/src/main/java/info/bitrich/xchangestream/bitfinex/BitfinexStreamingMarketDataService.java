@@ -1,11 +1,16 @@
 package info.bitrich.xchangestream.bitfinex;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import info.bitrich.xchangestream.bitfinex.dto.*;
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
+import info.bitrich.xchangestream.core.orderbook.L3OrderBook;
 import io.reactivex.Observable;
 import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
 import org.knowm.xchange.dto.marketdata.OrderBook;
 import org.knowm.xchange.dto.marketdata.Ticker;
 import org.knowm.xchange.dto.marketdata.Trade;
@@ -13,9 +18,7 @@ import org.knowm.xchange.dto.marketdata.Trades;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.math.BigDecimal;
 
 import static org.knowm.xchange.bitfinex.v1.BitfinexAdapters.*;
 
@@ -25,53 +28,182 @@ import static org.knowm.xchange.bitfinex.v1.BitfinexAdapters.*;
 public class BitfinexStreamingMarketDataService implements StreamingMarketDataService {
     private static final Logger LOG = LoggerFactory.getLogger(BitfinexStreamingMarketDataService.class);
 
+    private static final String CHECKSUM = "cs";
+
     private final BitfinexStreamingService service;
 
-    private Map<CurrencyPair, BitfinexOrderbook> orderbooks = new ConcurrentHashMap<>();
+    private final SharedStreams streams = new SharedStreams();
 
     public BitfinexStreamingMarketDataService(BitfinexStreamingService service) {
         this.service = service;
     }
 
+    /**
+     * @param args optional {@link BitfinexBookOptions}, the length of the book may also be given as a number. With
+     *             {@link BitfinexBookOptions.Precision#R0} the book is built from the raw book of
+     *             {@link #getOrderBookL3}.
+     */
     @Override
     public Observable<OrderBook> getOrderBook(CurrencyPair currencyPair, Object... args) {
+        final BitfinexBookOptions options = BitfinexBookOptions.fromArgs(args);
+        if (options.isRaw()) {
+            return rawBookStream(currencyPair, options)
+                    .compose(Conflation.apply(args, book -> {
+                        synchronized (book) {
+                            return book.toOrderBook(currencyPair);
+                        }
+                    }));
+        }
+        return streams.get(SharedStreams.key("book", currencyPair, options), () -> orderBookStream(currencyPair, options))
+                .compose(Conflation.apply(args, book -> {
+                    synchronized (book) {
+                        return adaptOrderBook(book.toBitfinexDepth(), currencyPair);
+                    }
+                }));
+    }
+
+    /**
+     * The first message of a subscription is the snapshot. With {@link BitfinexStreamingService#FLAG_BULK_UPDATES}
+     * the following arrays of levels are bulk updates, applied as a whole before the book is emitted once. With
+     * {@link BitfinexStreamingService#FLAG_CHECKSUM} the book is verified against every checksum, on a mismatch only
+     * its channel is subscribed again.
+     */
+    private Observable<BitfinexOrderbook> orderBookStream(CurrencyPair currencyPair, BitfinexBookOptions options) {
         String channelName = "book";
-        final String depth = args.length > 0 ? args[0].toString() : "100";
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        String pair = BitfinexStreamingAdapters.PAIRS.toSymbol(currencyPair);
+        Object[] subscriptionArgs = options.toSubscriptionArgs(pair);
+        String channelId = service.getSubscriptionUniqueId(channelName, subscriptionArgs);
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-        Observable<BitfinexWebSocketOrderbookTransaction> subscribedChannel = service.subscribeChannel(channelName,
-                new Object[]{pair, "P0", depth})
-                .map(s -> {
-                    if (s.get(1).get(0).isArray()) return mapper.readValue(s.toString(),
-                            BitfinexWebSocketSnapshotOrderbook.class);
-                    else return mapper.readValue(s.toString(), BitfinexWebSocketUpdateOrderbook.class);
-                });
+        return Observable.defer(() -> {
+            BitfinexOrderbook[] book = new BitfinexOrderbook[1];
+            // set on a checksum mismatch until the snapshot of the new subscription
+            boolean[] resyncing = new boolean[1];
+            return service.subscribeChannel(channelName, subscriptionArgs)
+                    .filter(s -> {
+                        if (!s.get(1).isTextual()) {
+                            return true;
+                        }
+                        if (CHECKSUM.equals(s.get(1).asText()) && book[0] != null && !resyncing[0]) {
+                            int checksum = s.get(2).asInt();
+                            if (book[0].checksum() != checksum) {
+                                LOG.warn("Checksum mismatch of {}, resubscribing", channelId);
+                                resyncing[0] = true;
+                                service.resyncChannel(channelId);
+                            }
+                        }
+                        return false;
+                    })
+                    .map(s -> {
+                        boolean levels = s.get(1).size() == 0 || s.get(1).get(0).isArray();
+                        boolean snapshot = service.startsSnapshot(s)
+                                || (levels && !service.isFlagEnabled(BitfinexStreamingService.FLAG_BULK_UPDATES));
+                        BitfinexWebSocketOrderbookTransaction transaction;
+                        if (snapshot) {
+                            transaction = mapper.treeToValue(s, BitfinexWebSocketSnapshotOrderbook.class);
+                        } else if (book[0] == null) {
+                            //ignore updates until the first snapshot
+                            return book;
+                        } else if (levels) {
+                            transaction = mapper.treeToValue(s, BitfinexWebSocketBulkUpdateOrderbook.class);
+                        } else {
+                            transaction = mapper.treeToValue(s, BitfinexWebSocketUpdateOrderbook.class);
+                        }
+                        long timestamp = service.getTimestamp(s);
+                        if (snapshot) {
+                            resyncing[0] = false;
+                            book[0] = transaction.toBitfinexOrderBook(null);
+                            book[0].setTimestamp(timestamp);
+                        } else {
+                            synchronized (book[0]) {
+                                transaction.toBitfinexOrderBook(book[0]);
+                                book[0].setTimestamp(timestamp);
+                            }
+                        }
+                        return book;
+                    })
+                    .filter(b -> b[0] != null)
+                    .map(b -> b[0]);
+        });
+    }
 
-        return subscribedChannel
-                .map(s -> {
-                    BitfinexOrderbook bitfinexOrderbook = s.toBitfinexOrderBook(orderbooks.getOrDefault(currencyPair,
-                            null));
-                    orderbooks.put(currencyPair, bitfinexOrderbook);
-                    return adaptOrderBook(bitfinexOrderbook.toBitfinexDepth(), currencyPair);
-                });
+    /**
+     * Order by order book built from the raw ({@code R0}) book channel. The same {@link L3OrderBook} instance is
+     * emitted after every update, it is mutated while holding its monitor. The book is shared by the subscribers of
+     * the pair and length.
+     *
+     * @param args optional length of the book snapshot, 100 by default, as a {@link BitfinexBookOptions.Length} or a
+     *             number.
+     */
+    public Observable<L3OrderBook> getOrderBookL3(CurrencyPair currencyPair, Object... args) {
+        return rawBookStream(currencyPair, BitfinexBookOptions.fromArgs(args));
+    }
+
+    private Observable<L3OrderBook> rawBookStream(CurrencyPair currencyPair, BitfinexBookOptions requested) {
+        String channelName = "book";
+        // raw books are always realtime
+        BitfinexBookOptions options = BitfinexBookOptions.fromArgs(BitfinexBookOptions.Precision.R0,
+                BitfinexBookOptions.Frequency.F0, requested.getLength());
+        String pair = BitfinexStreamingAdapters.PAIRS.toSymbol(currencyPair);
+
+        return streams.get(SharedStreams.key("rawBook", currencyPair, options), () -> Observable.defer(() -> {
+            L3OrderBook orderBook = new L3OrderBook();
+            return service.subscribeChannel(channelName, options.toSubscriptionArgs(pair))
+                    // checksums of raw books aren't verified
+                    .filter(s -> !s.get(1).isTextual())
+                    .map(s -> {
+                        JsonNode data = s.get(1);
+                        boolean orders = data.size() == 0 || data.get(0).isArray();
+                        boolean snapshot = service.startsSnapshot(s)
+                                || (orders && !service.isFlagEnabled(BitfinexStreamingService.FLAG_BULK_UPDATES));
+                        synchronized (orderBook) {
+                            if (snapshot) {
+                                orderBook.clear();
+                            }
+                            if (orders) {
+                                for (JsonNode order : data) {
+                                    applyRawOrder(orderBook, order);
+                                }
+                            } else {
+                                applyRawOrder(orderBook, data);
+                            }
+                        }
+                        return orderBook;
+                    });
+        }));
+    }
+
+    /**
+     * Applies a raw book entry {@code [ORDER_ID, PRICE, AMOUNT]}. Price 0 removes the order, positive amounts are
+     * bids, negative asks.
+     */
+    static void applyRawOrder(L3OrderBook orderBook, JsonNode order) {
+        long orderId = order.get(0).asLong();
+        BigDecimal price = order.get(1).decimalValue();
+        if (price.signum() == 0) {
+            orderBook.remove(orderId);
+            return;
+        }
+        BigDecimal amount = order.get(2).decimalValue();
+        OrderType side = amount.signum() > 0 ? OrderType.BID : OrderType.ASK;
+        orderBook.update(orderId, side, price, amount.abs());
     }
 
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
         String channelName = "ticker";
 
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        String pair = BitfinexStreamingAdapters.PAIRS.toSymbol(currencyPair);
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
-        Observable<BitfinexWebSocketTickerTransaction> subscribedChannel = service.subscribeChannel(channelName,
-                new Object[]{pair})
-                .map(s -> mapper.readValue(s.toString(), BitfinexWebSocketTickerTransaction.class));
-
-        return subscribedChannel
-                .map(s -> adaptTicker(s.toBitfinexTicker(), currencyPair));
+        return service.subscribeChannel(channelName, new Object[]{pair})
+                .compose(Conflation.apply(args, s -> {
+                    BitfinexWebSocketTickerTransaction ticker = mapper.readValue(s.toString(),
+                            BitfinexWebSocketTickerTransaction.class);
+                    return adaptTicker(ticker.toBitfinexTicker(), currencyPair);
+                }));
     }
 
     @Override
@@ -79,7 +211,7 @@ public class BitfinexStreamingMarketDataService implements StreamingMarketDataSe
         String channelName = "trades";
         final String tradeType = args.length > 0 ? args[0].toString() : "te";
 
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        String pair = BitfinexStreamingAdapters.PAIRS.toSymbol(currencyPair);
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
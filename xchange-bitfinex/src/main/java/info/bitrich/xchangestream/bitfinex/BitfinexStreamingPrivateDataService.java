@@ -1,35 +1,198 @@
 package info.bitrich.xchangestream.bitfinex;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketNotification;
 import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketOrder;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketPosition;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketUserTrade;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketWallet;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
 import io.reactivex.Observable;
+import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.account.Balance;
+import org.knowm.xchange.dto.trade.UserTrade;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.PRIVATE_CHANNEL_ID;
+
+/**
+ * Events of the authenticated channel 0. Every message is parsed once and dispatched by its event code to the
+ * streams of orders, wallets, positions and own trades, which share a single subscription of the channel.
+ * <p>
+ * While any of the streams is subscribed, the open orders, wallets and positions are also kept in memory, starting
+ * with the snapshots Bitfinex sends after authentication, so they can be queried without the REST API.
+ */
 public class BitfinexStreamingPrivateDataService implements StreamingPrivateDataService {
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     private final BitfinexStreamingService streamingService;
 
+    private final Map<Long, BitfinexWebSocketOrder> openOrders = new ConcurrentHashMap<>();
+    private final Map<String, BitfinexWebSocketWallet> wallets = new ConcurrentHashMap<>();
+    private final Map<String, BitfinexWebSocketPosition> positions = new ConcurrentHashMap<>();
+
+    private final Observable<Object> events;
+
     public BitfinexStreamingPrivateDataService(BitfinexStreamingService streamingService) {
         this.streamingService = streamingService;
+        this.events = Observable.defer(() -> streamingService.subscribeChannel(PRIVATE_CHANNEL_ID))
+                .flatMapIterable(this::handleMessage)
+                .share();
     }
 
     @Override
     public Observable<Order> getOrders() {
-
-        Observable<BitfinexWebSocketOrder> orderSnapshot = streamingService.subscribeChannel("os")
-                .map(json -> mapper.convertValue(json.get(2), BitfinexWebSocketOrder[].class))
-                .flatMap(Observable::fromArray);
-        Observable<BitfinexWebSocketOrder> on = streamingService.subscribeChannel("on")
-                .map(json -> mapper.convertValue(json.get(2), BitfinexWebSocketOrder.class));
-        Observable<BitfinexWebSocketOrder> ou = streamingService.subscribeChannel("ou")
-                .map(json -> mapper.convertValue(json.get(2), BitfinexWebSocketOrder.class));
-        Observable<BitfinexWebSocketOrder> oc = streamingService.subscribeChannel("oc")
-                .map(json -> mapper.convertValue(json.get(2), BitfinexWebSocketOrder.class));
-
-        return Observable.merge(orderSnapshot, on, ou, oc)
+        return events.ofType(BitfinexWebSocketOrder.class)
                 .map(BitfinexStreamingAdapters::adaptOrder);
     }
+
+    /**
+     * @return the wallets of the snapshot followed by every wallet update.
+     */
+    public Observable<BitfinexWebSocketWallet> getWallets() {
+        return events.ofType(BitfinexWebSocketWallet.class);
+    }
+
+    /**
+     * @return the positions of the snapshot followed by every new, updated and closed position.
+     */
+    public Observable<BitfinexWebSocketPosition> getPositions() {
+        return events.ofType(BitfinexWebSocketPosition.class);
+    }
+
+    /**
+     * @return our trades, from the {@code tu} events which carry the fee. The earlier {@code te} events are skipped.
+     */
+    public Observable<UserTrade> getUserTrades() {
+        return events.ofType(BitfinexWebSocketUserTrade.class)
+                .filter(trade -> trade.getFee() != null)
+                .map(BitfinexStreamingAdapters::adaptUserTrade);
+    }
+
+    /**
+     * @return the notifications, e.g. the acknowledgements of the order requests.
+     */
+    public Observable<BitfinexWebSocketNotification> getNotifications() {
+        return events.ofType(BitfinexWebSocketNotification.class);
+    }
+
+    /**
+     * @return the open orders known from the order events.
+     */
+    public List<Order> getOpenOrders() {
+        List<Order> orders = new ArrayList<>(openOrders.size());
+        for (BitfinexWebSocketOrder order : openOrders.values()) {
+            orders.add(BitfinexStreamingAdapters.adaptOrder(order));
+        }
+        return orders;
+    }
+
+    /**
+     * @param walletType {@code exchange}, {@code margin} or {@code funding}.
+     * @return the balances of the wallets of the type known from the wallet events.
+     */
+    public Map<Currency, Balance> getBalances(String walletType) {
+        Map<Currency, Balance> balances = new HashMap<>();
+        for (BitfinexWebSocketWallet wallet : wallets.values()) {
+            if (wallet.getWalletType().equals(walletType)) {
+                Balance balance = BitfinexStreamingAdapters.adaptBalance(wallet);
+                balances.put(balance.getCurrency(), balance);
+            }
+        }
+        return balances;
+    }
+
+    /**
+     * @return the active positions known from the position events.
+     */
+    public Collection<BitfinexWebSocketPosition> getOpenPositions() {
+        return Collections.unmodifiableCollection(positions.values());
+    }
+
+    /**
+     * Parses a message {@code [0, EVENT, PAYLOAD]}, updates the caches and returns the parsed objects.
+     */
+    List<Object> handleMessage(JsonNode message) throws JsonProcessingException {
+        String event = message.get(1).asText();
+        JsonNode payload = message.get(2);
+        switch (event) {
+            case "os": {
+                List<BitfinexWebSocketOrder> orders = readArray(payload, BitfinexWebSocketOrder.class);
+                openOrders.clear();
+                orders.forEach(order -> openOrders.put(order.getId(), order));
+                return new ArrayList<>(orders);
+            }
+            case "on":
+            case "ou": {
+                BitfinexWebSocketOrder order = mapper.treeToValue(payload, BitfinexWebSocketOrder.class);
+                openOrders.put(order.getId(), order);
+                return Collections.singletonList(order);
+            }
+            case "oc": {
+                BitfinexWebSocketOrder order = mapper.treeToValue(payload, BitfinexWebSocketOrder.class);
+                openOrders.remove(order.getId());
+                return Collections.singletonList(order);
+            }
+            case "ws": {
+                List<BitfinexWebSocketWallet> snapshot = readArray(payload, BitfinexWebSocketWallet.class);
+                wallets.clear();
+                snapshot.forEach(wallet -> wallets.put(walletKey(wallet), wallet));
+                return new ArrayList<>(snapshot);
+            }
+            case "wu": {
+                BitfinexWebSocketWallet wallet = mapper.treeToValue(payload, BitfinexWebSocketWallet.class);
+                wallets.put(walletKey(wallet), wallet);
+                return Collections.singletonList(wallet);
+            }
+            case "ps": {
+                List<BitfinexWebSocketPosition> snapshot = readArray(payload, BitfinexWebSocketPosition.class);
+                positions.clear();
+                snapshot.forEach(position -> positions.put(position.getSymbol(), position));
+                return new ArrayList<>(snapshot);
+            }
+            case "pn":
+            case "pu": {
+                BitfinexWebSocketPosition position = mapper.treeToValue(payload, BitfinexWebSocketPosition.class);
+                positions.put(position.getSymbol(), position);
+                return Collections.singletonList(position);
+            }
+            case "pc": {
+                BitfinexWebSocketPosition position = mapper.treeToValue(payload, BitfinexWebSocketPosition.class);
+                positions.remove(position.getSymbol());
+                return Collections.singletonList(position);
+            }
+            case "n":
+                return Collections.singletonList(mapper.treeToValue(payload, BitfinexWebSocketNotification.class));
+            case "te":
+            case "tu":
+                return Collections.singletonList(mapper.treeToValue(payload, BitfinexWebSocketUserTrade.class));
+            default:
+                return Collections.emptyList();
+        }
+    }
+
+    private <T> List<T> readArray(JsonNode array, Class<T> type) throws JsonProcessingException {
+        List<T> values = new ArrayList<>(array.size());
+        for (JsonNode value : array) {
+            values.add(mapper.treeToValue(value, type));
+        }
+        return values;
+    }
+
+    private static String walletKey(BitfinexWebSocketWallet wallet) {
+        return wallet.getWalletType() + "-" + wallet.getCurrency();
+    }
 }
@@ -3,6 +3,7 @@ package info.bitrich.xchangestream.bitfinex;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketAuthRequest;
 import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketSubscriptionMessage;
 import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketUnSubscriptionMessage;
@@ -16,26 +17,70 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by Lukas Zaoralek on 7.11.17.
+ * <p>
+ * Configuration flags set with {@link #setConfFlags(int)} are sent in a {@code conf} event on every connection. With
+ * {@link #FLAG_SEQ_ALL} the public sequence number of every message is checked, on a gap the book channels are
+ * subscribed again to obtain fresh snapshots. The messages of the authenticated channel carry the public sequence
+ * number too, followed by the sequence number of the authenticated messages, which is checked separately.
  */
 public class BitfinexStreamingService extends JsonNettyStreamingService {
     private static final Logger LOG = LoggerFactory.getLogger(BitfinexStreamingService.class);
 
+    /**
+     * Adds the timestamp of the event in milliseconds after the data of every message.
+     */
+    public static final int FLAG_TIMESTAMP = 32768;
+    /**
+     * Adds the public sequence number after the data of every message, on the authenticated channel followed by the
+     * sequence number of the authenticated messages.
+     */
+    public static final int FLAG_SEQ_ALL = 65536;
+    /**
+     * Sends a {@code [CHAN_ID, "cs", CHECKSUM]} message after every book update, the CRC32 of the top 25 levels.
+     */
+    public static final int FLAG_CHECKSUM = 131072;
+    /**
+     * Sends the updates of a book which happen together in one message, an array of levels.
+     */
+    public static final int FLAG_BULK_UPDATES = 536870912;
+
     private static final String INFO = "info";
+    private static final String CONF = "conf";
+    private static final String CHECKSUM = "cs";
     private static final String AUTH = "auth";
     private static final String ERROR = "error";
     private static final String CHANNEL_ID = "chanId";
     private static final String SUBSCRIBED = "subscribed";
     private static final String UNSUBSCRIBED = "unsubscribed";
 
+    private static final String PRECISION = "prec";
+    private static final String FREQUENCY = "freq";
+    private static final String LENGTH = "len";
+    private static final String DEFAULT_PRECISION = "P0";
+    private static final String DEFAULT_FREQUENCY = "F0";
+
     private static final int SUBSCRIPTION_FAILED = 10300;
-    private static final String PRIVATE_CHANNEL_ID = "0";
+    /**
+     * Channel of all the events of the authenticated connection, e.g. orders, wallets and positions.
+     */
+    static final String PRIVATE_CHANNEL_ID = "0";
 
     private final Map<String, String> subscribedChannels = new ConcurrentHashMap<>();
+    // channel ids whose first message, the snapshot, hasn't been consumed yet
+    private final Set<String> pendingSnapshots = ConcurrentHashMap.newKeySet();
     private final StreamingExchange streamingExchange;
+    private final AtomicLong sequenceGaps = new AtomicLong();
+    private final AtomicLong authSequenceGaps = new AtomicLong();
+
+    private volatile int confFlags;
+    private long lastSequence = -1;
+    private long lastAuthSequence = -1;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -71,6 +116,10 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
             subscribeMessage =
                     new BitfinexWebSocketSubscriptionMessage(channelName, (String) args[0], (String) args[1],
                             (String) args[2]);
+        } else if (args.length == 4) {
+            subscribeMessage =
+                    new BitfinexWebSocketSubscriptionMessage(channelName, (String) args[0], (String) args[1],
+                            (String) args[2], (String) args[3]);
         } else {
             return null;
         }
@@ -98,13 +147,34 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
         return objectMapper.writeValueAsString(subscribeMessage);
     }
 
+    /**
+     * Books of the same pair with different options are separate channels, e.g. the aggregated ({@code P0}) and the
+     * raw ({@code R0}) book. The arguments are the pair and, for books, the precision, the frequency and the length;
+     * the default precision and frequency aren't part of the id, so it is the same whether Bitfinex echoes them in the
+     * {@code subscribed} event or not.
+     */
     @Override
     public String getSubscriptionUniqueId(String channelName, Object... args) {
-        if (args.length > 0) {
-            return channelName + "-" + args[0].toString();
-        } else {
+        if (args.length == 0) {
             return channelName;
         }
+        StringBuilder id = new StringBuilder(channelName).append('-').append(args[0]);
+        if (args.length > 1) {
+            appendOption(id, args[1], DEFAULT_PRECISION);
+        }
+        if (args.length == 4) {
+            appendOption(id, args[2], DEFAULT_FREQUENCY);
+        }
+        if (args.length > 2) {
+            appendOption(id, args[args.length - 1], null);
+        }
+        return id.toString();
+    }
+
+    private static void appendOption(StringBuilder id, Object option, String defaultValue) {
+        if (option != null && !option.toString().equals(defaultValue)) {
+            id.append('-').append(option);
+        }
     }
 
     @Override
@@ -112,9 +182,161 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
         return null;
     }
 
+    /**
+     * @param confFlags Sum of the {@code FLAG_} constants, sent with the next connection.
+     */
+    public void setConfFlags(int confFlags) {
+        this.confFlags = confFlags;
+    }
+
+    public int getConfFlags() {
+        return confFlags;
+    }
+
+    public boolean isFlagEnabled(int flag) {
+        return (confFlags & flag) != 0;
+    }
+
+    /**
+     * @return the number of gaps found in the public sequence numbers since the service was created.
+     */
+    public long getSequenceGaps() {
+        return sequenceGaps.get();
+    }
+
+    /**
+     * @return the number of gaps found in the sequence numbers of the authenticated channel since the service was
+     * created.
+     */
+    public long getAuthSequenceGaps() {
+        return authSequenceGaps.get();
+    }
+
+    /**
+     * Tells whether a channel message is the first one after its subscription, i.e. the snapshot of a book. With
+     * {@link #FLAG_BULK_UPDATES} bulk updates have the shape of a snapshot, so this is the only way to tell them
+     * apart. The answer is true only once per subscription, the stream of the channel must have a single consumer.
+     */
+    public boolean startsSnapshot(JsonNode message) {
+        return pendingSnapshots.remove(message.get(0).asText());
+    }
+
+    /**
+     * @return the public sequence number of a channel message, -1 without {@link #FLAG_SEQ_ALL}.
+     */
+    public long getSequence(JsonNode message) {
+        if (!isFlagEnabled(FLAG_SEQ_ALL)) {
+            return -1;
+        }
+        int index = trailingValuesStart(message);
+        return index < message.size() ? message.get(index).asLong() : -1;
+    }
+
+    /**
+     * @return the sequence number of a message of the authenticated channel, -1 for other channels or without
+     * {@link #FLAG_SEQ_ALL}.
+     */
+    public long getAuthSequence(JsonNode message) {
+        if (!isFlagEnabled(FLAG_SEQ_ALL) || !isPrivate(message)) {
+            return -1;
+        }
+        int index = trailingValuesStart(message) + 1;
+        return index < message.size() ? message.get(index).asLong() : -1;
+    }
+
+    /**
+     * @return the timestamp in milliseconds of a channel message, 0 without {@link #FLAG_TIMESTAMP}.
+     */
+    public long getTimestamp(JsonNode message) {
+        if (!isFlagEnabled(FLAG_TIMESTAMP)) {
+            return 0;
+        }
+        int sequences = !isFlagEnabled(FLAG_SEQ_ALL) ? 0 : isPrivate(message) ? 2 : 1;
+        int index = trailingValuesStart(message) + sequences;
+        return index < message.size() ? message.get(index).asLong() : 0;
+    }
+
+    private static boolean isPrivate(JsonNode message) {
+        return PRIVATE_CHANNEL_ID.equals(message.get(0).asText());
+    }
+
+    /**
+     * The sequence numbers and the timestamp follow the data, the last array or text of the message, e.g.
+     * {@code [CHAN_ID, [...], SEQ, TS]}, or {@code [0, "te", [...], SEQ, AUTH_SEQ, TS]} on the authenticated
+     * channel. The data of a checksum message is the number after {@code "cs"}.
+     */
+    private static int trailingValuesStart(JsonNode message) {
+        for (int i = message.size() - 1; i > 0; i--) {
+            JsonNode node = message.get(i);
+            if (node.isArray() || node.isTextual()) {
+                return CHECKSUM.equals(node.textValue()) ? i + 2 : i + 1;
+            }
+        }
+        return message.size();
+    }
+
+    private void checkSequence(JsonNode message) {
+        checkAuthSequence(message);
+        long sequence = getSequence(message);
+        if (sequence < 0) {
+            return;
+        }
+        long expected = lastSequence + 1;
+        lastSequence = sequence;
+        if (expected > 0 && sequence != expected) {
+            sequenceGaps.incrementAndGet();
+            LOG.warn("Sequence gap, expected {} but received {}. Resubscribing order books.", expected, sequence);
+            resubscribeBooks();
+        }
+    }
+
+    /**
+     * The authenticated channel can't be subscribed again, a gap is only reported.
+     */
+    private void checkAuthSequence(JsonNode message) {
+        long sequence = getAuthSequence(message);
+        if (sequence < 0) {
+            return;
+        }
+        long expected = lastAuthSequence + 1;
+        lastAuthSequence = sequence;
+        if (expected > 0 && sequence != expected) {
+            authSequenceGaps.incrementAndGet();
+            LOG.warn("Authenticated sequence gap, expected {} but received {}.", expected, sequence);
+        }
+    }
+
+    private void resubscribeBooks() {
+        for (String channelId : channels.keySet()) {
+            if (channelId.startsWith("book")) {
+                resyncChannel(channelId);
+            }
+        }
+    }
+
+    /**
+     * Unsubscribes and subscribes a channel again on the open connection to obtain a fresh snapshot, e.g. after a
+     * checksum mismatch. Local subscribers are kept, the snapshot is the first message of the new subscription, see
+     * {@link #startsSnapshot(JsonNode)}.
+     *
+     * @param channelId Unique id of the channel, see {@link #getSubscriptionUniqueId(String, Object...)}.
+     */
+    public void resyncChannel(String channelId) {
+        try {
+            String unsubscribeMessage = getUnsubscribeMessage(channelId);
+            if (unsubscribeMessage != null) {
+                sendMessage(unsubscribeMessage);
+            }
+        } catch (IOException e) {
+            LOG.error("Failed to unsubscribe channel: {}", channelId);
+        }
+        resubscribeChannel(channelId);
+    }
+
     @Override
     protected void handleMessage(JsonNode message) {
         if (message.isArray()) {
+            checkSequence(message);
             String type = message.get(1).asText();
             if (type.equals("hb")) {
                 return;
@@ -133,8 +355,21 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
                 if (version != null) {
                     LOG.debug("Bitfinex websocket API version: {}.", version.intValue());
                 }
+                // a new connection starts a new sequence
+                lastSequence = -1;
+                lastAuthSequence = -1;
+                conf();
                 auth();
                 break;
+            case CONF: {
+                String status = message.has("status") ? message.get("status").asText() : null;
+                if ("OK".equals(status)) {
+                    LOG.debug("Configuration flags {} enabled", message.get("flags"));
+                } else {
+                    LOG.error("Configuration error: {}", message);
+                }
+                break;
+            }
             case AUTH: {
                 String status = message.get("status").asText();
                 if (status.equals("OK")) {
@@ -149,9 +384,13 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
                 String channel = message.get("channel").asText();
                 String pair = message.get("pair").asText();
                 String channelId = message.get(CHANNEL_ID).asText();
+                String precision = message.has(PRECISION) ? message.get(PRECISION).asText() : null;
+                String frequency = message.has(FREQUENCY) ? message.get(FREQUENCY).asText() : null;
+                String length = message.has(LENGTH) ? message.get(LENGTH).asText() : null;
                 try {
-                    String subscriptionUniqueId = getSubscriptionUniqueId(channel, pair);
+                    String subscriptionUniqueId = getSubscriptionUniqueId(channel, pair, precision, frequency, length);
                     subscribedChannels.put(channelId, subscriptionUniqueId);
+                    pendingSnapshots.add(channelId);
                     LOG.debug("Register channel {}: {}", subscriptionUniqueId, channelId);
                 } catch (Exception e) {
                     LOG.error(e.getMessage());
@@ -161,6 +400,7 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
             case UNSUBSCRIBED: {
                 String channelId = message.get(CHANNEL_ID).asText();
                 subscribedChannels.remove(channelId);
+                pendingSnapshots.remove(channelId);
                 break;
             }
             case ERROR:
@@ -230,12 +470,23 @@ public class BitfinexStreamingService extends JsonNettyStreamingService {
         }
 
         if (chanId.equals(PRIVATE_CHANNEL_ID)) {
-            return message.get(1).asText();
+            return PRIVATE_CHANNEL_ID;
         }
 
         return subscribedChannels.get(chanId);
     }
 
+    private void conf() {
+        int flags = confFlags;
+        if (flags == 0) {
+            return;
+        }
+        ObjectNode conf = objectMapper.createObjectNode();
+        conf.put("event", CONF);
+        conf.put("flags", flags);
+        sendMessage(conf);
+    }
+
     private void auth() {
         ExchangeSpecification specification = streamingExchange.getExchangeSpecification();
         String apiKey = specification.getApiKey();
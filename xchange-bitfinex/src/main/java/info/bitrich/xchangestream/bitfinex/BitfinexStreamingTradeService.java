@@ -0,0 +1,252 @@
+package info.bitrich.xchangestream.bitfinex;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import info.bitrich.xchangestream.bitfinex.dto.BitfinexWebSocketNotification;
+import info.bitrich.xchangestream.core.StreamingTradeService;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.SingleSubject;
+import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.dto.trade.MarketOrder;
+import org.knowm.xchange.exceptions.ExchangeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.PRIVATE_CHANNEL_ID;
+
+/**
+ * Order entry over the authenticated connection with the {@code on}, {@code oc}, {@code ou} and {@code ox_multi}
+ * input messages. New orders are correlated with their {@code on-req} notification by client order id, cancels and
+ * updates with their {@code oc-req} and {@code ou-req} notifications by order id. A request fails with an
+ * {@link ExchangeException} when Bitfinex rejects it, and with a {@link java.util.concurrent.TimeoutException}
+ * when no notification comes within the request timeout.
+ * <p>
+ * Orders are placed in the exchange wallet, as {@code EXCHANGE LIMIT} and {@code EXCHANGE MARKET} orders.
+ */
+public class BitfinexStreamingTradeService implements StreamingTradeService {
+    private static final Logger LOG = LoggerFactory.getLogger(BitfinexStreamingTradeService.class);
+
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final BitfinexStreamingService streamingService;
+    private final BitfinexStreamingPrivateDataService privateDataService;
+
+    // client order ids only have to be unique per day
+    private final AtomicLong clientOrderId = new AtomicLong(System.currentTimeMillis());
+    private final ConcurrentMap<Long, SingleSubject<String>> newOrders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, SingleSubject<Boolean>> cancels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, SingleSubject<Boolean>> updates = new ConcurrentHashMap<>();
+
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private Disposable notifications;
+
+    public BitfinexStreamingTradeService(BitfinexStreamingService streamingService,
+                                         BitfinexStreamingPrivateDataService privateDataService) {
+        this.streamingService = streamingService;
+        this.privateDataService = privateDataService;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public Single<String> placeLimitOrder(LimitOrder limitOrder) {
+        return placeOrder(limitOrder, "EXCHANGE LIMIT", limitOrder.getLimitPrice());
+    }
+
+    @Override
+    public Single<String> placeMarketOrder(MarketOrder marketOrder) {
+        return placeOrder(marketOrder, "EXCHANGE MARKET", null);
+    }
+
+    private Single<String> placeOrder(Order order, String type, BigDecimal price) {
+        return Single.defer(() -> {
+            checkConnected();
+            long cid = clientOrderId.incrementAndGet();
+            Single<String> ack = register(newOrders, cid);
+            send(input("on", newOrder(cid, order, type, price)));
+            return ack;
+        });
+    }
+
+    /**
+     * Places limit orders with a single {@code ox_multi} message.
+     *
+     * @return {@link Single} that emits the ids of the orders, in the order of the requests.
+     */
+    public Single<List<String>> placeLimitOrders(List<LimitOrder> limitOrders) {
+        return Single.defer(() -> {
+            checkConnected();
+            ArrayNode operations = mapper.createArrayNode();
+            List<Single<String>> acks = new ArrayList<>(limitOrders.size());
+            for (LimitOrder limitOrder : limitOrders) {
+                long cid = clientOrderId.incrementAndGet();
+                acks.add(register(newOrders, cid));
+                operations.addArray().add("on")
+                        .add(newOrder(cid, limitOrder, "EXCHANGE LIMIT", limitOrder.getLimitPrice()));
+            }
+            send(input("ox_multi", operations));
+            return zip(acks);
+        });
+    }
+
+    @Override
+    public Single<Boolean> cancelOrder(String orderId) {
+        return Single.defer(() -> {
+            checkConnected();
+            long id = Long.parseLong(orderId);
+            Single<Boolean> ack = register(cancels, id);
+            send(input("oc", mapper.createObjectNode().put("id", id)));
+            return ack;
+        });
+    }
+
+    /**
+     * Cancels orders with a single {@code ox_multi} message.
+     *
+     * @return {@link Single} that emits once Bitfinex has accepted all the cancellations.
+     */
+    public Single<Boolean> cancelOrders(List<String> orderIds) {
+        return Single.defer(() -> {
+            checkConnected();
+            ArrayNode operations = mapper.createArrayNode();
+            List<Single<Boolean>> acks = new ArrayList<>(orderIds.size());
+            for (String orderId : orderIds) {
+                long id = Long.parseLong(orderId);
+                acks.add(register(cancels, id));
+                operations.addArray().add("oc").add(mapper.createObjectNode().put("id", id));
+            }
+            send(input("ox_multi", operations));
+            return zip(acks).map(accepted -> true);
+        });
+    }
+
+    /**
+     * Changes the amount and, if not null, the price of an open order with an {@code ou} message.
+     *
+     * @param amount New amount, positive for both sides.
+     * @return {@link Single} that emits true once Bitfinex has accepted the update.
+     */
+    public Single<Boolean> updateOrder(String orderId, Order.OrderType side, BigDecimal amount, BigDecimal price) {
+        return Single.defer(() -> {
+            checkConnected();
+            long id = Long.parseLong(orderId);
+            Single<Boolean> ack = register(updates, id);
+            ObjectNode update = mapper.createObjectNode()
+                    .put("id", id)
+                    .put("amount", signedAmount(side, amount));
+            if (price != null) {
+                update.put("price", price.toPlainString());
+            }
+            send(input("ou", update));
+            return ack;
+        });
+    }
+
+    private ObjectNode newOrder(long cid, Order order, String type, BigDecimal price) {
+        ObjectNode newOrder = mapper.createObjectNode()
+                .put("cid", cid)
+                .put("type", type)
+                .put("symbol", BitfinexStreamingAdapters.SYMBOLS.toSymbol(order.getCurrencyPair()))
+                .put("amount", signedAmount(order.getType(), order.getOriginalAmount()));
+        if (price != null) {
+            newOrder.put("price", price.toPlainString());
+        }
+        return newOrder;
+    }
+
+    private static String signedAmount(Order.OrderType side, BigDecimal amount) {
+        boolean sell = side == Order.OrderType.ASK || side == Order.OrderType.EXIT_BID;
+        return (sell ? amount.abs().negate() : amount.abs()).toPlainString();
+    }
+
+    /**
+     * @return {@code [0, EVENT, null, PAYLOAD]}
+     */
+    private String input(String event, JsonNode payload) {
+        ArrayNode input = mapper.createArrayNode();
+        input.add(Integer.parseInt(PRIVATE_CHANNEL_ID)).add(event).addNull().add(payload);
+        return input.toString();
+    }
+
+    private void checkConnected() {
+        if (!streamingService.isSocketOpen()) {
+            throw new ExchangeException("Not connected, the order request can't be sent");
+        }
+    }
+
+    private void send(String message) {
+        streamingService.sendMessage(message);
+    }
+
+    private <K, T> Single<T> register(ConcurrentMap<K, SingleSubject<T>> pending, K key) {
+        listenToNotifications();
+        SingleSubject<T> ack = SingleSubject.create();
+        pending.put(key, ack);
+        return ack.timeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .doFinally(() -> pending.remove(key, ack));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Single<List<T>> zip(List<Single<T>> acks) {
+        return Single.zip(acks, values -> {
+            List<T> results = new ArrayList<>(values.length);
+            for (Object value : values) {
+                results.add((T) value);
+            }
+            return results;
+        });
+    }
+
+    private synchronized void listenToNotifications() {
+        if (notifications == null || notifications.isDisposed()) {
+            notifications = privateDataService.getNotifications()
+                    .subscribe(this::handleNotification, t -> LOG.error("Notifications failed", t));
+        }
+    }
+
+    void handleNotification(BitfinexWebSocketNotification notification) {
+        JsonNode order = notification.getNotifyInfo();
+        if (notification.getType() == null || order == null || !order.isArray() || order.size() < 3) {
+            return;
+        }
+        switch (notification.getType()) {
+            case "on-req":
+                complete(newOrders.remove(order.get(2).asLong()), notification, order.get(0).asText());
+                break;
+            case "oc-req":
+                complete(cancels.remove(order.get(0).asLong()), notification, true);
+                break;
+            case "ou-req":
+                complete(updates.remove(order.get(0).asLong()), notification, true);
+                break;
+        }
+    }
+
+    private static <T> void complete(SingleSubject<T> ack, BitfinexWebSocketNotification notification, T value) {
+        if (ack == null) {
+            return;
+        }
+        if (notification.isSuccess()) {
+            ack.onSuccess(value);
+        } else {
+            ack.onError(new ExchangeException(notification.getStatus() + ": " + notification.getText()));
+        }
+    }
+}
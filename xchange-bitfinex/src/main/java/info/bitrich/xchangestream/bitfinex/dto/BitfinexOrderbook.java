@@ -4,25 +4,35 @@ import org.knowm.xchange.bitfinex.v1.dto.marketdata.BitfinexDepth;
 import org.knowm.xchange.bitfinex.v1.dto.marketdata.BitfinexLevel;
 
 import java.math.BigDecimal;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
 
 import static java.math.BigDecimal.ZERO;
 
 /**
  * Created by Lukas Zaoralek on 8.11.17.
+ * <p>
+ * The sides are kept sorted, asks ascending and bids descending, so {@link #toBitfinexDepth()} doesn't sort. The
+ * book isn't thread safe, it is mutated and read while holding its monitor.
  */
 public class BitfinexOrderbook {
-    private Map<BigDecimal, BitfinexOrderbookLevel> asks;
-    private Map<BigDecimal, BitfinexOrderbookLevel> bids;
+    private static final int CHECKSUM_LEVELS = 25;
+
+    private final CRC32 crc = new CRC32();
+    private NavigableMap<BigDecimal, BitfinexOrderbookLevel> asks;
+    private NavigableMap<BigDecimal, BitfinexOrderbookLevel> bids;
+    private long timestamp;
 
     public BitfinexOrderbook(BitfinexOrderbookLevel[] levels) {
         createFromLevels(levels);
     }
 
     private void createFromLevels(BitfinexOrderbookLevel[] levels) {
-        this.asks = new ConcurrentHashMap<>(levels.length / 2);
-        this.bids = new ConcurrentHashMap<>(levels.length / 2);
+        this.asks = new TreeMap<>();
+        this.bids = new TreeMap<>(Collections.reverseOrder());
 
         for (BitfinexOrderbookLevel level : levels) {
 
@@ -42,34 +52,25 @@ public class BitfinexOrderbook {
     }
 
     public BitfinexDepth toBitfinexDepth() {
-        SortedMap<BigDecimal, BitfinexOrderbookLevel> bitfinexLevelAsks = new TreeMap<>();
-        SortedMap<BigDecimal, BitfinexOrderbookLevel> bitfinexLevelBids = new TreeMap<>(java.util.Collections.reverseOrder());
-
-        for (Map.Entry<BigDecimal, BitfinexOrderbookLevel> level : asks.entrySet()) {
-            bitfinexLevelAsks.put(level.getValue().getPrice(), level.getValue());
-        }
-
-        for (Map.Entry<BigDecimal, BitfinexOrderbookLevel> level : bids.entrySet()) {
-            bitfinexLevelBids.put(level.getValue().getPrice(), level.getValue());
-        }
+        // Xchange-bitfinex adapter expects the timestamp to be seconds since Epoch.
+        BigDecimal seconds = new BigDecimal((timestamp > 0 ? timestamp : System.currentTimeMillis()) / 1000);
+        return new BitfinexDepth(toBitfinexLevels(asks, seconds), toBitfinexLevels(bids, seconds));
+    }
 
-        List<BitfinexLevel> askLevels = new ArrayList<>(asks.size());
-        List<BitfinexLevel> bidLevels = new ArrayList<>(bids.size());
-        for (Map.Entry<BigDecimal, BitfinexOrderbookLevel> level : bitfinexLevelAsks.entrySet()) {
-            askLevels.add(level.getValue().toBitfinexLevel());
+    private static BitfinexLevel[] toBitfinexLevels(NavigableMap<BigDecimal, BitfinexOrderbookLevel> side,
+                                                    BigDecimal timestamp) {
+        BitfinexLevel[] levels = new BitfinexLevel[side.size()];
+        int i = 0;
+        for (BitfinexOrderbookLevel level : side.values()) {
+            levels[i++] = level.toBitfinexLevel(timestamp);
         }
-        for (Map.Entry<BigDecimal, BitfinexOrderbookLevel> level : bitfinexLevelBids.entrySet()) {
-            bidLevels.add(level.getValue().toBitfinexLevel());
-        }
-
-        return new BitfinexDepth(askLevels.toArray(new BitfinexLevel[askLevels.size()]),
-                bidLevels.toArray(new BitfinexLevel[bidLevels.size()]));
+        return levels;
     }
 
     public void updateLevel(BitfinexOrderbookLevel level) {
 
 
-        Map<BigDecimal, BitfinexOrderbookLevel> side;
+        NavigableMap<BigDecimal, BitfinexOrderbookLevel> side;
 
         // Determine side and normalize negative ask amount values
         BitfinexOrderbookLevel bidAskLevel = level;
@@ -86,9 +87,60 @@ public class BitfinexOrderbook {
 
         boolean shouldDelete = bidAskLevel.getCount().compareTo(ZERO) == 0;
 
-        side.remove(bidAskLevel.getPrice());
-        if (!shouldDelete) {
+        if (shouldDelete) {
+            side.remove(bidAskLevel.getPrice());
+        } else {
             side.put(bidAskLevel.getPrice(), bidAskLevel);
         }
     }
+
+    /**
+     * Applies all the levels of a bulk update message, in order.
+     */
+    public void updateLevels(BitfinexOrderbookLevel[] levels) {
+        for (BitfinexOrderbookLevel level : levels) {
+            updateLevel(level);
+        }
+    }
+
+    /**
+     * @return the exchange timestamp of the last applied message in milliseconds, 0 when the {@code TIMESTAMP}
+     * flag isn't enabled.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * CRC32 of the top 25 levels of each side, interleaved from the best bid and ask:
+     * {@code bid1:amount:ask1:-amount:bid2:...}, as sent by Bitfinex with the {@code OB_CHECKSUM} flag. The text of
+     * each level is computed once per level, a checksum doesn't build strings.
+     */
+    public int checksum() {
+        crc.reset();
+        Iterator<BitfinexOrderbookLevel> bidLevels = bids.values().iterator();
+        Iterator<BitfinexOrderbookLevel> askLevels = asks.values().iterator();
+        boolean first = true;
+        for (int i = 0; i < CHECKSUM_LEVELS; i++) {
+            if (bidLevels.hasNext()) {
+                first = updateChecksum(bidLevels.next().getChecksumBytes(false), first);
+            }
+            if (askLevels.hasNext()) {
+                first = updateChecksum(askLevels.next().getChecksumBytes(true), first);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    private boolean updateChecksum(byte[] level, boolean first) {
+        if (!first) {
+            crc.update(':');
+        }
+        crc.update(level, 0, level.length);
+        return false;
+    }
 }
@@ -1,10 +1,12 @@
 package info.bitrich.xchangestream.bitfinex.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.knowm.xchange.bitfinex.v1.dto.marketdata.BitfinexLevel;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created by Lukas Zaoralek on 8.11.17.
@@ -19,6 +21,9 @@ public class BitfinexOrderbookLevel {
 
     public BigDecimal amount;
 
+    @JsonIgnore
+    private byte[] checksumBytes;
+
     public BitfinexOrderbookLevel() {
     }
 
@@ -42,6 +47,44 @@ public class BitfinexOrderbookLevel {
 
     public BitfinexLevel toBitfinexLevel() {
         // Xchange-bitfinex adapter expects the timestamp to be seconds since Epoch.
-        return new BitfinexLevel(price, amount, new BigDecimal(System.currentTimeMillis() / 1000));
+        return toBitfinexLevel(new BigDecimal(System.currentTimeMillis() / 1000));
+    }
+
+    /**
+     * @param timestamp Seconds since Epoch, shared by all the levels of a book.
+     */
+    public BitfinexLevel toBitfinexLevel(BigDecimal timestamp) {
+        return new BitfinexLevel(price, amount, timestamp);
+    }
+
+    /**
+     * @param ask true for a level of the ask side, its amount is negative in the checksum.
+     * @return {@code PRICE:AMOUNT} as formatted for the book checksum, computed once per level.
+     */
+    byte[] getChecksumBytes(boolean ask) {
+        if (checksumBytes == null) {
+            BigDecimal signedAmount = ask ? amount.abs().negate() : amount;
+            checksumBytes = (toChecksumNumber(price) + ":" + toChecksumNumber(signedAmount))
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+        return checksumBytes;
+    }
+
+    /**
+     * Bitfinex computes the checksum on numbers formatted by JavaScript: no trailing zeros and an exponent below
+     * 1e-6, e.g. {@code 0.0015} or {@code 5e-7}.
+     */
+    static String toChecksumNumber(BigDecimal number) {
+        if (number.signum() == 0) {
+            return "0";
+        }
+        BigDecimal stripped = number.stripTrailingZeros();
+        String digits = stripped.unscaledValue().abs().toString();
+        int exponent = digits.length() - 1 - stripped.scale();
+        if (exponent >= -6) {
+            return stripped.toPlainString();
+        }
+        String mantissa = digits.length() > 1 ? digits.charAt(0) + "." + digits.substring(1) : digits;
+        return (stripped.signum() < 0 ? "-" : "") + mantissa + "e" + exponent;
     }
 }
@@ -0,0 +1,25 @@
+package info.bitrich.xchangestream.bitfinex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * Book update of several levels in one message, sent once the {@code BULK_UPDATES} configuration flag is enabled.
+ * It has the shape of a snapshot, but is applied to the current book.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class BitfinexWebSocketBulkUpdateOrderbook extends BitfinexWebSocketOrderbookTransaction {
+    public BitfinexOrderbookLevel[] levels;
+
+    public BitfinexWebSocketBulkUpdateOrderbook() {
+    }
+
+    public BitfinexWebSocketBulkUpdateOrderbook(BitfinexOrderbookLevel[] levels) {
+        this.levels = levels;
+    }
+
+    @Override
+    public BitfinexOrderbook toBitfinexOrderBook(BitfinexOrderbook orderbook) {
+        orderbook.updateLevels(levels);
+        return orderbook;
+    }
+}
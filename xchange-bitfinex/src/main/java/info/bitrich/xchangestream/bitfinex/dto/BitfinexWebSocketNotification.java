@@ -0,0 +1,66 @@
+package info.bitrich.xchangestream.bitfinex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Notification of the authenticated channel, {@code [0, "n", [MTS, TYPE, MESSAGE_ID, null, NOTIFY_INFO, CODE,
+ * STATUS, TEXT]]}, e.g. the acknowledgement of an {@code on-req} order request with the order as its info.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class BitfinexWebSocketNotification {
+
+    private Long mts;
+    private String type;
+    private Long messageId;
+    private Object unused1;
+    private JsonNode notifyInfo;
+    private Integer code;
+    private String status;
+    private String text;
+
+    public Long getMts() {
+        return mts;
+    }
+
+    /**
+     * @return the type of the notification, e.g. {@code on-req}, {@code oc-req} or {@code ou-req}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public Object getUnused1() {
+        return unused1;
+    }
+
+    /**
+     * @return the object of the notification, the order array for the order requests.
+     */
+    public JsonNode getNotifyInfo() {
+        return notifyInfo;
+    }
+
+    public Integer getCode() {
+        return code;
+    }
+
+    /**
+     * @return {@code SUCCESS}, {@code ERROR}, {@code FAILURE} or {@code INFO}.
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isSuccess() {
+        return "SUCCESS".equals(status) || "INFO".equals(status);
+    }
+}
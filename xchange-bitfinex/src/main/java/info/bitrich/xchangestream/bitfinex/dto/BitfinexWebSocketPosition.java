@@ -0,0 +1,67 @@
+package info.bitrich.xchangestream.bitfinex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+
+/**
+ * Margin position of the {@code ps} snapshot and the {@code pn}, {@code pu} and {@code pc} events of the authenticated
+ * channel.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class BitfinexWebSocketPosition {
+
+    private String symbol;
+    private String status;
+    private BigDecimal amount;
+    private BigDecimal basePrice;
+    private BigDecimal marginFunding;
+    private Integer marginFundingType;
+    private BigDecimal profitLoss;
+    private BigDecimal profitLossPercentage;
+    private BigDecimal liquidationPrice;
+    private BigDecimal leverage;
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the amount of the position, negative for a short position.
+     */
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBasePrice() {
+        return basePrice;
+    }
+
+    public BigDecimal getMarginFunding() {
+        return marginFunding;
+    }
+
+    public Integer getMarginFundingType() {
+        return marginFundingType;
+    }
+
+    public BigDecimal getProfitLoss() {
+        return profitLoss;
+    }
+
+    public BigDecimal getProfitLossPercentage() {
+        return profitLossPercentage;
+    }
+
+    public BigDecimal getLiquidationPrice() {
+        return liquidationPrice;
+    }
+
+    public BigDecimal getLeverage() {
+        return leverage;
+    }
+}
@@ -11,6 +11,7 @@ public class BitfinexWebSocketSubscriptionMessage {
     private static final String CHANNEL = "channel";
     private static final String PAIR = "pair";
     private static final String PREC = "prec";
+    private static final String FREQ = "freq";
     private static final String LEN = "len";
 
     @JsonProperty(EVENT)
@@ -25,6 +26,9 @@ public class BitfinexWebSocketSubscriptionMessage {
     @JsonProperty(PREC)
     private String prec;
 
+    @JsonProperty(FREQ)
+    private String freq;
+
     @JsonProperty(LEN)
     private String len;
 
@@ -42,6 +46,11 @@ public class BitfinexWebSocketSubscriptionMessage {
         this.len = len;
     }
 
+    public BitfinexWebSocketSubscriptionMessage(String channel, String pair, String prec, String freq, String len) {
+        this(channel, pair, prec, len);
+        this.freq = freq;
+    }
+
     public String getEvent() {
         return event;
     }
@@ -58,6 +67,10 @@ public class BitfinexWebSocketSubscriptionMessage {
         return prec;
     }
 
+    public String getFreq() {
+        return freq;
+    }
+
     public String getLen() {
         return len;
     }
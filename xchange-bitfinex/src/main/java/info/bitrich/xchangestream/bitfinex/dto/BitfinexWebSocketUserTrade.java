@@ -0,0 +1,75 @@
+package info.bitrich.xchangestream.bitfinex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+
+/**
+ * Trade of one of our orders, from the {@code te} and {@code tu} events of the authenticated channel. The fee is only
+ * known in the {@code tu} event.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class BitfinexWebSocketUserTrade {
+
+    private Long id;
+    private String symbol;
+    private Long mtsCreate;
+    private Long orderId;
+    private BigDecimal execAmount;
+    private BigDecimal execPrice;
+    private String orderType;
+    private BigDecimal orderPrice;
+    private Integer maker;
+    private BigDecimal fee;
+    private String feeCurrency;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Long getMtsCreate() {
+        return mtsCreate;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * @return the executed amount, negative for a sell.
+     */
+    public BigDecimal getExecAmount() {
+        return execAmount;
+    }
+
+    public BigDecimal getExecPrice() {
+        return execPrice;
+    }
+
+    public String getOrderType() {
+        return orderType;
+    }
+
+    public BigDecimal getOrderPrice() {
+        return orderPrice;
+    }
+
+    public Integer getMaker() {
+        return maker;
+    }
+
+    /**
+     * @return the fee, negative when paid, null in a {@code te} event.
+     */
+    public BigDecimal getFee() {
+        return fee;
+    }
+
+    public String getFeeCurrency() {
+        return feeCurrency;
+    }
+}
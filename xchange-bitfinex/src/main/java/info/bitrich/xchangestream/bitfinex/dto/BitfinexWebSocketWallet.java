@@ -0,0 +1,41 @@
+package info.bitrich.xchangestream.bitfinex.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+
+/**
+ * Wallet of the {@code ws} snapshot and the {@code wu} updates of the authenticated channel.
+ */
+@JsonFormat(shape = JsonFormat.Shape.ARRAY)
+public class BitfinexWebSocketWallet {
+
+    private String walletType;
+    private String currency;
+    private BigDecimal balance;
+    private BigDecimal unsettledInterest;
+    private BigDecimal balanceAvailable;
+
+    public String getWalletType() {
+        return walletType;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getUnsettledInterest() {
+        return unsettledInterest;
+    }
+
+    /**
+     * @return the available balance, null until Bitfinex has calculated it.
+     */
+    public BigDecimal getBalanceAvailable() {
+        return balanceAvailable;
+    }
+}
@@ -6,13 +6,16 @@ import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
 import org.junit.Before;
 import org.junit.Test;
+import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.dto.Order;
 import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.dto.trade.UserTrade;
 
 import java.math.BigDecimal;
 import java.util.Date;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -33,10 +36,7 @@ public class BitfinexPrivateApiTests {
 
         JsonNode jsonSnapshot = objectMapper.readTree(ClassLoader.getSystemClassLoader()
                 .getResourceAsStream("orders-snapshot.json"));
-        when(streamingService.subscribeChannel("os")).thenReturn(Observable.just(jsonSnapshot));
-        when(streamingService.subscribeChannel("on")).thenReturn(Observable.empty());
-        when(streamingService.subscribeChannel("ou")).thenReturn(Observable.empty());
-        when(streamingService.subscribeChannel("oc")).thenReturn(Observable.empty());
+        when(streamingService.subscribeChannel("0")).thenReturn(Observable.just(jsonSnapshot));
 
         TestObserver<Order> test = exchange.getStreamingPrivateDataService().getOrders().test();
 
@@ -72,10 +72,7 @@ public class BitfinexPrivateApiTests {
 
         JsonNode jsonUpdate = objectMapper.readTree(ClassLoader.getSystemClassLoader()
                 .getResourceAsStream("orders-update.json"));
-        when(streamingService.subscribeChannel("os")).thenReturn(Observable.empty());
-        when(streamingService.subscribeChannel("on")).thenReturn(Observable.just(jsonUpdate));
-        when(streamingService.subscribeChannel("ou")).thenReturn(Observable.empty());
-        when(streamingService.subscribeChannel("oc")).thenReturn(Observable.empty());
+        when(streamingService.subscribeChannel("0")).thenReturn(Observable.just(jsonUpdate));
 
         TestObserver<Order> test = exchange.getStreamingPrivateDataService().getOrders().test();
 
@@ -95,4 +92,37 @@ public class BitfinexPrivateApiTests {
 
         test.assertValues(expected);
     }
+
+    @Test
+    public void testCachesFollowThePrivateEvents() throws Exception {
+        JsonNode jsonSnapshot = objectMapper.readTree(ClassLoader.getSystemClassLoader()
+                .getResourceAsStream("orders-snapshot.json"));
+        JsonNode jsonUpdate = objectMapper.readTree(ClassLoader.getSystemClassLoader()
+                .getResourceAsStream("orders-update.json"));
+        when(streamingService.subscribeChannel("0")).thenReturn(Observable.just(jsonSnapshot, jsonUpdate,
+                objectMapper.readTree("[0,\"ws\",[[\"exchange\",\"BTC\",1.5,0,null],[\"exchange\",\"USD\",100,0,80]]]"),
+                objectMapper.readTree("[0,\"wu\",[\"exchange\",\"BTC\",1.25,0,1.2]]"),
+                objectMapper.readTree("[0,\"ps\",[[\"tBTCUSD\",\"ACTIVE\",-0.5,6500,0,0,null,null,null,null]]]"),
+                objectMapper.readTree("[0,\"pc\",[\"tBTCUSD\",\"CLOSED\",0,6500,0,0,null,null,null,null]]"),
+                objectMapper.readTree("[0,\"oc\",[11111111111,null,22222222222,\"tBTCUSD\",1539692596308,"
+                        + "1539692596319,0,0.02,\"EXCHANGE LIMIT\",null,null,null,0,\"EXECUTED @ 5000.0(0.02)\","
+                        + "null,null,5000,5000]]"),
+                objectMapper.readTree("[0,\"tu\",[401597395,\"tBTCUSD\",1539692596400,11111111111,0.02,5000,"
+                        + "\"EXCHANGE LIMIT\",5000,1,-0.02,\"USD\"]]")));
+        BitfinexStreamingPrivateDataService service =
+                (BitfinexStreamingPrivateDataService) exchange.getStreamingPrivateDataService();
+
+        TestObserver<UserTrade> trades = service.getUserTrades().test();
+
+        assertThat(service.getOpenOrders()).extracting(Order::getId)
+                .containsExactlyInAnyOrder("11111111112", "22222222222");
+        assertThat(service.getBalances("exchange").get(Currency.BTC).getAvailable()).isEqualByComparingTo("1.2");
+        assertThat(service.getBalances("exchange").get(Currency.USD).getAvailable()).isEqualByComparingTo("80");
+        assertThat(service.getOpenPositions()).isEmpty();
+        trades.assertValueCount(1);
+        UserTrade trade = trades.values().get(0);
+        assertThat(trade.getOrderId()).isEqualTo("11111111111");
+        assertThat(trade.getFeeAmount()).isEqualByComparingTo("0.02");
+        assertThat(trade.getFeeCurrency()).isEqualTo(Currency.USD);
+    }
 }
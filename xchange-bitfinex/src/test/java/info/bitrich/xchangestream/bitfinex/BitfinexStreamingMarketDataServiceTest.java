@@ -0,0 +1,198 @@
+package info.bitrich.xchangestream.bitfinex;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.bitfinex.BitfinexBookOptions.Frequency;
+import info.bitrich.xchangestream.bitfinex.BitfinexBookOptions.Length;
+import info.bitrich.xchangestream.bitfinex.BitfinexBookOptions.Precision;
+import info.bitrich.xchangestream.core.StreamingExchange;
+import io.reactivex.observers.TestObserver;
+import org.junit.Test;
+import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.FLAG_BULK_UPDATES;
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.FLAG_CHECKSUM;
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.FLAG_SEQ_ALL;
+import static info.bitrich.xchangestream.bitfinex.BitfinexStreamingService.FLAG_TIMESTAMP;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.knowm.xchange.currency.CurrencyPair.BTC_USD;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BitfinexStreamingMarketDataServiceTest {
+
+    private static final String SUBSCRIBED =
+            "{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":%d,\"pair\":\"BTCUSD\",\"prec\":\"P0\","
+                    + "\"freq\":\"F0\",\"len\":\"100\"}";
+
+    private final List<String> sent = new ArrayList<>();
+    private final StreamingExchange exchange = mock(StreamingExchange.class);
+    private final BitfinexStreamingService service = new BitfinexStreamingService(exchange, "wss://api.bitfinex.com/ws/2") {
+        @Override
+        public void sendMessage(String message) {
+            sent.add(message);
+        }
+    };
+    private final BitfinexStreamingMarketDataService marketDataService = new BitfinexStreamingMarketDataService(service);
+
+    @Test
+    public void testSingleLevelUpdates() {
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        service.messageHandler("[17,[[6500,1,2],[6510,1,-3]]]");
+        service.messageHandler("[17,[6505,2,-1]]");
+
+        test.assertValueCount(2);
+        OrderBook book = test.values().get(1);
+        assertThat(book.getAsks()).extracting(o -> o.getLimitPrice().intValue()).containsExactly(6505, 6510);
+        assertThat(book.getBids()).extracting(o -> o.getOriginalAmount()).containsExactly(new BigDecimal(2));
+    }
+
+    @Test
+    public void testBulkUpdateIsAppliedAsAWhole() {
+        service.setConfFlags(FLAG_BULK_UPDATES);
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        service.messageHandler("[17,[[6500,1,2],[6490,1,1],[6510,1,-3]]]");
+        service.messageHandler("[17,[[6500,0,1],[6495,1,4],[6505,2,-1]]]");
+
+        test.assertValueCount(2);
+        OrderBook book = test.values().get(1);
+        assertThat(book.getBids()).extracting(o -> o.getLimitPrice().intValue()).containsExactly(6495, 6490);
+        assertThat(book.getAsks()).extracting(o -> o.getLimitPrice().intValue()).containsExactly(6505, 6510);
+    }
+
+    @Test
+    public void testBookOptionsSelectTheChannel() throws Exception {
+        TestObserver<OrderBook> aggregated = marketDataService.getOrderBook(BTC_USD, Precision.P2, Frequency.F1,
+                Length.L25).test();
+        TestObserver<OrderBook> realtime = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler("{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":21,"
+                + "\"pair\":\"BTCUSD\",\"prec\":\"P2\",\"freq\":\"F1\",\"len\":\"25\"}");
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        service.messageHandler("[21,[[6500,10,2],[6600,4,-3]]]");
+
+        aggregated.assertValueCount(1);
+        realtime.assertNoValues();
+        assertThat(service.getSubscribeMessage("book", BitfinexBookOptions.fromArgs(Precision.P2, Frequency.F1,
+                Length.L25).toSubscriptionArgs("BTCUSD")))
+                .contains("\"prec\":\"P2\"").contains("\"freq\":\"F1\"").contains("\"len\":\"25\"");
+    }
+
+    @Test
+    public void testRawPrecisionBuildsTheBookFromOrders() {
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD, Precision.R0).test();
+
+        service.messageHandler("{\"event\":\"subscribed\",\"channel\":\"book\",\"chanId\":30,"
+                + "\"pair\":\"BTCUSD\",\"prec\":\"R0\",\"len\":\"100\"}");
+        service.messageHandler("[30,[[1,6500,2],[2,6500,1],[3,6510,-3]]]");
+
+        OrderBook book = test.values().get(0);
+        assertThat(book.getBids()).extracting(o -> o.getOriginalAmount()).containsExactly(new BigDecimal(3));
+        assertThat(book.getAsks()).extracting(o -> o.getLimitPrice()).containsExactly(new BigDecimal(6510));
+    }
+
+    @Test
+    public void testChecksumMismatchResubscribesTheBook() {
+        service.setConfFlags(FLAG_CHECKSUM);
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        service.messageHandler("[17,[[6500,1,2],[6510,1,-3]]]");
+        sent.clear();
+        service.messageHandler("[17,\"cs\",-1966484305]");
+        assertThat(sent).isEmpty();
+
+        service.messageHandler("[17,[6505,1,-1]]");
+        service.messageHandler("[17,\"cs\",-1966484305]");
+        service.messageHandler("[17,\"cs\",-1966484305]");
+
+        test.assertValueCount(2);
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(0)).contains("unsubscribe").contains("17");
+        assertThat(sent.get(1)).contains("subscribe").contains("BTCUSD");
+    }
+
+    @Test
+    public void testConfIsSentOnConnection() {
+        when(exchange.getExchangeSpecification()).thenReturn(new ExchangeSpecification(BitfinexStreamingExchange.class));
+        service.setConfFlags(FLAG_BULK_UPDATES + FLAG_SEQ_ALL);
+
+        service.messageHandler("{\"event\":\"info\",\"version\":2}");
+
+        assertThat(sent).containsExactly("{\"event\":\"conf\",\"flags\":" + (FLAG_BULK_UPDATES + FLAG_SEQ_ALL) + "}");
+    }
+
+    @Test
+    public void testSequenceGapResubscribesBooks() {
+        service.setConfFlags(FLAG_BULK_UPDATES + FLAG_SEQ_ALL + FLAG_TIMESTAMP);
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        service.messageHandler("[17,[[6500,1,2],[6510,1,-3]],1,1539692596000]");
+        service.messageHandler("[17,\"hb\",2]");
+        service.messageHandler("[17,[[6505,1,-1]],3,1539692597000]");
+        assertThat(service.getSequenceGaps()).isZero();
+        assertThat(test.values().get(1).getTimeStamp().getTime()).isEqualTo(1539692597000L);
+
+        sent.clear();
+        service.messageHandler("[17,[[6490,1,1]],5,1539692598000]");
+
+        assertThat(service.getSequenceGaps()).isEqualTo(1);
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(0)).contains("unsubscribe").contains("17");
+        assertThat(sent.get(1)).contains("subscribe").contains("BTCUSD");
+
+        // the first message of the new subscription replaces the book
+        service.messageHandler("{\"event\":\"unsubscribed\",\"status\":\"OK\",\"chanId\":17}");
+        service.messageHandler(String.format(SUBSCRIBED, 18));
+        service.messageHandler("[18,[[6480,1,1],[6520,1,-1]],6,1539692599000]");
+
+        OrderBook book = test.values().get(test.valueCount() - 1);
+        assertThat(book.getBids()).extracting(o -> o.getLimitPrice().intValue()).containsExactly(6480);
+        assertThat(book.getAsks()).extracting(o -> o.getLimitPrice().intValue()).containsExactly(6520);
+        assertThat(service.getSequenceGaps()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAuthenticatedMessagesContinueThePublicSequence() {
+        service.setConfFlags(FLAG_SEQ_ALL + FLAG_TIMESTAMP);
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(BTC_USD).test();
+
+        service.messageHandler(String.format(SUBSCRIBED, 17));
+        sent.clear();
+        service.messageHandler("[17,[[6500,1,2],[6510,1,-3]],1,1539692596000]");
+        service.messageHandler("[0,\"wu\",[\"exchange\",\"BTC\",1,0,null],2,1,1539692596500]");
+        service.messageHandler("[17,[6505,1,-1],3,1539692597000]");
+        service.messageHandler("[0,\"os\",[],4,2,1539692597500]");
+        service.messageHandler("[17,[6490,1,1],5,1539692598000]");
+
+        assertThat(service.getSequenceGaps()).isZero();
+        assertThat(service.getAuthSequenceGaps()).isZero();
+        assertThat(sent).isEmpty();
+        test.assertValueCount(3);
+
+        service.messageHandler("[0,\"n\",[],6,4,1539692598500]");
+        assertThat(service.getSequenceGaps()).isZero();
+        assertThat(service.getAuthSequenceGaps()).isEqualTo(1);
+        assertThat(sent).isEmpty();
+    }
+
+    @Test
+    public void testTrailingValuesOfAuthenticatedMessages() throws Exception {
+        service.setConfFlags(FLAG_SEQ_ALL + FLAG_TIMESTAMP);
+        JsonNode message = new ObjectMapper().readTree("[0,\"te\",[1,\"tBTCUSD\"],12,7,1539692598500]");
+
+        assertThat(service.getSequence(message)).isEqualTo(12);
+        assertThat(service.getAuthSequence(message)).isEqualTo(7);
+        assertThat(service.getTimestamp(message)).isEqualTo(1539692598500L);
+    }
+}
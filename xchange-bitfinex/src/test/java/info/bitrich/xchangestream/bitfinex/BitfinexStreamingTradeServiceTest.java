@@ -0,0 +1,118 @@
+package info.bitrich.xchangestream.bitfinex;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.exceptions.ExchangeException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.knowm.xchange.currency.CurrencyPair.BTC_USD;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BitfinexStreamingTradeServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BitfinexStreamingService streamingService = mock(BitfinexStreamingService.class);
+    private final PublishSubject<JsonNode> privateChannel = PublishSubject.create();
+    private final List<JsonNode> sent = new ArrayList<>();
+
+    private BitfinexStreamingTradeService tradeService;
+
+    @Before
+    public void setUp() {
+        when(streamingService.subscribeChannel("0")).thenReturn(privateChannel);
+        when(streamingService.isSocketOpen()).thenReturn(true);
+        doAnswer(invocation -> sent.add(mapper.readTree(invocation.<String>getArgument(0))))
+                .when(streamingService).sendMessage(anyString());
+        tradeService = new BitfinexStreamingTradeService(streamingService,
+                new BitfinexStreamingPrivateDataService(streamingService));
+    }
+
+    @Test
+    public void testPlaceLimitOrderIsCorrelatedByClientOrderId() throws Exception {
+        TestObserver<String> test = tradeService.placeLimitOrder(limitOrder(Order.OrderType.ASK, "0.02", "5000"))
+                .test();
+
+        JsonNode request = sent.get(0);
+        assertThat(request.get(1).asText()).isEqualTo("on");
+        JsonNode order = request.get(3);
+        assertThat(order.get("type").asText()).isEqualTo("EXCHANGE LIMIT");
+        assertThat(order.get("symbol").asText()).isEqualTo("tBTCUSD");
+        assertThat(order.get("amount").asText()).isEqualTo("-0.02");
+        assertThat(order.get("price").asText()).isEqualTo("5000");
+
+        long cid = order.get("cid").asLong();
+        notification("on-req", "[33, null, " + (cid + 1) + "]", "SUCCESS");
+        test.assertNoValues();
+        notification("on-req", "[22222222222, null, " + cid + "]", "SUCCESS");
+
+        test.assertResult("22222222222");
+    }
+
+    @Test
+    public void testRejectedCancelFails() throws Exception {
+        TestObserver<Boolean> test = tradeService.cancelOrder("22222222222").test();
+
+        assertThat(sent.get(0).get(3).get("id").asLong()).isEqualTo(22222222222L);
+        notification("oc-req", "[22222222222, null, 1]", "ERROR");
+
+        test.assertError(ExchangeException.class);
+    }
+
+    @Test
+    public void testMultiOrdersAreSentInOneMessage() throws Exception {
+        TestObserver<List<String>> test = tradeService.placeLimitOrders(Arrays.asList(
+                limitOrder(Order.OrderType.BID, "1", "4000"),
+                limitOrder(Order.OrderType.BID, "2", "3900"))).test();
+
+        assertThat(sent).hasSize(1);
+        JsonNode operations = sent.get(0).get(3);
+        assertThat(sent.get(0).get(1).asText()).isEqualTo("ox_multi");
+        assertThat(operations).hasSize(2);
+        long first = operations.get(0).get(1).get("cid").asLong();
+        long second = operations.get(1).get(1).get("cid").asLong();
+
+        notification("on-req", "[2, null, " + second + "]", "SUCCESS");
+        notification("on-req", "[1, null, " + first + "]", "SUCCESS");
+
+        test.assertResult(Arrays.asList("1", "2"));
+    }
+
+    @Test
+    public void testRequestTimesOutWithoutAcknowledgement() {
+        tradeService.setRequestTimeout(Duration.ofMillis(50));
+
+        TestObserver<Boolean> test = tradeService.cancelOrder("1").test();
+
+        test.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        test.assertError(TimeoutException.class);
+    }
+
+    private void notification(String type, String order, String status) throws Exception {
+        privateChannel.onNext(mapper.readTree("[0,\"n\",[1540205421889,\"" + type + "\",null,null," + order
+                + ",null,\"" + status + "\",\"text\"]]"));
+    }
+
+    private static LimitOrder limitOrder(Order.OrderType type, String amount, String price) {
+        return new LimitOrder.Builder(type, BTC_USD)
+                .originalAmount(new BigDecimal(amount))
+                .limitPrice(new BigDecimal(price))
+                .build();
+    }
+}
@@ -5,10 +5,12 @@ import org.knowm.xchange.bitfinex.v1.BitfinexAdapters;
 import org.knowm.xchange.bitfinex.v1.dto.marketdata.BitfinexDepth;
 import org.knowm.xchange.dto.marketdata.OrderBook;
 
+import java.math.BigDecimal;
 import java.util.Date;
 
 import static java.math.BigDecimal.ONE;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.CoreMatchers.is;
 import static org.knowm.xchange.currency.CurrencyPair.BTC_USD;
 
 public class BitfinexOrderbookTest {
@@ -26,4 +28,34 @@ public class BitfinexOrderbookTest {
         assertThat("The timestamp should be a value less than now, but was: " + orderBook.getTimeStamp(),
                 !orderBook.getTimeStamp().after(new Date()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void checksumShouldInterleaveTheTopLevels() {
+        BitfinexOrderbook book = new BitfinexOrderbook(new BitfinexOrderbookLevel[]{
+                level("6510", "1", "-3"),
+                level("6490", "1", "0.00000050"),
+                level("6500", "1", "2"),
+                level("6505", "2", "-1.5")
+        });
+
+        // CRC32 of "6500:2:6505:-1.5:6490:5e-7:6510:-3"
+        assertThat(book.checksum(), is(270580436));
+
+        book.updateLevel(level("6505", "0", "-1"));
+        book.updateLevel(level("6490", "0", "1"));
+
+        // CRC32 of "6500:2:6510:-3"
+        assertThat(book.checksum(), is(-1966484305));
+    }
+
+    @Test
+    public void checksumNumbersShouldBeFormattedLikeJavaScript() {
+        assertThat(BitfinexOrderbookLevel.toChecksumNumber(new BigDecimal("6500.10")), is("6500.1"));
+        assertThat(BitfinexOrderbookLevel.toChecksumNumber(new BigDecimal("0.000001")), is("0.000001"));
+        assertThat(BitfinexOrderbookLevel.toChecksumNumber(new BigDecimal("-0.00000015")), is("-1.5e-7"));
+    }
+
+    private static BitfinexOrderbookLevel level(String price, String count, String amount) {
+        return new BitfinexOrderbookLevel(new BigDecimal(price), new BigDecimal(count), new BigDecimal(amount));
+    }
+}
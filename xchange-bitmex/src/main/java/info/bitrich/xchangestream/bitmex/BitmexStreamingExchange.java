@@ -4,10 +4,12 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.SymbolTable;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
 import org.knowm.xchange.bitmex.BitmexExchange;
+import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
 import si.mazi.rescu.SynchronizedValueFactory;
 
@@ -17,6 +19,13 @@ import si.mazi.rescu.SynchronizedValueFactory;
 public class BitmexStreamingExchange extends BitmexExchange implements StreamingExchange {
     private static final String API_URI = "wss://www.bitmex.com/realtime";
 
+    /**
+     * BitMEX instrument symbols, e.g. {@code XBTUSD}, shared by the DTOs and the channel names.
+     */
+    public static final SymbolTable SYMBOLS = new SymbolTable(
+            pair -> pair.base.getCurrencyCode() + pair.counter.getCurrencyCode(),
+            symbol -> new CurrencyPair(symbol.substring(0, 3), symbol.substring(3, 6)));
+
     private final BitmexStreamingService streamingService;
     private BitmexStreamingMarketDataService streamingMarketDataService;
 
@@ -31,6 +40,7 @@ public class BitmexStreamingExchange extends BitmexExchange implements Streaming
     @Override
     protected void initServices() {
         super.initServices();
+        SYMBOLS.register(exchangeMetaData);
         streamingMarketDataService = new BitmexStreamingMarketDataService(streamingService);
     }
 
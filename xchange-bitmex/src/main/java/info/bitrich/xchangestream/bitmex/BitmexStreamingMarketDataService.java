@@ -1,9 +1,10 @@
 package info.bitrich.xchangestream.bitmex;
 
-import info.bitrich.xchangestream.bitmex.dto.BitmexLimitOrder;
 import info.bitrich.xchangestream.bitmex.dto.BitmexOrderbook;
 import info.bitrich.xchangestream.bitmex.dto.BitmexTicker;
 import info.bitrich.xchangestream.bitmex.dto.BitmexTrade;
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import io.reactivex.Observable;
 import org.knowm.xchange.currency.CurrencyPair;
@@ -15,8 +16,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * Created by Lukas Zaoralek on 13.11.17.
@@ -26,7 +25,7 @@ public class BitmexStreamingMarketDataService implements StreamingMarketDataServ
 
     private final BitmexStreamingService streamingService;
 
-    private final SortedMap<CurrencyPair, BitmexOrderbook> orderbooks = new TreeMap<>();
+    private final SharedStreams streams = new SharedStreams();
 
     public BitmexStreamingMarketDataService(BitmexStreamingService streamingService) {
         this.streamingService = streamingService;
@@ -34,31 +33,35 @@ public class BitmexStreamingMarketDataService implements StreamingMarketDataServ
 
     @Override
     public Observable<OrderBook> getOrderBook(CurrencyPair currencyPair, Object... args) {
-        String instrument = currencyPair.base.toString() + currencyPair.counter.toString();
+        String instrument = BitmexStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = String.format("orderBookL2:%s", instrument);
 
-        return streamingService.subscribeBitmexChannel(channelName).map(s -> {
-            BitmexOrderbook orderbook;
-            String action = s.getAction();
-            if (action.equals("partial")) {
-                orderbook = s.toBitmexOrderbook();
-                orderbooks.put(currencyPair, orderbook);
-            } else {
-                orderbook = orderbooks.get(currencyPair);
-                //ignore updates until first "partial"
-                if (orderbook == null) {
-                    return null;
-                }
-                BitmexLimitOrder[] levels = s.toBitmexOrderbookLevels();
-                orderbook.updateLevels(levels, action);
-            }
-
-            return orderbook.toOrderbook();
-        });
+        return streams.get(channelName, () -> Observable.defer(() -> {
+            BitmexOrderbook[] orderbook = new BitmexOrderbook[1];
+            return streamingService.subscribeBitmexChannel(channelName)
+                    //ignore updates until first "partial"
+                    .filter(s -> s.getAction().equals("partial") || orderbook[0] != null)
+                    .map(s -> {
+                        String action = s.getAction();
+                        if (action.equals("partial")) {
+                            orderbook[0] = s.toBitmexOrderbook();
+                        } else {
+                            synchronized (orderbook[0]) {
+                                orderbook[0].updateLevels(s.getData(), action);
+                            }
+                        }
+                        return orderbook[0];
+                    });
+        }))
+                .compose(Conflation.apply(args, book -> {
+                    synchronized (book) {
+                        return book.toOrderbook();
+                    }
+                }));
     }
 
     public Observable<BitmexTicker> getRawTicker(CurrencyPair currencyPair, Object... args) {
-        String instrument = currencyPair.base.toString() + currencyPair.counter.toString();
+        String instrument = BitmexStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = String.format("quote:%s", instrument);
 
         return streamingService.subscribeBitmexChannel(channelName).map(s -> s.toBitmexTicker());
@@ -66,18 +69,16 @@ public class BitmexStreamingMarketDataService implements StreamingMarketDataServ
 
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
-        String instrument = currencyPair.base.toString() + currencyPair.counter.toString();
+        String instrument = BitmexStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = String.format("quote:%s", instrument);
 
-        return streamingService.subscribeBitmexChannel(channelName).map(s -> {
-            BitmexTicker bitmexTicker = s.toBitmexTicker();
-            return bitmexTicker.toTicker();
-        });
+        return streamingService.subscribeBitmexChannel(channelName)
+                .compose(Conflation.apply(args, s -> s.toBitmexTicker().toTicker()));
     }
 
     @Override
     public Observable<Trade> getTrades(CurrencyPair currencyPair, Object... args) {
-        String instrument = currencyPair.base.toString() + currencyPair.counter.toString();
+        String instrument = BitmexStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = String.format("trade:%s", instrument);
 
         return streamingService.subscribeBitmexChannel(channelName).flatMapIterable(s -> {
@@ -1,12 +1,10 @@
 package info.bitrich.xchangestream.bitmex.dto;
 
-import org.knowm.xchange.currency.Currency;
+import info.bitrich.xchangestream.bitmex.BitmexStreamingExchange;
+import info.bitrich.xchangestream.core.util.Iso8601;
 import org.knowm.xchange.currency.CurrencyPair;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.TimeZone;
 
 /**
  * Created by Lukas Zaoralek on 13.11.17.
@@ -29,19 +27,14 @@ public class BitmexMarketDataEvent {
     }
 
     public CurrencyPair getCurrencyPair() {
-        String base = symbol.substring(0, 3);
-        String counter = symbol.substring(3, 6);
-        return new CurrencyPair(new Currency(base), new Currency(counter));
+        return BitmexStreamingExchange.SYMBOLS.toCurrencyPair(symbol);
     }
 
     public Date getDate() {
-        SimpleDateFormat formatter;
-        formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
         Date date = null;
         try {
-            date = formatter.parse(timestamp);
-        } catch (ParseException e) {
+            date = Iso8601.parseDate(timestamp);
+        } catch (IllegalArgumentException e) {
             e.printStackTrace();
         }
         return date;
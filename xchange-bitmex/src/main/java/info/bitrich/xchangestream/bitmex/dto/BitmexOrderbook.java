@@ -1,5 +1,10 @@
 package info.bitrich.xchangestream.bitmex.dto;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import info.bitrich.xchangestream.bitmex.BitmexStreamingExchange;
+import info.bitrich.xchangestream.core.util.LongObjectHashMap;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order;
 import org.knowm.xchange.dto.marketdata.OrderBook;
 import org.knowm.xchange.dto.trade.LimitOrder;
 
@@ -10,18 +15,37 @@ import static info.bitrich.xchangestream.bitmex.dto.BitmexLimitOrder.ASK_SIDE;
 import static info.bitrich.xchangestream.bitmex.dto.BitmexLimitOrder.BID_SIDE;
 
 /**
+ * Local copy of a BitMEX orderBookL2 book.
+ * <p>
+ * BitMEX level ids are numeric, so levels are indexed by a primitive long id map and updates only change the size
+ * of the existing level in place. Only inserted levels allocate.
+ * <p>
  * Created by Lukas Zaoralek on 13.11.17.
  */
 public class BitmexOrderbook {
-    private SortedMap<BigDecimal, BitmexLimitOrder> asks;
-    private SortedMap<BigDecimal, BitmexLimitOrder> bids;
-
-    private Map<String, BigDecimal> askIds;
-    private Map<String, BigDecimal> bidIds;
+    private final SortedMap<BigDecimal, Level> asks;
+    private final SortedMap<BigDecimal, Level> bids;
+    private final LongObjectHashMap<Level> levelsById;
+
+    private String symbol;
+    private CurrencyPair currencyPair;
+
+    private static final class Level {
+        final long id;
+        final BigDecimal price;
+        boolean ask;
+        long size;
+
+        Level(long id, boolean ask, BigDecimal price, long size) {
+            this.id = id;
+            this.ask = ask;
+            this.price = price;
+            this.size = size;
+        }
+    }
 
     public BitmexOrderbook() {
-        this.askIds = new HashMap<>();
-        this.bidIds = new HashMap<>();
+        this.levelsById = new LongObjectHashMap<>(1024);
         this.asks = new TreeMap<>();
         this.bids = new TreeMap<>(java.util.Collections.reverseOrder());
     }
@@ -31,13 +55,16 @@ public class BitmexOrderbook {
         createFromLevels(levels);
     }
 
+    /**
+     * @param levels Data of a "partial" orderBookL2 message.
+     */
+    public BitmexOrderbook(JsonNode levels) {
+        this();
+        updateLevels(levels, "insert");
+    }
+
     public void createFromLevels(BitmexLimitOrder[] levels) {
-        for (BitmexLimitOrder level : levels) {
-            SortedMap<BigDecimal, BitmexLimitOrder> orderBookSide = level.getSide().equals(ASK_SIDE) ? asks : bids;
-            Map<String, BigDecimal> orderBookSideIds = level.getSide().equals(ASK_SIDE) ? askIds : bidIds;
-            orderBookSide.put(level.getPrice(), level);
-            orderBookSideIds.put(level.getId(), level.getPrice());
-        }
+        updateLevels(levels, "insert");
     }
 
     public void updateLevels(BitmexLimitOrder[] levels, String action) {
@@ -47,30 +74,76 @@ public class BitmexOrderbook {
     }
 
     public void updateLevel(BitmexLimitOrder level, String action) {
-        SortedMap<BigDecimal, BitmexLimitOrder> orderBookSide = level.getSide().equals(ASK_SIDE) ? asks : bids;
-        Map<String, BigDecimal> orderBookSideIds = level.getSide().equals(ASK_SIDE) ? askIds : bidIds;
-
-        if (action.equals("insert")) {
-            orderBookSide.put(level.getPrice(), level);
-            orderBookSideIds.put(level.getId(), level.getPrice());
-        } else if (action.equals("delete") || action.equals("update")) {
-            boolean shouldDelete = action.equals("delete");
-            String id = level.getId();
-            BigDecimal price = orderBookSideIds.get(id);
-            orderBookSide.remove(price);
-            orderBookSideIds.remove(id);
-            if (!shouldDelete) {
-                BitmexLimitOrder modifiedLevel = new BitmexLimitOrder(level.getSymbol(), level.getId(), level.getSide(), price,
-                        level.getSize()); // Original level doesn't have price! see bitmex doc
-                orderBookSide.put(price, modifiedLevel);
-                orderBookSideIds.put(id, price);
+        symbol(level.getSymbol());
+        long size = level.getSize() == null ? 0 : level.getSize().longValue();
+        updateLevel(Long.parseLong(level.getId()), level.getSide().equals(ASK_SIDE), level.getPrice(), size, action);
+    }
+
+    /**
+     * Applies the data of an orderBookL2 message without creating intermediate DTOs.
+     */
+    public void updateLevels(JsonNode levels, String action) {
+        for (JsonNode level : levels) {
+            JsonNode price = level.get("price");
+            JsonNode size = level.get("size");
+            if (symbol == null) {
+                symbol(level.get("symbol").asText());
             }
+            updateLevel(level.get("id").asLong(),
+                    ASK_SIDE.equals(level.get("side").asText()),
+                    price == null || price.isNull() ? null : price.decimalValue(),
+                    size == null ? 0 : size.asLong(),
+                    action);
         }
     }
 
+    private void updateLevel(long id, boolean ask, BigDecimal price, long size, String action) {
+        if (action.equals("update")) {
+            // Updates don't contain the price, see bitmex doc
+            Level level = levelsById.get(id);
+            if (level != null) {
+                level.size = size;
+                if (level.ask != ask) {
+                    (level.ask ? asks : bids).remove(level.price, level);
+                    level.ask = ask;
+                    (ask ? asks : bids).put(level.price, level);
+                }
+            }
+        } else if (action.equals("delete")) {
+            Level level = levelsById.remove(id);
+            if (level != null) {
+                (level.ask ? asks : bids).remove(level.price, level);
+            }
+        } else if (action.equals("insert") || action.equals("partial")) {
+            Level level = new Level(id, ask, price, size);
+            Level previous = levelsById.put(id, level);
+            if (previous != null) {
+                (previous.ask ? asks : bids).remove(previous.price, previous);
+            }
+            (ask ? asks : bids).put(price, level);
+        }
+    }
+
+    private void symbol(String symbol) {
+        if (symbol != null && !symbol.equals(this.symbol)) {
+            this.symbol = symbol;
+            this.currencyPair = BitmexStreamingExchange.SYMBOLS.toCurrencyPair(symbol);
+        }
+    }
+
+    public int size() {
+        return levelsById.size();
+    }
+
     public BitmexLimitOrder[] getLevels(String side) {
-        SortedMap<BigDecimal, BitmexLimitOrder> orderBookSide = side.equals(ASK_SIDE) ? asks : bids;
-        return orderBookSide.values().toArray(new BitmexLimitOrder[orderBookSide.size()]);
+        SortedMap<BigDecimal, Level> orderBookSide = side.equals(ASK_SIDE) ? asks : bids;
+        BitmexLimitOrder[] levels = new BitmexLimitOrder[orderBookSide.size()];
+        int i = 0;
+        for (Level level : orderBookSide.values()) {
+            levels[i++] = new BitmexLimitOrder(symbol, String.valueOf(level.id), side, level.price,
+                    BigDecimal.valueOf(level.size));
+        }
+        return levels;
     }
 
     public BitmexLimitOrder[] getAsks() {
@@ -93,9 +166,20 @@ public class BitmexOrderbook {
         return limitOrders;
     }
 
+    private List<LimitOrder> toLimitOrders(SortedMap<BigDecimal, Level> side, Order.OrderType type) {
+        if (side.isEmpty()) return null;
+
+        List<LimitOrder> limitOrders = new ArrayList<>(side.size());
+        for (Level level : side.values()) {
+            limitOrders.add(new LimitOrder(type, BigDecimal.valueOf(level.size), currencyPair,
+                    String.valueOf(level.id), null, level.price));
+        }
+        return limitOrders;
+    }
+
     public OrderBook toOrderbook() {
-        List<LimitOrder> orderbookAsks = toLimitOrders(getAsks());
-        List<LimitOrder> orderbookBids = toLimitOrders(getBids());
+        List<LimitOrder> orderbookAsks = toLimitOrders(asks, Order.OrderType.ASK);
+        List<LimitOrder> orderbookBids = toLimitOrders(bids, Order.OrderType.BID);
         return new OrderBook(null, orderbookAsks, orderbookBids);
     }
 }
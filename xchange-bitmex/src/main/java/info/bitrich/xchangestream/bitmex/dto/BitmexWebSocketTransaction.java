@@ -40,8 +40,7 @@ public class BitmexWebSocketTransaction {
     }
 
     public BitmexOrderbook toBitmexOrderbook() {
-        BitmexLimitOrder[] levels = toBitmexOrderbookLevels();
-        return new BitmexOrderbook(levels);
+        return new BitmexOrderbook(data);
     }
 
     public BitmexTicker toBitmexTicker() {
@@ -0,0 +1,97 @@
+package info.bitrich.xchangestream.bitmex.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BitmexOrderbookTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private BitmexOrderbook orderbook;
+
+    @Before
+    public void setUp() throws Exception {
+        orderbook = transaction("partial", "[" +
+                "{\"symbol\":\"XBTUSD\",\"id\":8799350000,\"side\":\"Sell\",\"size\":100,\"price\":6500}," +
+                "{\"symbol\":\"XBTUSD\",\"id\":8799349950,\"side\":\"Sell\",\"size\":200,\"price\":6500.5}," +
+                "{\"symbol\":\"XBTUSD\",\"id\":8799350050,\"side\":\"Buy\",\"size\":300,\"price\":6499.5}" +
+                "]").toBitmexOrderbook();
+    }
+
+    @Test
+    public void testPartial() {
+        OrderBook book = orderbook.toOrderbook();
+
+        assertThat(book.getAsks()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("6500"), new BigDecimal("6500.5"));
+        assertThat(book.getBids()).hasSize(1);
+        LimitOrder bid = book.getBids().get(0);
+        assertThat(bid.getOriginalAmount()).isEqualByComparingTo("300");
+        assertThat(bid.getCurrencyPair()).isEqualTo(CurrencyPair.BTC_USD);
+        assertThat(bid.getId()).isEqualTo("8799350050");
+    }
+
+    @Test
+    public void testUpdateInsertDelete() throws Exception {
+        apply("update", "[{\"symbol\":\"XBTUSD\",\"id\":8799350000,\"side\":\"Sell\",\"size\":150}]");
+        apply("insert", "[{\"symbol\":\"XBTUSD\",\"id\":8799350100,\"side\":\"Buy\",\"size\":50,\"price\":6499}]");
+        apply("delete", "[{\"symbol\":\"XBTUSD\",\"id\":8799349950,\"side\":\"Sell\"}]");
+
+        OrderBook book = orderbook.toOrderbook();
+
+        assertThat(book.getAsks()).hasSize(1);
+        assertThat(book.getAsks().get(0).getLimitPrice()).isEqualByComparingTo("6500");
+        assertThat(book.getAsks().get(0).getOriginalAmount()).isEqualByComparingTo("150");
+        assertThat(book.getBids()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("6499.5"), new BigDecimal("6499"));
+        assertThat(orderbook.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUpdateMovesLevelToItsNewSide() throws Exception {
+        apply("update", "[{\"symbol\":\"XBTUSD\",\"id\":8799350000,\"side\":\"Buy\",\"size\":120}]");
+
+        OrderBook book = orderbook.toOrderbook();
+
+        assertThat(book.getAsks()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("6500.5"));
+        assertThat(book.getBids()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("6500"), new BigDecimal("6499.5"));
+        assertThat(book.getBids().get(0).getOriginalAmount()).isEqualByComparingTo("120");
+    }
+
+    @Test
+    public void testReinsertedIdReplacesItsPreviousPrice() throws Exception {
+        apply("insert", "[{\"symbol\":\"XBTUSD\",\"id\":8799350050,\"side\":\"Buy\",\"size\":80,\"price\":6498}]");
+
+        OrderBook book = orderbook.toOrderbook();
+
+        assertThat(book.getBids()).hasSize(1);
+        assertThat(book.getBids().get(0).getLimitPrice()).isEqualByComparingTo("6498");
+        assertThat(book.getBids().get(0).getOriginalAmount()).isEqualByComparingTo("80");
+        assertThat(orderbook.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void testUnknownIdsAreIgnored() throws Exception {
+        apply("update", "[{\"symbol\":\"XBTUSD\",\"id\":1,\"side\":\"Sell\",\"size\":150}]");
+        apply("delete", "[{\"symbol\":\"XBTUSD\",\"id\":2,\"side\":\"Buy\"}]");
+
+        assertThat(orderbook.size()).isEqualTo(3);
+    }
+
+    private void apply(String action, String data) throws Exception {
+        orderbook.updateLevels(transaction(action, data).getData(), action);
+    }
+
+    private BitmexWebSocketTransaction transaction(String action, String data) throws Exception {
+        return new BitmexWebSocketTransaction("orderBookL2", action, mapper.readTree(data));
+    }
+}
@@ -4,6 +4,7 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.StreamingTradeService;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.cexio.CexIOExchange;
@@ -16,18 +17,21 @@ public class CexioStreamingExchange extends CexIOExchange implements StreamingEx
 
     private final CexioStreamingService streamingService;
     private final CexioStreamingPrivateDataRawService streamingPrivateDataService;
+    private final CexioStreamingTradeService streamingTradeService;
 
     public CexioStreamingExchange() {
         this.streamingService = new CexioStreamingService(this, API_URI);
 
         this.streamingPrivateDataService = new CexioStreamingPrivateDataRawService(streamingService);
         this.streamingMarketDataService = new CexioStreamingMarketDataService(streamingService);
+        this.streamingTradeService = new CexioStreamingTradeService(streamingService);
     }
 
     CexioStreamingExchange(CexioStreamingService streamingService) {
         this.streamingService = streamingService;
         this.streamingPrivateDataService = new CexioStreamingPrivateDataRawService(streamingService);
         this.streamingMarketDataService = new CexioStreamingMarketDataService(streamingService);
+        this.streamingTradeService = new CexioStreamingTradeService(streamingService);
     }
 
     @Override
@@ -60,6 +64,11 @@ public class CexioStreamingExchange extends CexIOExchange implements StreamingEx
         return streamingPrivateDataService;
     }
 
+    @Override
+    public StreamingTradeService getStreamingTradeService() {
+        return streamingTradeService;
+    }
+
     @Override
     public void useCompressedMessages(boolean compressedMessages) {
         streamingService.useCompressedMessages(compressedMessages);
@@ -1,22 +1,28 @@
 package info.bitrich.xchangestream.cexio;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import info.bitrich.xchangestream.cexio.dto.CexioOrderMessage;
 import info.bitrich.xchangestream.cexio.dto.CexioTransaction;
-import info.bitrich.xchangestream.cexio.dto.CexioTransactionMessage;
+import info.bitrich.xchangestream.cexio.dto.CexioTransactionDecoder;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.decoder.StreamingDecoder;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
 import org.knowm.xchange.dto.Order;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 public class CexioStreamingPrivateDataRawService implements StreamingPrivateDataService {
 
     private static final Logger LOG = LoggerFactory.getLogger(CexioStreamingPrivateDataRawService.class);
 
+    private static final StreamingDecoder<CexioTransaction> TRANSACTION_DECODER = new CexioTransactionDecoder();
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final CexioStreamingService service;
 
@@ -35,12 +41,20 @@ public class CexioStreamingPrivateDataRawService implements StreamingPrivateData
 
     public Observable<CexioTransaction> getTransactions() {
         return service.subscribeChannel(CexioStreamingService.TRANSACTION)
-                .map(it -> deserialize(it, CexioTransactionMessage.class))
-                .map(CexioTransactionMessage::getData)
+                .map(this::decodeTransaction)
                 .doOnNext(it -> LOG.debug(String.format("New transaction: %s", it)));
     }
 
     private <T> T deserialize(JsonNode message, Class<T> clazz) throws JsonProcessingException {
         return objectMapper.treeToValue(message, clazz);
     }
+
+    /**
+     * Decodes the {@code data} of a transaction message with the generated decoder, straight from the tree's tokens.
+     */
+    private CexioTransaction decodeTransaction(JsonNode message) throws IOException {
+        try (JsonParser parser = objectMapper.treeAsTokens(message.get("data"))) {
+            return TRANSACTION_DECODER.decode(parser);
+        }
+    }
 }
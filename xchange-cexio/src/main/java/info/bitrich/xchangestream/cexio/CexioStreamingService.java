@@ -28,6 +28,8 @@ public class CexioStreamingService extends JsonNettyStreamingService {
     public static final String SUBSCRIBE = "subscribe";
     public static final String UNSUBSCRIBE = "unsubscribe";
     public static final String MARKET_DEPTH = "md";
+    public static final String PLACE_ORDER = "place-order";
+    public static final String CANCEL_ORDER = "cancel-order";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final StreamingExchange streamingExchange;
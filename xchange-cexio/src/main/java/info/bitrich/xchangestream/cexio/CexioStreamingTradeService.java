@@ -0,0 +1,132 @@
+package info.bitrich.xchangestream.cexio;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.cexio.dto.CexioCancelOrderMessage;
+import info.bitrich.xchangestream.cexio.dto.CexioPlaceOrderMessage;
+import info.bitrich.xchangestream.core.StreamingTradeService;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.SingleSubject;
+import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.dto.trade.MarketOrder;
+import org.knowm.xchange.exceptions.ExchangeException;
+import org.knowm.xchange.exceptions.NotAvailableFromExchangeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Order entry over the authenticated connection with the {@code place-order} and {@code cancel-order} requests.
+ * Every request carries an {@code oid} which CEX.IO echoes in its response, the response completes the request with
+ * the same {@code oid}. A request fails with an {@link ExchangeException} when CEX.IO rejects it, and with a
+ * {@link java.util.concurrent.TimeoutException} when no response comes within the request timeout.
+ */
+public class CexioStreamingTradeService implements StreamingTradeService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CexioStreamingTradeService.class);
+
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CexioStreamingService service;
+
+    private final AtomicLong requestId = new AtomicLong();
+    private final ConcurrentMap<String, SingleSubject<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    private Disposable responses;
+
+    public CexioStreamingTradeService(CexioStreamingService service) {
+        this.service = service;
+    }
+
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public Single<String> placeLimitOrder(LimitOrder limitOrder) {
+        return Single.defer(() -> {
+            String oid = nextOid(CexioStreamingService.PLACE_ORDER);
+            String type = limitOrder.getType() == Order.OrderType.BID ? "buy" : "sell";
+            CexioPlaceOrderMessage message = new CexioPlaceOrderMessage(oid,
+                    limitOrder.getCurrencyPair().base.getCurrencyCode(),
+                    limitOrder.getCurrencyPair().counter.getCurrencyCode(),
+                    limitOrder.getOriginalAmount().toPlainString(),
+                    limitOrder.getLimitPrice().toPlainString(),
+                    type);
+            return request(oid, message).map(data -> data.get("id").asText());
+        });
+    }
+
+    /**
+     * CEX.IO only accepts limit orders over the socket.
+     */
+    @Override
+    public Single<String> placeMarketOrder(MarketOrder marketOrder) {
+        return Single.error(new NotAvailableFromExchangeException());
+    }
+
+    @Override
+    public Single<Boolean> cancelOrder(String orderId) {
+        return Single.defer(() -> {
+            String oid = nextOid(CexioStreamingService.CANCEL_ORDER);
+            return request(oid, new CexioCancelOrderMessage(oid, orderId)).map(data -> true);
+        });
+    }
+
+    private String nextOid(String command) {
+        return System.currentTimeMillis() + "_" + requestId.incrementAndGet() + "_" + command;
+    }
+
+    private Single<JsonNode> request(String oid, Object message) throws JsonProcessingException {
+        if (!service.isSocketOpen()) {
+            throw new ExchangeException("Not connected, the order request can't be sent");
+        }
+        String json = objectMapper.writeValueAsString(message);
+        listenToResponses();
+        SingleSubject<JsonNode> response = SingleSubject.create();
+        pending.put(oid, response);
+        LOG.debug("Sending {}", message);
+        service.sendMessage(json);
+        return response.timeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .doFinally(() -> pending.remove(oid, response));
+    }
+
+    private synchronized void listenToResponses() {
+        if (responses == null || responses.isDisposed()) {
+            responses = Observable.merge(service.subscribeChannel(CexioStreamingService.PLACE_ORDER),
+                    service.subscribeChannel(CexioStreamingService.CANCEL_ORDER))
+                    .subscribe(this::handleResponse, t -> LOG.error("Order responses failed", t));
+        }
+    }
+
+    /**
+     * Completes the request of a response {@code {"e":..., "oid":..., "ok":"ok", "data":{...}}}.
+     */
+    void handleResponse(JsonNode message) {
+        JsonNode oid = message.get("oid");
+        SingleSubject<JsonNode> response = oid == null ? null : pending.remove(oid.asText());
+        if (response == null) {
+            LOG.debug("Response without pending request: {}", message);
+            return;
+        }
+        JsonNode data = message.get("data");
+        JsonNode ok = message.get("ok");
+        if (ok != null && "ok".equals(ok.asText()) && data != null) {
+            response.onSuccess(data);
+        } else {
+            JsonNode error = data == null ? null : data.get("error");
+            response.onError(new ExchangeException(error == null ? "Request rejected: " + message : error.asText()));
+        }
+    }
+}
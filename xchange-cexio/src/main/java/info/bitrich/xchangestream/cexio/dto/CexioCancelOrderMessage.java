@@ -0,0 +1,35 @@
+package info.bitrich.xchangestream.cexio.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.cexio.CexioStreamingService;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class CexioCancelOrderMessage extends CexioAbstractCommandMessage {
+
+    @JsonProperty("data")
+    private final Map<String, String> data;
+
+    @JsonProperty("oid")
+    private final String oid;
+
+    public CexioCancelOrderMessage(String oid, String orderId) {
+        super(CexioStreamingService.CANCEL_ORDER);
+        this.oid = oid;
+        this.data = Collections.singletonMap("order_id", orderId);
+    }
+
+    public String getOid() {
+        return oid;
+    }
+
+    @Override
+    public String toString() {
+        return "CexioCancelOrderMessage{" +
+                "e='" + getCommand() + '\'' +
+                ", oid='" + oid + '\'' +
+                ", data=" + data +
+                '}';
+    }
+}
@@ -0,0 +1,64 @@
+package info.bitrich.xchangestream.cexio.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.cexio.CexioStreamingService;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CexioPlaceOrderMessage extends CexioAbstractCommandMessage {
+
+    @JsonProperty("data")
+    private final Data data;
+
+    @JsonProperty("oid")
+    private final String oid;
+
+    public CexioPlaceOrderMessage(String oid, String base, String counter, String amount, String price, String type) {
+        super(CexioStreamingService.PLACE_ORDER);
+        this.oid = oid;
+        this.data = new Data(Arrays.asList(base, counter), amount, price, type);
+    }
+
+    public String getOid() {
+        return oid;
+    }
+
+    public Data getData() {
+        return data;
+    }
+
+    public static class Data {
+
+        @JsonProperty("pair")
+        private final List<String> pair;
+
+        @JsonProperty("amount")
+        private final String amount;
+
+        @JsonProperty("price")
+        private final String price;
+
+        @JsonProperty("type")
+        private final String type;
+
+        Data(List<String> pair, String amount, String price, String type) {
+            this.pair = pair;
+            this.amount = amount;
+            this.price = price;
+            this.type = type;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CexioPlaceOrderMessage{" +
+                "e='" + getCommand() + '\'' +
+                ", oid='" + oid + '\'' +
+                ", pair=" + data.pair +
+                ", amount=" + data.amount +
+                ", price=" + data.price +
+                ", type=" + data.type +
+                '}';
+    }
+}
@@ -1,10 +1,12 @@
 package info.bitrich.xchangestream.cexio.dto;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
 
 import java.math.BigDecimal;
 import java.util.Date;
 
+@GenerateDecoder
 public class CexioTransaction {
 
     private final String id;
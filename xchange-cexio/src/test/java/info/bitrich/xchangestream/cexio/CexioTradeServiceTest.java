@@ -0,0 +1,113 @@
+package info.bitrich.xchangestream.cexio;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.exceptions.ExchangeException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CexioTradeServiceTest {
+
+    private final CexioStreamingService streamingService = mock(CexioStreamingService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PublishSubject<JsonNode> placeOrder = PublishSubject.create();
+    private final PublishSubject<JsonNode> cancelOrder = PublishSubject.create();
+    private final List<JsonNode> sent = new ArrayList<>();
+    private CexioStreamingTradeService tradeService;
+
+    @Before
+    public void setUp() {
+        when(streamingService.isSocketOpen()).thenReturn(true);
+        when(streamingService.subscribeChannel(CexioStreamingService.PLACE_ORDER)).thenReturn(placeOrder);
+        when(streamingService.subscribeChannel(CexioStreamingService.CANCEL_ORDER)).thenReturn(cancelOrder);
+        doAnswer(invocation -> sent.add(objectMapper.readTree(invocation.<String>getArgument(0))))
+                .when(streamingService).sendMessage(anyString());
+        CexioStreamingExchange exchange = new CexioStreamingExchange(streamingService);
+        tradeService = (CexioStreamingTradeService) exchange.getStreamingTradeService();
+    }
+
+    @Test
+    public void testPlaceOrderIsCorrelatedByOid() throws Exception {
+        LimitOrder order = new LimitOrder.Builder(Order.OrderType.BID, CurrencyPair.BTC_USD)
+                .originalAmount(new BigDecimal("0.02"))
+                .limitPrice(new BigDecimal("7176.5"))
+                .build();
+
+        TestObserver<String> test = tradeService.placeLimitOrder(order).test();
+
+        JsonNode request = sent.get(0);
+        assertThat(request.get("e").asText()).isEqualTo("place-order");
+        assertThat(request.get("data").get("pair").get(0).asText()).isEqualTo("BTC");
+        assertThat(request.get("data").get("pair").get(1).asText()).isEqualTo("USD");
+        assertThat(request.get("data").get("amount").asText()).isEqualTo("0.02");
+        assertThat(request.get("data").get("price").asText()).isEqualTo("7176.5");
+        assertThat(request.get("data").get("type").asText()).isEqualTo("buy");
+
+        placeOrder.onNext(response("place-order", "other_oid", "ok", "{\"id\":\"1\"}"));
+        test.assertNoValues();
+        placeOrder.onNext(response("place-order", request.get("oid").asText(), "ok",
+                "{\"complete\":false,\"id\":\"5913254239\",\"pending\":\"0.02\",\"amount\":\"0.02\"}"));
+
+        test.assertResult("5913254239");
+    }
+
+    @Test
+    public void testRejectedCancelFailsWithTheError() throws Exception {
+        TestObserver<Boolean> test = tradeService.cancelOrder("5913254239").test();
+
+        JsonNode request = sent.get(0);
+        assertThat(request.get("e").asText()).isEqualTo("cancel-order");
+        assertThat(request.get("data").get("order_id").asText()).isEqualTo("5913254239");
+        cancelOrder.onNext(response("cancel-order", request.get("oid").asText(), "error",
+                "{\"error\":\"Order not found\"}"));
+
+        test.assertError(e -> e instanceof ExchangeException && e.getMessage().equals("Order not found"));
+    }
+
+    @Test
+    public void testRequestTimesOutWithoutResponse() {
+        tradeService.setRequestTimeout(Duration.ofMillis(50));
+
+        TestObserver<Boolean> test = tradeService.cancelOrder("5913254239").test();
+
+        test.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        test.assertError(TimeoutException.class);
+    }
+
+    @Test
+    public void testRequestFailsWhenNotConnected() {
+        when(streamingService.isSocketOpen()).thenReturn(false);
+
+        tradeService.cancelOrder("5913254239").test().assertError(ExchangeException.class);
+
+        assertThat(sent).isEmpty();
+    }
+
+    private JsonNode response(String command, String oid, String ok, String data) throws Exception {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("e", command);
+        response.set("data", objectMapper.readTree(data));
+        response.put("oid", oid);
+        response.put("ok", ok);
+        return response;
+    }
+}
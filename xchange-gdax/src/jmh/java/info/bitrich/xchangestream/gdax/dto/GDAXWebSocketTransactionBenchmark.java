@@ -0,0 +1,79 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.ProductSubscription;
+import info.bitrich.xchangestream.gdax.GDAXStreamingService;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the text frame path of {@link GDAXStreamingService#subscribeTransactions(String, String...)}, which
+ * decodes the frame with the generated {@link GDAXWebSocketTransactionDecoder}, with the previous path which built
+ * the {@code JsonNode} tree first and bound it with Jackson. Run with the {@code benchmark} profile of the parent pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GDAXWebSocketTransactionBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final GDAXStreamingService service = new GDAXStreamingService("wss://ws-feed.gdax.com", () -> null);
+    private GDAXWebSocketTransaction received;
+
+    private final String match = "{\"type\":\"match\",\"trade_id\":10,\"sequence\":50,\"maker_order_id\":\"ac928c66-ca53-498f-9c13-a110027a60e8\"," +
+            "\"taker_order_id\":\"132fb6ae-456b-4654-b4e0-d681ac05cea1\",\"time\":\"2014-11-07T08:19:27.028459Z\"," +
+            "\"product_id\":\"BTC-USD\",\"size\":\"5.23512\",\"price\":\"400.23\",\"side\":\"sell\"}";
+    private final String l2update = "{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"time\":\"2019-01-10T09:12:10.123Z\"," +
+            "\"changes\":[[\"buy\",\"6500.09\",\"0.84702376\"],[\"sell\",\"6507.00\",\"1.88933140\"]]}";
+
+    @Setup
+    public void setUp() {
+        service.subscribeMultipleCurrencyPairs(ProductSubscription.create().addAll(CurrencyPair.BTC_USD).build());
+        service.subscribeTransactions("BTC-USD", "match", "l2update").subscribe(transaction -> received = transaction);
+    }
+
+    @Benchmark
+    public GDAXWebSocketTransaction treeMatch() throws IOException {
+        return mapper.treeToValue(mapper.readTree(match), GDAXWebSocketTransaction.class);
+    }
+
+    @Benchmark
+    public GDAXWebSocketTransaction serviceMatch() {
+        service.messageHandler(match);
+        return received;
+    }
+
+    @Benchmark
+    public GDAXWebSocketTransaction treeL2Update() throws IOException {
+        return mapper.treeToValue(mapper.readTree(l2update), GDAXWebSocketTransaction.class);
+    }
+
+    @Benchmark
+    public GDAXWebSocketTransaction serviceL2Update() {
+        service.messageHandler(l2update);
+        return received;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GDAXWebSocketTransactionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -8,10 +8,17 @@ import info.bitrich.xchangestream.service.netty.WebSocketClientHandler;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
+import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
 import org.knowm.xchange.gdax.GDAXExchange;
 import org.knowm.xchange.gdax.dto.account.GDAXWebsocketAuthData;
 import org.knowm.xchange.gdax.service.GDAXAccountServiceRaw;
+import org.knowm.xchange.gdax.service.GDAXMarketDataServiceRaw;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * GDAX Streaming Exchange. Connects to live WebSocket feed.
@@ -19,6 +26,14 @@ import org.knowm.xchange.gdax.service.GDAXAccountServiceRaw;
 public class GDAXStreamingExchange extends GDAXExchange implements StreamingExchange {
     private static final String API_URI = "wss://ws-feed.gdax.com";
 
+    /**
+     * Exchange specific parameter, the order book pairs which receive their updates from the {@code level2_batch}
+     * channel, batched by GDAX every 50 milliseconds, instead of every single update. Either a collection of
+     * {@link CurrencyPair}s or a comma separated string like {@code "ETH/USD,LTC/USD"}, the order books of the other
+     * pairs stay on {@code level2}.
+     */
+    public static final String P_LEVEL2_BATCH = "Level2_Batch";
+
     private GDAXStreamingService streamingService;
     private GDAXStreamingMarketDataService streamingMarketDataService;
 
@@ -35,13 +50,30 @@ public class GDAXStreamingExchange extends GDAXExchange implements StreamingExch
         if (args == null || args.length == 0)
             throw new UnsupportedOperationException("The ProductSubscription must be defined!");
         ExchangeSpecification exchangeSpec = getExchangeSpecification();
-        this.streamingService = new GDAXStreamingService(API_URI, () -> authData(exchangeSpec));
-        this.streamingMarketDataService = new GDAXStreamingMarketDataService(this.streamingService);
+        this.streamingService = new GDAXStreamingService(API_URI, () -> authData(exchangeSpec),
+                batchedLevel2(exchangeSpec.getExchangeSpecificParametersItem(P_LEVEL2_BATCH)));
+        this.streamingMarketDataService = new GDAXStreamingMarketDataService(this.streamingService,
+                (GDAXMarketDataServiceRaw) getMarketDataService());
         streamingService.subscribeMultipleCurrencyPairs(args);
 
         return streamingService.connect();
     }
 
+    @SuppressWarnings("unchecked")
+    private static Collection<CurrencyPair> batchedLevel2(Object parameter) {
+        if (parameter instanceof Collection) {
+            return (Collection<CurrencyPair>) parameter;
+        }
+        if (parameter == null || parameter.toString().trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<CurrencyPair> pairs = new ArrayList<>();
+        for (String pair : parameter.toString().split(",")) {
+            pairs.add(new CurrencyPair(pair.trim()));
+        }
+        return pairs;
+    }
+
     private GDAXWebsocketAuthData authData(ExchangeSpecification exchangeSpec) {
         GDAXWebsocketAuthData authData = null;
         if ( exchangeSpec.getApiKey() != null ) {
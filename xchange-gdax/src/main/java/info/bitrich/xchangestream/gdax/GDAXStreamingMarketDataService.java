@@ -1,36 +1,43 @@
 package info.bitrich.xchangestream.gdax;
 
-import static io.netty.util.internal.StringUtil.isNullOrEmpty;
-import static org.knowm.xchange.gdax.GDAXAdapters.adaptOrderBook;
 import static org.knowm.xchange.gdax.GDAXAdapters.adaptTicker;
 import static org.knowm.xchange.gdax.GDAXAdapters.adaptTradeHistory;
-import static org.knowm.xchange.gdax.GDAXAdapters.adaptTrades;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
 import org.knowm.xchange.dto.marketdata.OrderBook;
 import org.knowm.xchange.dto.marketdata.Ticker;
 import org.knowm.xchange.dto.marketdata.Trade;
-import org.knowm.xchange.dto.marketdata.Trades;
 import org.knowm.xchange.gdax.dto.marketdata.GDAXProductBook;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductBookEntry;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductBookEntryLevel3;
 import org.knowm.xchange.gdax.dto.marketdata.GDAXProductTicker;
-import org.knowm.xchange.gdax.dto.marketdata.GDAXTrade;
 import org.knowm.xchange.gdax.dto.trade.GDAXFill;
+import org.knowm.xchange.gdax.service.GDAXMarketDataServiceRaw;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.DecimalScale;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
+import info.bitrich.xchangestream.core.orderbook.L3OrderBook;
+import info.bitrich.xchangestream.core.orderbook.OrderBookSequencer;
+import info.bitrich.xchangestream.core.orderbook.SequenceStrategy;
+import info.bitrich.xchangestream.gdax.dto.GDAXOrderBook;
+import info.bitrich.xchangestream.gdax.dto.GDAXTickerView;
 import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransaction;
 import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * Created by luca on 4/3/17.
@@ -38,12 +45,27 @@ import io.reactivex.Observable;
 public class GDAXStreamingMarketDataService implements StreamingMarketDataService {
     private static final Logger LOG = LoggerFactory.getLogger(GDAXStreamingMarketDataService.class);
 
+    private static final long SNAPSHOT_MIN_INTERVAL_MILLIS = 3000;
+    private static final String[] FULL_CHANNEL_TYPES = {"received", "open", "done", "match", "change", "activate"};
+
     private final GDAXStreamingService service;
-    private final Map<CurrencyPair, SortedMap<BigDecimal, String>> bids = new HashMap<>();
-    private final Map<CurrencyPair, SortedMap<BigDecimal, String>> asks = new HashMap<>();
+    private final GDAXMarketDataServiceRaw marketDataService;
+    private final Map<CurrencyPair, GDAXOrderBook> orderBooks = new ConcurrentHashMap<>();
+    private final SharedStreams streams = new SharedStreams();
+    private final Scheduler snapshotScheduler;
+
+    GDAXStreamingMarketDataService(GDAXStreamingService service, GDAXMarketDataServiceRaw marketDataService) {
+        this(service, marketDataService, Schedulers.io());
+    }
 
-    GDAXStreamingMarketDataService(GDAXStreamingService service) {
+    /**
+     * @param snapshotScheduler Fetches the level 3 snapshots, retries the postponed ones and keeps their time.
+     */
+    GDAXStreamingMarketDataService(GDAXStreamingService service, GDAXMarketDataServiceRaw marketDataService,
+                                   Scheduler snapshotScheduler) {
         this.service = service;
+        this.marketDataService = marketDataService;
+        this.snapshotScheduler = snapshotScheduler;
     }
 
     private boolean containsPair(List<CurrencyPair> pairs, CurrencyPair pair) {
@@ -62,27 +84,136 @@ public class GDAXStreamingMarketDataService implements StreamingMarketDataServic
             throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for orderbook", currencyPair));
 
         String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
         final int maxDepth = (args.length > 0 && args[0] instanceof Integer) ? (int) args[0] : 100;
+        // The book is shared by the subscribers of the pair, the first one decides the numeric mode. It outlives the
+        // shared stream, the snapshot is only sent when the web socket subscription is opened.
+        final DecimalScale scale = DecimalScale.fromArgs(args);
 
-        Observable<GDAXWebSocketTransaction> subscribedChannel = service.subscribeChannel(channelName)
-                .map(s -> mapper.readValue(s.toString(), GDAXWebSocketTransaction.class));
-
-        return subscribedChannel
-                .filter(message -> !isNullOrEmpty(message.getType()) &&
-                        (message.getType().equals("snapshot") || message.getType().equals("l2update")) &&
-                        message.getProductId().equals(channelName))
+        return streams.get(currencyPair, () -> service.subscribeTransactions(channelName, "snapshot", "l2update")
                 .map(s -> {
-                    if (s.getType().equals("snapshot")) {
-                        bids.put(currencyPair, new TreeMap<>(java.util.Collections.reverseOrder()));
-                        asks.put(currencyPair, new TreeMap<>());
+                    GDAXOrderBook orderBook = orderBooks.computeIfAbsent(currencyPair, pair -> new GDAXOrderBook(pair, scale));
+                    synchronized (orderBook) {
+                        orderBook.update(s);
                     }
+                    return orderBook;
+                }))
+                .compose(Conflation.apply(args, orderBook -> {
+                    synchronized (orderBook) {
+                        return orderBook.toOrderBook(maxDepth);
+                    }
+                }));
+    }
+
+    /**
+     * Returns the order by order book of a pair subscribed by {@code addOrderBookL3}, built from the full channel.
+     * The book is loaded from the REST level 3 snapshot and kept in sequence, a gap in the full channel triggers a
+     * new snapshot. The subscribers of a pair share the book and its snapshot, the same {@link L3OrderBook}
+     * instance is emitted after every applied message, it is mutated while holding its monitor.
+     *
+     * @param currencyPair the currency pair.
+     * @return an Observable of the order by order book.
+     */
+    public Observable<L3OrderBook> getOrderBookL3(CurrencyPair currencyPair) {
+        if (!containsPair(service.getProduct().getOrderBookL3(), currencyPair))
+            throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for level 3 orderbook", currencyPair));
+
+        String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
 
-                    GDAXProductBook productBook = s.toGDAXProductBook(bids.get(currencyPair), asks.get(currencyPair), maxDepth);
-                    return adaptOrderBook(productBook, currencyPair);
-                });
+        return streams.get(SharedStreams.key("l3", currencyPair), () -> Observable.defer(() -> {
+            OrderBookL3Subscription subscription = new OrderBookL3Subscription(currencyPair);
+            return service.subscribeMessages(channelName, FULL_CHANNEL_TYPES)
+                    .filter(subscription.sequencer::onUpdate)
+                    .map(message -> subscription.orderBook);
+        }));
+    }
+
+    private final class OrderBookL3Subscription {
+        final CurrencyPair currencyPair;
+        final L3OrderBook orderBook = new L3OrderBook();
+        final OrderBookSequencer<JsonNode> sequencer;
+        long lastSnapshotTime = 0L;
+
+        OrderBookL3Subscription(CurrencyPair currencyPair) {
+            this.currencyPair = currencyPair;
+            this.sequencer = new OrderBookSequencer<>(
+                    "GDAX " + currencyPair,
+                    SequenceStrategy.strict(message -> message.get("sequence").asLong()),
+                    this::apply,
+                    this::fetchSnapshot,
+                    OrderBookSequencer.DEFAULT_MAX_BUFFERED_UPDATES,
+                    snapshotScheduler);
+        }
+
+        /**
+         * Called by the sequencer on the event loop, the full book is large, so it's fetched on the snapshot
+         * scheduler while the sequencer buffers the messages.
+         */
+        void fetchSnapshot() {
+            long now = snapshotScheduler.now(TimeUnit.MILLISECONDS);
+            long wait = lastSnapshotTime + SNAPSHOT_MIN_INTERVAL_MILLIS - now;
+            if (wait > 0) {
+                sequencer.retrySnapshot(wait, TimeUnit.MILLISECONDS);
+                return;
+            }
+            lastSnapshotTime = now;
+
+            snapshotScheduler.scheduleDirect(() -> {
+                try {
+                    LOG.info("Fetching level 3 orderbook snapshot for {}", currencyPair);
+                    GDAXProductBook book = marketDataService.getGDAXProductOrderBook(currencyPair, 3);
+                    sequencer.onSnapshot(book.getSequence(), () -> load(book));
+                } catch (Throwable e) {
+                    LOG.error("Failed to fetch level 3 order book for " + currencyPair, e);
+                    sequencer.snapshotFailed();
+                }
+            });
+        }
+
+        void load(GDAXProductBook book) {
+            synchronized (orderBook) {
+                orderBook.clear();
+                for (GDAXProductBookEntry entry : book.getBids()) {
+                    orderBook.add(((GDAXProductBookEntryLevel3) entry).getOrderId(), OrderType.BID,
+                            entry.getPrice(), entry.getVolume());
+                }
+                for (GDAXProductBookEntry entry : book.getAsks()) {
+                    orderBook.add(((GDAXProductBookEntryLevel3) entry).getOrderId(), OrderType.ASK,
+                            entry.getPrice(), entry.getVolume());
+                }
+            }
+        }
+
+        /**
+         * Only open orders rest in the book, received orders may fill immediately and never show up.
+         */
+        void apply(JsonNode message) {
+            synchronized (orderBook) {
+                switch (message.get("type").asText()) {
+                    case "open":
+                        orderBook.add(message.get("order_id").asText(),
+                                "buy".equals(message.get("side").asText()) ? OrderType.BID : OrderType.ASK,
+                                new BigDecimal(message.get("price").asText()),
+                                new BigDecimal(message.get("remaining_size").asText()));
+                        break;
+                    case "done":
+                        orderBook.remove(message.get("order_id").asText());
+                        break;
+                    case "match":
+                        orderBook.fill(message.get("maker_order_id").asText(),
+                                new BigDecimal(message.get("size").asText()));
+                        break;
+                    case "change":
+                        // market orders change their funds, they are never in the book
+                        JsonNode newSize = message.get("new_size");
+                        if (newSize != null) {
+                            orderBook.change(message.get("order_id").asText(), new BigDecimal(newSize.asText()));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
     }
 
     /**
@@ -97,18 +228,27 @@ public class GDAXStreamingMarketDataService implements StreamingMarketDataServic
             throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for ticker", currencyPair));
 
         String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-        Observable<GDAXWebSocketTransaction> subscribedChannel = service.subscribeChannel(channelName)
-                .map(s -> mapper.readValue(s.toString(), GDAXWebSocketTransaction.class));
 
-        return subscribedChannel
-                .filter(message -> !isNullOrEmpty(message.getType()) && message.getType().equals("match") &&
-                        message.getProductId().equals(channelName))
+        return service.subscribeTransactions(channelName, "match")
                 .map(GDAXWebSocketTransaction::toGDAXProductTicker);
     }
 
+    /**
+     * Returns the GDAX ticker messages as {@link GDAXTickerView}s, which decode a field only when it's read.
+     *
+     * @param currencyPair the currency pair.
+     * @return an Observable of {@link GDAXTickerView}.
+     */
+    public Observable<GDAXTickerView> getRawTickerView(CurrencyPair currencyPair) {
+        if (!containsPair(service.getProduct().getTicker(), currencyPair))
+            throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for ticker", currencyPair));
+
+        String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
+
+        return service.subscribeMessages(channelName, "ticker")
+                .map(GDAXTickerView::new);
+    }
+
     /**
      * Returns the GDAX ticker converted to the normalized XChange object.
      * GDAX does not directly provide ticker data via web service.
@@ -123,16 +263,7 @@ public class GDAXStreamingMarketDataService implements StreamingMarketDataServic
         if (!containsPair(service.getProduct().getTicker(), currencyPair))
             throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for ticker", currencyPair));
 
-        String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-        Observable<GDAXWebSocketTransaction> subscribedChannel = service.subscribeChannel(channelName)
-                .map(s -> mapper.readValue(s.toString(), GDAXWebSocketTransaction.class));
-
-        return subscribedChannel
-                .filter(message -> !isNullOrEmpty(message.getType()) && message.getType().equals("ticker") &&
-                        message.getProductId().equals(channelName))
+        return getRawTickerView(currencyPair)
                 .map(s -> adaptTicker(s.toGDAXProductTicker(), s.toGDAXProductStats(), currencyPair));
     }
 
@@ -142,23 +273,22 @@ public class GDAXStreamingMarketDataService implements StreamingMarketDataServic
             throw new UnsupportedOperationException(String.format("The currency pair %s is not subscribed for trades", currencyPair));
 
         String channelName = currencyPair.base.toString() + "-" + currencyPair.counter.toString();
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-        Observable<GDAXWebSocketTransaction> subscribedChannel = service.subscribeChannel(channelName)
-                .map(s -> mapper.readValue(s.toString(), GDAXWebSocketTransaction.class));
 
-        return subscribedChannel
-                .filter(message -> !isNullOrEmpty(message.getType()) && message.getType().equals("match") &&
-                        message.getProductId().equals(channelName))
+        return service.subscribeTransactions(channelName, "match")
                 .map(s -> {
-                            Trades adaptedTrades = null;
                             if ( s.getUserId() != null )
-                                adaptedTrades = adaptTradeHistory(new GDAXFill[]{s.toGDAXFill()});
-                            else
-                                adaptedTrades = adaptTrades(new GDAXTrade[]{s.toGDAXTrade()}, currencyPair);
-                            return adaptedTrades.getTrades().get(0);
+                                return adaptTradeHistory(new GDAXFill[]{s.toGDAXFill()}).getTrades().get(0);
+                            return adaptTrade(s, currencyPair);
                         }
                 );
     }
+
+    /**
+     * Same as {@code GDAXAdapters.adaptTrades}, without the intermediate {@code GDAXTrade} and its date parsing.
+     */
+    static Trade adaptTrade(GDAXWebSocketTransaction match, CurrencyPair currencyPair) {
+        OrderType type = "sell".equals(match.getSide()) ? OrderType.BID : OrderType.ASK;
+        return new Trade(type, match.getSize(), currencyPair, match.getPrice(), match.getTimestamp(),
+                String.valueOf(match.getTradeId()));
+    }
 }
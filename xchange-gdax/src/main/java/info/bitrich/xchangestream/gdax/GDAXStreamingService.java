@@ -1,41 +1,94 @@
 package info.bitrich.xchangestream.gdax;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
+import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.gdax.dto.account.GDAXWebsocketAuthData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import info.bitrich.xchangestream.core.ProductSubscription;
+import info.bitrich.xchangestream.core.decoder.StreamingDecoder;
 import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketSubscriptionMessage;
+import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransaction;
+import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransactionDecoder;
 import info.bitrich.xchangestream.gdax.netty.WebSocketClientCompressionAllowClientNoContextHandler;
 import info.bitrich.xchangestream.service.netty.JsonNettyStreamingService;
 import info.bitrich.xchangestream.service.netty.WebSocketClientHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
+import io.reactivex.Completable;
 import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
 
+/**
+ * All GDAX messages arrive on one web socket subscription and are routed by product and type.
+ * <p>
+ * Every text frame is parsed once. While any transaction stream is subscribed, see
+ * {@link #subscribeTransactions(String, String...)}, the {@code product_id} and {@code type} of a frame are peeked
+ * first. A frame only observed by transaction streams is decoded straight to {@link GDAXWebSocketTransaction}, any
+ * other frame is read into a {@link JsonNode} tree, for the subscribers of
+ * {@link #subscribeMessages(String, String...)} and {@link #subscribeChannel(String, Object...)}, and the transaction
+ * streams which observe it too are decoded from the tree.
+ */
 public class GDAXStreamingService extends JsonNettyStreamingService {
     private static final Logger LOG = LoggerFactory.getLogger(GDAXStreamingService.class);
     private static final String SUBSCRIBE = "subscribe";
     private static final String UNSUBSCRIBE = "unsubscribe";
     private static final String SHARE_CHANNEL_NAME = "ALL";
     private final Map<String, Observable<JsonNode>> subscriptions = new HashMap<>();
+    // product_id -> type -> messages, so a message is routed with two lookups whatever the number of subscribers
+    private final Map<String, Map<String, Subject<JsonNode>>> routes = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Subject<GDAXWebSocketTransaction>>> transactionRoutes = new ConcurrentHashMap<>();
+    // subscribers of the messages of the shared channel, besides the ones which only keep the connection subscribed
+    private final AtomicInteger channelSubscribers = new AtomicInteger();
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final StreamingDecoder<GDAXWebSocketTransaction> transactionDecoder;
     private ProductSubscription product = null;
     private final Supplier<GDAXWebsocketAuthData> authData;
+    private final Collection<CurrencyPair> batchedLevel2;
 
     private WebSocketClientHandler.WebSocketMessageHandler channelInactiveHandler = null;
 
     public GDAXStreamingService(String apiUrl, Supplier<GDAXWebsocketAuthData> authData) {
+        this(apiUrl, authData, Collections.emptySet());
+    }
+
+    /**
+     * @param batchedLevel2 Order book pairs subscribed to {@code level2_batch} instead of {@code level2}, e.g. the
+     *                      ones which aren't latency critical.
+     */
+    public GDAXStreamingService(String apiUrl, Supplier<GDAXWebsocketAuthData> authData,
+                                Collection<CurrencyPair> batchedLevel2) {
+        this(apiUrl, authData, batchedLevel2, new GDAXWebSocketTransactionDecoder());
+    }
+
+    GDAXStreamingService(String apiUrl, Supplier<GDAXWebsocketAuthData> authData,
+                         Collection<CurrencyPair> batchedLevel2,
+                         StreamingDecoder<GDAXWebSocketTransaction> transactionDecoder) {
         super(apiUrl, Integer.MAX_VALUE);
         this.authData = authData;
+        this.batchedLevel2 = new HashSet<>(batchedLevel2);
+        this.transactionDecoder = transactionDecoder;
     }
 
     public ProductSubscription getProduct() {
@@ -56,7 +109,13 @@ public class GDAXStreamingService extends JsonNettyStreamingService {
      */
     @Override
     public Observable<JsonNode> subscribeChannel(String channelName, Object... args) {
-        channelName = SHARE_CHANNEL_NAME;
+        return sharedChannel(args)
+                .doOnSubscribe(disposable -> channelSubscribers.incrementAndGet())
+                .doFinally(channelSubscribers::decrementAndGet);
+    }
+
+    private Observable<JsonNode> sharedChannel(Object... args) {
+        String channelName = SHARE_CHANNEL_NAME;
 
         if (!channels.containsKey(channelName) && !subscriptions.containsKey(channelName)) {
             subscriptions.put(channelName, super.subscribeChannel(channelName, args));
@@ -65,6 +124,58 @@ public class GDAXStreamingService extends JsonNettyStreamingService {
         return subscriptions.get(channelName);
     }
 
+    /**
+     * Messages of one product with the given types. All messages share one web socket subscription, it is opened
+     * with the first subscriber.
+     *
+     * @param productId product id, e.g. {@code BTC-USD}.
+     * @param types     message types, e.g. {@code snapshot} and {@code l2update}.
+     */
+    public Observable<JsonNode> subscribeMessages(String productId, String... types) {
+        List<Observable<JsonNode>> messages = new ArrayList<>(types.length);
+        for (String type : types) {
+            messages.add(route(productId, type));
+        }
+        return Observable.merge(messages).mergeWith(connection());
+    }
+
+    /**
+     * Same as {@link #subscribeMessages(String, String...)}, but the messages are decoded to
+     * {@link GDAXWebSocketTransaction} from the text frame, without building a {@link JsonNode} tree. Each message is
+     * decoded once and shared by all subscribers of its type.
+     */
+    public Observable<GDAXWebSocketTransaction> subscribeTransactions(String productId, String... types) {
+        List<Observable<GDAXWebSocketTransaction>> messages = new ArrayList<>(types.length);
+        for (String type : types) {
+            messages.add(route(transactionRoutes, productId, type));
+        }
+        return Observable.merge(messages).mergeWith(connection());
+    }
+
+    private Subject<JsonNode> route(String productId, String type) {
+        return route(routes, productId, type);
+    }
+
+    private static <T> Subject<T> route(Map<String, Map<String, Subject<T>>> routes, String productId, String type) {
+        return routes
+                .computeIfAbsent(productId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, t -> PublishSubject.<T>create().toSerialized());
+    }
+
+    private static <T> Subject<T> observedRoute(Map<String, Map<String, Subject<T>>> routes, String productId,
+                                                String type) {
+        Map<String, Subject<T>> productRoutes = routes.get(productId);
+        if (productRoutes == null) {
+            return null;
+        }
+        Subject<T> route = productRoutes.get(type);
+        return route != null && route.hasObservers() ? route : null;
+    }
+
+    private Completable connection() {
+        return sharedChannel().ignoreElements();
+    }
+
     @Override
     protected String getChannelNameFromMessage(JsonNode message) {
         return SHARE_CHANNEL_NAME;
@@ -72,21 +183,108 @@ public class GDAXStreamingService extends JsonNettyStreamingService {
 
     @Override
     public String getSubscribeMessage(String channelName, Object... args) throws IOException {
-        GDAXWebSocketSubscriptionMessage subscribeMessage = new GDAXWebSocketSubscriptionMessage(SUBSCRIBE, product, authData.get());
+        GDAXWebSocketSubscriptionMessage subscribeMessage =
+                new GDAXWebSocketSubscriptionMessage(SUBSCRIBE, product, batchedLevel2, authData.get());
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(subscribeMessage);
     }
 
     @Override
     public String getUnsubscribeMessage(String channelName, Object... args) throws IOException {
+        // mirrors the subscription, so only the channels and products which were subscribed are unsubscribed
         GDAXWebSocketSubscriptionMessage subscribeMessage =
-                new GDAXWebSocketSubscriptionMessage(UNSUBSCRIBE, new String[]{"level2", "matches", "ticker"}, authData.get());
+                new GDAXWebSocketSubscriptionMessage(UNSUBSCRIBE, product, batchedLevel2, authData.get());
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.writeValueAsString(subscribeMessage);
     }
 
+    @Override
+    public void messageHandler(String message) {
+        LOG.trace("Received message: {}", message);
+        String[] route = transactionRoutes.isEmpty() ? null : peekRoute(message);
+        Subject<GDAXWebSocketTransaction> transactions =
+                route == null ? null : observedRoute(transactionRoutes, route[0], route[1]);
+        if (transactions != null && channelSubscribers.get() == 0 && observedRoute(routes, route[0], route[1]) == null) {
+            try (JsonParser parser = mapper.getFactory().createParser(message)) {
+                emit(transactions, parser, message);
+            } catch (IOException e) {
+                LOG.error("Error parsing incoming message to JSON: {}", message);
+            }
+            return;
+        }
+        JsonNode jsonNode;
+        try {
+            jsonNode = mapper.readTree(message);
+        } catch (IOException e) {
+            LOG.error("Error parsing incoming message to JSON: {}", message);
+            return;
+        }
+        if (transactions != null) {
+            try (JsonParser parser = mapper.treeAsTokens(jsonNode)) {
+                emit(transactions, parser, message);
+            } catch (IOException e) {
+                LOG.error("Error parsing incoming message to JSON: {}", message);
+            }
+        }
+        handleMessage(jsonNode);
+    }
+
+    /**
+     * Reads the top level fields of the message up to its {@code product_id} and {@code type}, without decoding the
+     * values of the other fields.
+     *
+     * @return the product id and the type, null if the message has none of them.
+     */
+    private String[] peekRoute(String message) {
+        String productId = null;
+        String type = null;
+        try (JsonParser parser = mapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("product_id".equals(field) && value == JsonToken.VALUE_STRING) {
+                    productId = parser.getText();
+                } else if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+                    type = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+                if (productId != null && type != null) {
+                    return new String[]{productId, type};
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Message without route, handled as JSON: {}", message);
+        }
+        return null;
+    }
+
+    private void emit(Subject<GDAXWebSocketTransaction> transactions, JsonParser parser, String message) {
+        GDAXWebSocketTransaction transaction;
+        try {
+            transaction = transactionDecoder.decode(parser);
+        } catch (IOException | RuntimeException e) {
+            LOG.error("Error decoding transaction: {}", message, e);
+            return;
+        }
+        if (transaction != null) {
+            transactions.onNext(transaction);
+        }
+    }
+
     @Override
     protected void handleMessage(JsonNode message) {
+        JsonNode productId = message.get("product_id");
+        JsonNode type = message.get("type");
+        if (productId != null && type != null) {
+            Subject<JsonNode> route = observedRoute(routes, productId.asText(), type.asText());
+            if (route != null) {
+                route.onNext(message);
+            }
+        }
         super.handleMessage(message);
     }
 
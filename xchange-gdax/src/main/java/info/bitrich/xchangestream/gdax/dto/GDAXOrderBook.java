@@ -0,0 +1,187 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import info.bitrich.xchangestream.core.DecimalScale;
+import info.bitrich.xchangestream.core.orderbook.ScaledPriceLevels;
+import info.bitrich.xchangestream.core.util.ScaledDecimal;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Local copy of a GDAX level2 book.
+ * <p>
+ * Prices and sizes are parsed to {@link BigDecimal} once when the message arrives, removed levels are dropped
+ * from the book right away, and {@link #toOrderBook(int)} builds the XChange book directly from the levels.
+ * <p>
+ * With a {@link DecimalScale} the levels are parsed to scaled longs and kept in {@link ScaledPriceLevels} instead,
+ * until a price or size arrives which the scales can't hold, then the book moves its levels to the
+ * {@link BigDecimal} maps and stays there.
+ */
+public class GDAXOrderBook {
+    private static final Logger LOG = LoggerFactory.getLogger(GDAXOrderBook.class);
+    private static final String BUY = "buy";
+    private static final String SELL = "sell";
+
+    private final CurrencyPair currencyPair;
+    private final NavigableMap<BigDecimal, BigDecimal> bids = new TreeMap<>(Collections.reverseOrder());
+    private final NavigableMap<BigDecimal, BigDecimal> asks = new TreeMap<>();
+    private DecimalScale scale;
+    private final ScaledPriceLevels scaledBids = new ScaledPriceLevels(true);
+    private final ScaledPriceLevels scaledAsks = new ScaledPriceLevels(false);
+
+    public GDAXOrderBook(CurrencyPair currencyPair) {
+        this(currencyPair, null);
+    }
+
+    /**
+     * @param scale Scales of the numeric mode, or null to keep {@link BigDecimal} levels.
+     */
+    public GDAXOrderBook(CurrencyPair currencyPair, DecimalScale scale) {
+        this.currencyPair = currencyPair;
+        this.scale = scale;
+    }
+
+    /**
+     * @return true while the levels are kept as scaled longs.
+     */
+    public boolean isScaled() {
+        return scale != null;
+    }
+
+    /**
+     * Applies a {@code snapshot} or {@code l2update} message.
+     */
+    public void update(GDAXWebSocketTransaction transaction) {
+        if ("snapshot".equals(transaction.getType())) {
+            bids.clear();
+            asks.clear();
+            scaledBids.clear();
+            scaledAsks.clear();
+            updateSide(bids, scaledBids, null, transaction.getBids());
+            updateSide(asks, scaledAsks, null, transaction.getAsks());
+        } else {
+            updateSide(bids, scaledBids, BUY, transaction.getChanges());
+            updateSide(asks, scaledAsks, SELL, transaction.getChanges());
+        }
+    }
+
+    /**
+     * @param side    Side of the changes ({@code [side, price, size]}), or null for snapshot levels ({@code [price, size]}).
+     */
+    private void updateSide(Map<BigDecimal, BigDecimal> levels, ScaledPriceLevels scaledLevels, String side,
+                            String[][] changes) {
+        if (changes == null) {
+            return;
+        }
+        for (String[] level : changes) {
+            if (side != null && !side.equals(level[0])) {
+                continue;
+            }
+            if (scale != null) {
+                long price = scale.parsePrice(level[level.length - 2]);
+                long size = scale.parseSize(level[level.length - 1]);
+                if (price != ScaledDecimal.NOT_REPRESENTABLE && size != ScaledDecimal.NOT_REPRESENTABLE) {
+                    scaledLevels.set(price, size);
+                    continue;
+                }
+                LOG.info("{} level {} does not fit {}, switching the book to BigDecimal.", currencyPair,
+                        Arrays.toString(level), scale);
+                unscale();
+            }
+            BigDecimal price = new BigDecimal(level[level.length - 2]);
+            BigDecimal size = new BigDecimal(level[level.length - 1]);
+            if (size.signum() == 0) {
+                levels.remove(price);
+            } else {
+                levels.put(price, size);
+            }
+        }
+    }
+
+    private void unscale() {
+        copyLevels(scaledBids, bids);
+        copyLevels(scaledAsks, asks);
+        scaledBids.clear();
+        scaledAsks.clear();
+        scale = null;
+    }
+
+    private void copyLevels(ScaledPriceLevels from, Map<BigDecimal, BigDecimal> to) {
+        for (int i = 0; i < from.size(); i++) {
+            to.put(scale.toPrice(from.priceAt(i)), scale.toSize(from.sizeAt(i)));
+        }
+    }
+
+    public CurrencyPair getCurrencyPair() {
+        return currencyPair;
+    }
+
+    /**
+     * @return the bid levels, a copy in the scaled mode.
+     */
+    public NavigableMap<BigDecimal, BigDecimal> getBids() {
+        return levels(bids, scaledBids);
+    }
+
+    /**
+     * @return the ask levels, a copy in the scaled mode.
+     */
+    public NavigableMap<BigDecimal, BigDecimal> getAsks() {
+        return levels(asks, scaledAsks);
+    }
+
+    private NavigableMap<BigDecimal, BigDecimal> levels(NavigableMap<BigDecimal, BigDecimal> levels,
+                                                       ScaledPriceLevels scaledLevels) {
+        if (scale == null) {
+            return Collections.unmodifiableNavigableMap(levels);
+        }
+        NavigableMap<BigDecimal, BigDecimal> copy = new TreeMap<>(levels.comparator());
+        copyLevels(scaledLevels, copy);
+        return Collections.unmodifiableNavigableMap(copy);
+    }
+
+    /**
+     * @param maxDepth Maximum number of levels per side, 0 for all.
+     */
+    public OrderBook toOrderBook(int maxDepth) {
+        if (scale != null) {
+            return new OrderBook(null, toLimitOrders(scaledAsks, OrderType.ASK, maxDepth),
+                    toLimitOrders(scaledBids, OrderType.BID, maxDepth));
+        }
+        return new OrderBook(null, toLimitOrders(asks, OrderType.ASK, maxDepth), toLimitOrders(bids, OrderType.BID, maxDepth));
+    }
+
+    private List<LimitOrder> toLimitOrders(ScaledPriceLevels levels, OrderType type, int maxDepth) {
+        int depth = maxDepth > 0 ? Math.min(maxDepth, levels.size()) : levels.size();
+        List<LimitOrder> orders = new ArrayList<>(depth);
+        for (int i = 0; i < depth; i++) {
+            orders.add(new LimitOrder(type, scale.toSize(levels.sizeAt(i)), currencyPair, null, null,
+                    scale.toPrice(levels.priceAt(i))));
+        }
+        return orders;
+    }
+
+    private List<LimitOrder> toLimitOrders(NavigableMap<BigDecimal, BigDecimal> levels, OrderType type, int maxDepth) {
+        int depth = maxDepth > 0 ? Math.min(maxDepth, levels.size()) : levels.size();
+        List<LimitOrder> orders = new ArrayList<>(depth);
+        for (Map.Entry<BigDecimal, BigDecimal> level : levels.entrySet()) {
+            if (orders.size() == depth) {
+                break;
+            }
+            orders.add(new LimitOrder(type, level.getValue(), currencyPair, null, null, level.getKey()));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,105 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import info.bitrich.xchangestream.core.decoder.LazyJsonView;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductStats;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductTicker;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Lazily decoded GDAX {@code ticker} message, see {@link LazyJsonView}.
+ * <p>
+ * A ticker carries nine decimal fields, {@link GDAXWebSocketTransaction} parses all of them for every message
+ * while most consumers read the price or the best bid and ask only.
+ */
+public class GDAXTickerView extends LazyJsonView {
+    private static final int PRICE = 0;
+    private static final int LAST_SIZE = 1;
+    private static final int BEST_BID = 2;
+    private static final int BEST_ASK = 3;
+    private static final int VOLUME_24H = 4;
+    private static final int OPEN_24H = 5;
+    private static final int LOW_24H = 6;
+    private static final int HIGH_24H = 7;
+    private static final int VOLUME_30D = 8;
+
+    public GDAXTickerView(JsonNode message) {
+        super(message, 9);
+    }
+
+    public String getProductId() {
+        return text("product_id");
+    }
+
+    public long getSequence() {
+        return longValue("sequence");
+    }
+
+    public long getTradeId() {
+        return longValue("trade_id");
+    }
+
+    public String getTime() {
+        return text("time");
+    }
+
+    public String getSide() {
+        return text("side");
+    }
+
+    public BigDecimal getPrice() {
+        return decimal(PRICE, "price");
+    }
+
+    public BigDecimal getLastSize() {
+        return decimal(LAST_SIZE, "last_size");
+    }
+
+    public BigDecimal getBestBid() {
+        return decimal(BEST_BID, "best_bid");
+    }
+
+    public BigDecimal getBestAsk() {
+        return decimal(BEST_ASK, "best_ask");
+    }
+
+    public BigDecimal getVolume24h() {
+        return decimal(VOLUME_24H, "volume_24h");
+    }
+
+    public BigDecimal getOpen24h() {
+        return decimal(OPEN_24H, "open_24h");
+    }
+
+    public BigDecimal getLow24h() {
+        return decimal(LOW_24H, "low_24h");
+    }
+
+    public BigDecimal getHigh24h() {
+        return decimal(HIGH_24H, "high_24h");
+    }
+
+    public BigDecimal getVolume30d() {
+        return decimal(VOLUME_30D, "volume_30d");
+    }
+
+    public GDAXProductTicker toGDAXProductTicker() {
+        String time = getTime();
+        if (time == null) {
+            time = GDAXWebSocketTransaction.TICKER_TIME_FORMAT.format(Instant.now()); //First ticker event doesn't have time!
+        }
+        return new GDAXProductTicker(String.valueOf(getTradeId()), getPrice(), getLastSize(), getBestBid(), getBestAsk(),
+                getVolume24h(), time);
+    }
+
+    public GDAXProductStats toGDAXProductStats() {
+        return new GDAXProductStats(getOpen24h(), getHigh24h(), getLow24h(), getVolume24h());
+    }
+
+    @Override
+    public String toString() {
+        return "GDAXTickerView{" + getMessage() + '}';
+    }
+}
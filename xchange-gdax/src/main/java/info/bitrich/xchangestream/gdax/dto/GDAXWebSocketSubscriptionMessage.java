@@ -7,6 +7,8 @@ import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.gdax.dto.account.GDAXWebsocketAuthData;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -71,8 +73,17 @@ public class GDAXWebSocketSubscriptionMessage {
     String timestamp;
 
     public GDAXWebSocketSubscriptionMessage(String type, ProductSubscription product, GDAXWebsocketAuthData authData) {
+        this(type, product, Collections.emptySet(), authData);
+    }
+
+    /**
+     * @param batchedLevel2 Order book pairs subscribed to the {@code level2_batch} channel, which delivers the level2
+     *                      updates in batches every 50 milliseconds. The other order books use {@code level2}.
+     */
+    public GDAXWebSocketSubscriptionMessage(String type, ProductSubscription product,
+                                            Collection<CurrencyPair> batchedLevel2, GDAXWebsocketAuthData authData) {
         this.type = type;
-        generateSubscriptionMessage(product, authData);
+        generateSubscriptionMessage(product, batchedLevel2, authData);
     }
 
     public GDAXWebSocketSubscriptionMessage(String type, String[] channelNames, GDAXWebsocketAuthData authData) {
@@ -104,13 +115,24 @@ public class GDAXWebSocketSubscriptionMessage {
         this.channels = channels.toArray(new GDAXProductSubsctiption[channels.size()]);
     }
 
-    private void generateSubscriptionMessage(ProductSubscription productSubscription, GDAXWebsocketAuthData authData) {
+    private void generateSubscriptionMessage(ProductSubscription productSubscription,
+                                             Collection<CurrencyPair> batchedLevel2, GDAXWebsocketAuthData authData) {
         List<GDAXProductSubsctiption> channels = new ArrayList<>(3);
         Map<String, List<CurrencyPair>> pairs = new HashMap<>(3);
 
-        pairs.put("level2", productSubscription.getOrderBook());
+        List<CurrencyPair> level2 = new ArrayList<>();
+        List<CurrencyPair> level2Batch = new ArrayList<>();
+        for (CurrencyPair pair : productSubscription.getOrderBook()) {
+            (batchedLevel2.contains(pair) ? level2Batch : level2).add(pair);
+        }
+        if (!level2.isEmpty())
+            pairs.put("level2", level2);
+        if (!level2Batch.isEmpty())
+            pairs.put("level2_batch", level2Batch);
         pairs.put("ticker", productSubscription.getTicker());
         pairs.put("matches", productSubscription.getTrades());
+        if (!productSubscription.getOrderBookL3().isEmpty())
+            pairs.put("full", productSubscription.getOrderBookL3());
         if ( authData != null )
             pairs.put("user", productSubscription.getTrades());
 
@@ -7,14 +7,23 @@ import org.knowm.xchange.gdax.dto.marketdata.GDAXProductTicker;
 import org.knowm.xchange.gdax.dto.marketdata.GDAXTrade;
 import org.knowm.xchange.gdax.dto.trade.GDAXFill;
 
+import info.bitrich.xchangestream.core.decoder.GenerateDecoder;
+import info.bitrich.xchangestream.core.util.Iso8601;
+
 import java.math.BigDecimal;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
  * Domain object mapping a GDAX web socket message.
  */
+@GenerateDecoder
 public class GDAXWebSocketTransaction {
+    static final DateTimeFormatter TICKER_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
     private final String type;
     private final String orderId;
     private final String orderType;
@@ -138,6 +147,10 @@ public class GDAXWebSocketTransaction {
         return levels.toArray(new String[levels.size()][]);
     }
 
+    /**
+     * @deprecated Keeps the volumes as strings and rebuilds the levels on every call, use {@link GDAXOrderBook}.
+     */
+    @Deprecated
     public GDAXProductBook toGDAXProductBook(SortedMap<BigDecimal, String> bids, SortedMap<BigDecimal, String> asks,
                                              int maxDepth) {
         String[][] gdaxOrderBookBids = GDAXOrderBookChanges("buy", this.changes != null ? this.changes : this.bids,
@@ -150,9 +163,7 @@ public class GDAXWebSocketTransaction {
     public GDAXProductTicker toGDAXProductTicker() {
         String tickerTime = time;
         if (tickerTime == null) {
-            SimpleDateFormat dateFormatGmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-            dateFormatGmt.setTimeZone(TimeZone.getTimeZone("UTC"));
-            tickerTime = dateFormatGmt.format(new Date()); //First ticker event doesn't have time!
+            tickerTime = TICKER_TIME_FORMAT.format(Instant.now()); //First ticker event doesn't have time!
         }
         return new GDAXProductTicker(String.valueOf(tradeId), price, lastSize, bestBid, bestAsk, volume24h, tickerTime);
     }
@@ -222,6 +233,18 @@ public class GDAXWebSocketTransaction {
         return side;
     }
 
+    public String[][] getBids() {
+        return bids;
+    }
+
+    public String[][] getAsks() {
+        return asks;
+    }
+
+    public String[][] getChanges() {
+        return changes;
+    }
+
     public String getClientOid() {
         return clientOid;
     }
@@ -238,6 +261,13 @@ public class GDAXWebSocketTransaction {
         return time;
     }
 
+    /**
+     * @return {@link #getTime()} parsed without going through {@code SimpleDateFormat}, or null if not present.
+     */
+    public Date getTimestamp() {
+        return Iso8601.parseDate(time);
+    }
+
     public BigDecimal getRemainingSize() {
         return remainingSize;
     }
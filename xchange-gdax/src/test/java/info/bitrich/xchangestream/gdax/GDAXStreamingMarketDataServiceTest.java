@@ -0,0 +1,151 @@
+package info.bitrich.xchangestream.gdax;
+
+import info.bitrich.xchangestream.core.ProductSubscription;
+import info.bitrich.xchangestream.core.orderbook.L3OrderBook;
+import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransactionDecoder;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.marketdata.Ticker;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductBook;
+import org.knowm.xchange.gdax.service.GDAXMarketDataServiceRaw;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GDAXStreamingMarketDataServiceTest {
+
+    private final TestScheduler scheduler = new TestScheduler();
+    private final GDAXMarketDataServiceRaw marketDataService = mock(GDAXMarketDataServiceRaw.class);
+    private GDAXStreamingService service;
+    private GDAXStreamingMarketDataService marketData;
+
+    @Before
+    public void setUp() throws Exception {
+        // the first snapshot isn't postponed by the minimum interval
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        service = new GDAXStreamingService("wss://ws-feed.gdax.com", () -> null);
+        service.subscribeMultipleCurrencyPairs(ProductSubscription.create()
+                .addOrderBookL3(CurrencyPair.BTC_USD)
+                .build());
+        marketData = new GDAXStreamingMarketDataService(service, marketDataService, scheduler);
+        when(marketDataService.getGDAXProductOrderBook(CurrencyPair.BTC_USD, 3))
+                .thenReturn(book(10, new Object[][]{{"6500", "1", "bid-1"}}, new Object[][]{{"6510", "2", "ask-1"}}));
+    }
+
+    @Test
+    public void testSubscribersShareOneSnapshot() throws Exception {
+        TestObserver<L3OrderBook> first = marketData.getOrderBookL3(CurrencyPair.BTC_USD).test();
+        TestObserver<L3OrderBook> second = marketData.getOrderBookL3(CurrencyPair.BTC_USD).test();
+
+        handle(open(11, "bid-2", "buy", "6499", "3"));
+        scheduler.triggerActions();
+        handle(open(12, "ask-2", "sell", "6511", "4"));
+
+        verify(marketDataService, times(1)).getGDAXProductOrderBook(CurrencyPair.BTC_USD, 3);
+        first.assertValueCount(1);
+        second.assertValueCount(1);
+        assertThat(first.values().get(0)).isSameAs(second.values().get(0));
+        assertThat(first.values().get(0).getOrderCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFullChannelMessagesAreApplied() {
+        TestObserver<L3OrderBook> books = marketData.getOrderBookL3(CurrencyPair.BTC_USD).test();
+
+        handle(open(11, "bid-2", "buy", "6499", "3"));
+        scheduler.triggerActions();
+        books.assertNoValues();
+
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"sequence\":12,\"maker_order_id\":\"ask-1\","
+                + "\"taker_order_id\":\"bid-3\",\"price\":\"6510\",\"size\":\"0.5\",\"side\":\"sell\"}");
+        handle("{\"type\":\"change\",\"product_id\":\"BTC-USD\",\"sequence\":13,\"order_id\":\"bid-2\","
+                + "\"new_size\":\"2\",\"old_size\":\"3\",\"price\":\"6499\",\"side\":\"buy\"}");
+        handle("{\"type\":\"change\",\"product_id\":\"BTC-USD\",\"sequence\":14,\"order_id\":\"market-1\","
+                + "\"new_funds\":\"10\",\"old_funds\":\"20\",\"side\":\"buy\"}");
+        handle("{\"type\":\"done\",\"product_id\":\"BTC-USD\",\"sequence\":15,\"order_id\":\"bid-1\","
+                + "\"reason\":\"canceled\",\"side\":\"buy\"}");
+
+        books.assertValueCount(4);
+        L3OrderBook book = books.values().get(0);
+        assertThat(book.getOrder("bid-1")).isNull();
+        assertThat(book.getOrder("ask-1").getSize()).isEqualByComparingTo("1.5");
+        assertThat(book.getOrder("bid-2").getSize()).isEqualByComparingTo("2");
+        assertThat(book.getOrder("bid-2").getSide()).isEqualTo(OrderType.BID);
+        assertThat(book.getBestBid().getPrice()).isEqualByComparingTo("6499");
+        assertThat(book.getBestAsk().getSize()).isEqualByComparingTo("1.5");
+    }
+
+    @Test
+    public void testSequenceGapFetchesNewSnapshot() throws Exception {
+        TestObserver<L3OrderBook> books = marketData.getOrderBookL3(CurrencyPair.BTC_USD).test();
+        handle(open(11, "bid-2", "buy", "6499", "3"));
+        scheduler.triggerActions();
+
+        when(marketDataService.getGDAXProductOrderBook(CurrencyPair.BTC_USD, 3))
+                .thenReturn(book(13, new Object[][]{{"6498", "5", "bid-3"}}, new Object[][]{{"6520", "1", "ask-3"}}));
+        handle(open(13, "bid-3", "buy", "6498", "5"));
+        scheduler.triggerActions();
+        verify(marketDataService, times(1)).getGDAXProductOrderBook(CurrencyPair.BTC_USD, 3);
+
+        // the second snapshot waits for the minimum interval
+        scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+        handle(open(14, "ask-4", "sell", "6521", "1"));
+
+        verify(marketDataService, times(2)).getGDAXProductOrderBook(CurrencyPair.BTC_USD, 3);
+        books.assertValueCount(1);
+        L3OrderBook book = books.values().get(0);
+        assertThat(book.getOrderCount()).isEqualTo(3);
+        assertThat(book.getOrder("bid-1")).isNull();
+        assertThat(book.getOrder("bid-3").getSize()).isEqualByComparingTo("5");
+        assertThat(book.getOrder("ask-4").getPrice()).isEqualByComparingTo("6521");
+    }
+
+    @Test
+    public void testTickerIsNotDecodedToTransactionWithBookSubscribed() {
+        AtomicInteger decodes = new AtomicInteger();
+        GDAXWebSocketTransactionDecoder decoder = new GDAXWebSocketTransactionDecoder();
+        service = new GDAXStreamingService("wss://ws-feed.gdax.com", () -> null, Collections.emptySet(), parser -> {
+            decodes.incrementAndGet();
+            return decoder.decode(parser);
+        });
+        service.subscribeMultipleCurrencyPairs(ProductSubscription.create().addAll(CurrencyPair.BTC_USD).build());
+        marketData = new GDAXStreamingMarketDataService(service, marketDataService, scheduler);
+        TestObserver<OrderBook> books = marketData.getOrderBook(CurrencyPair.BTC_USD).test();
+        TestObserver<Ticker> tickers = marketData.getTicker(CurrencyPair.BTC_USD).test();
+
+        handle("{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\",\"bids\":[[\"6500\",\"1\"]],\"asks\":[[\"6510\",\"2\"]]}");
+        handle("{\"type\":\"ticker\",\"product_id\":\"BTC-USD\",\"sequence\":1,\"price\":\"6505\","
+                + "\"best_bid\":\"6500\",\"best_ask\":\"6510\",\"volume_24h\":\"100\"}");
+
+        books.assertValueCount(1);
+        tickers.assertValueCount(1);
+        assertThat(tickers.values().get(0).getLast()).isEqualByComparingTo("6505");
+        assertThat(decodes.get()).isEqualTo(1);
+    }
+
+    private void handle(String message) {
+        service.messageHandler(message);
+    }
+
+    private static String open(long sequence, String orderId, String side, String price, String size) {
+        return "{\"type\":\"open\",\"product_id\":\"BTC-USD\",\"sequence\":" + sequence + ",\"order_id\":\""
+                + orderId + "\",\"side\":\"" + side + "\",\"price\":\"" + price + "\",\"remaining_size\":\""
+                + size + "\"}";
+    }
+
+    private static GDAXProductBook book(long sequence, Object[][] bids, Object[][] asks) {
+        return new GDAXProductBook(sequence, bids, asks);
+    }
+}
@@ -0,0 +1,140 @@
+package info.bitrich.xchangestream.gdax;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import info.bitrich.xchangestream.core.ProductSubscription;
+import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransaction;
+import info.bitrich.xchangestream.gdax.dto.GDAXWebSocketTransactionDecoder;
+import io.reactivex.observers.TestObserver;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GDAXStreamingServiceTest {
+
+    private final List<JsonNode> trees = new ArrayList<>();
+    private GDAXStreamingService service;
+
+    @Before
+    public void setUp() {
+        service = new GDAXStreamingService("wss://ws-feed.gdax.com", () -> null) {
+            @Override
+            protected void handleMessage(JsonNode message) {
+                trees.add(message);
+                super.handleMessage(message);
+            }
+        };
+        service.subscribeMultipleCurrencyPairs(ProductSubscription.create()
+                .addAll(CurrencyPair.BTC_USD)
+                .addAll(CurrencyPair.ETH_USD)
+                .build());
+    }
+
+    @Test
+    public void testRoutesByProductAndType() {
+        TestObserver<GDAXWebSocketTransaction> btcMatches = service.subscribeTransactions("BTC-USD", "match").test();
+        TestObserver<GDAXWebSocketTransaction> btcBook = service.subscribeTransactions("BTC-USD", "snapshot", "l2update").test();
+        TestObserver<GDAXWebSocketTransaction> ethMatches = service.subscribeTransactions("ETH-USD", "match").test();
+
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\"}");
+        handle("{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[[\"buy\",\"6500\",\"1\"]]}");
+        handle("{\"type\":\"match\",\"product_id\":\"ETH-USD\",\"trade_id\":2,\"price\":\"200\",\"size\":\"3\"}");
+        handle("{\"type\":\"heartbeat\",\"product_id\":\"BTC-USD\"}");
+        handle("{\"type\":\"subscriptions\",\"channels\":[]}");
+
+        btcMatches.assertValueCount(1);
+        assertThat(btcMatches.values().get(0).getTradeId()).isEqualTo(1);
+        btcBook.assertValueCount(1);
+        assertThat(btcBook.values().get(0).getType()).isEqualTo("l2update");
+        ethMatches.assertValueCount(1);
+        assertThat(ethMatches.values().get(0).getTradeId()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTransactionIsConvertedOncePerMessage() {
+        TestObserver<GDAXWebSocketTransaction> first = service.subscribeTransactions("BTC-USD", "match").test();
+        TestObserver<GDAXWebSocketTransaction> second = service.subscribeTransactions("BTC-USD", "match").test();
+
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\"}");
+
+        assertThat(first.values().get(0)).isSameAs(second.values().get(0));
+    }
+
+    @Test
+    public void testTransactionsAreDecodedWithoutTree() {
+        TestObserver<GDAXWebSocketTransaction> matches = service.subscribeTransactions("BTC-USD", "match").test();
+
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\"}");
+        handle("{\"type\":\"ticker\",\"product_id\":\"BTC-USD\",\"price\":\"6500\"}");
+
+        matches.assertValueCount(1);
+        assertThat(trees).extracting(tree -> tree.get("type").asText()).containsExactly("ticker");
+    }
+
+    @Test
+    public void testTreeIsBuiltForMessageSubscribers() {
+        TestObserver<GDAXWebSocketTransaction> matches = service.subscribeTransactions("BTC-USD", "match").test();
+        TestObserver<JsonNode> messages = service.subscribeMessages("BTC-USD", "match").test();
+
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\"}");
+        messages.dispose();
+        TestObserver<JsonNode> channel = service.subscribeChannel("ALL").test();
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":2,\"price\":\"6501\",\"size\":\"1\"}");
+
+        matches.assertValueCount(2);
+        messages.assertValueCount(1);
+        channel.assertValueCount(1);
+        assertThat(trees).hasSize(2);
+    }
+
+    @Test
+    public void testEachFrameIsParsedOnce() {
+        AtomicInteger decodes = new AtomicInteger();
+        GDAXWebSocketTransactionDecoder decoder = new GDAXWebSocketTransactionDecoder();
+        service = new GDAXStreamingService("wss://ws-feed.gdax.com", () -> null, Collections.emptySet(), parser -> {
+            decodes.incrementAndGet();
+            return decoder.decode(parser);
+        }) {
+            @Override
+            protected void handleMessage(JsonNode message) {
+                trees.add(message);
+                super.handleMessage(message);
+            }
+        };
+        service.subscribeMultipleCurrencyPairs(ProductSubscription.create().addAll(CurrencyPair.BTC_USD).build());
+        TestObserver<GDAXWebSocketTransaction> book = service.subscribeTransactions("BTC-USD", "snapshot", "l2update").test();
+        TestObserver<JsonNode> tickers = service.subscribeMessages("BTC-USD", "ticker").test();
+
+        handle("{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[[\"buy\",\"6500\",\"1\"]]}");
+        handle("{\"type\":\"ticker\",\"product_id\":\"BTC-USD\",\"price\":\"6500\"}");
+        handle("{\"type\":\"match\",\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\"}");
+
+        book.assertValueCount(1);
+        tickers.assertValueCount(1);
+        assertThat(decodes.get()).isEqualTo(1);
+        assertThat(trees).extracting(tree -> tree.get("type").asText()).containsExactly("ticker", "match");
+    }
+
+    @Test
+    public void testTransactionIsDecodedFromTreeForMessageSubscribers() {
+        TestObserver<GDAXWebSocketTransaction> matches = service.subscribeTransactions("BTC-USD", "match").test();
+        TestObserver<JsonNode> messages = service.subscribeMessages("BTC-USD", "match").test();
+
+        handle("{\"product_id\":\"BTC-USD\",\"trade_id\":1,\"price\":\"6500\",\"size\":\"1\",\"type\":\"match\"}");
+
+        matches.assertValueCount(1);
+        assertThat(matches.values().get(0).getTradeId()).isEqualTo(1);
+        messages.assertValueCount(1);
+        assertThat(trees).hasSize(1);
+    }
+
+    private void handle(String message) {
+        service.messageHandler(message);
+    }
+}
@@ -0,0 +1,99 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.DecimalScale;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GDAXOrderBookTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private GDAXOrderBook orderBook;
+
+    @Before
+    public void setUp() throws Exception {
+        orderBook = new GDAXOrderBook(CurrencyPair.BTC_USD);
+        orderBook.update(transaction("{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\"," +
+                "\"bids\":[[\"6500.10\",\"0.5\"],[\"6500.00\",\"1.25\"]]," +
+                "\"asks\":[[\"6500.20\",\"2\"],[\"6501.00\",\"3\"]]}"));
+    }
+
+    @Test
+    public void testSnapshot() {
+        OrderBook book = orderBook.toOrderBook(0);
+
+        assertThat(book.getBids()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("6500.10"), new BigDecimal("6500.00"));
+        assertThat(book.getAsks().get(0).getOriginalAmount()).isEqualByComparingTo("2");
+        assertThat(book.getAsks().get(0).getCurrencyPair()).isEqualTo(CurrencyPair.BTC_USD);
+        assertThat(orderBook.toOrderBook(1).getAsks()).hasSize(1);
+    }
+
+    @Test
+    public void testUpdateRemovesZeroLevels() throws Exception {
+        orderBook.update(transaction("{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[" +
+                "[\"buy\",\"6500.10\",\"0.00000000\"]," +
+                "[\"buy\",\"6499.00\",\"4\"]," +
+                "[\"sell\",\"6500.20\",\"1.5\"]]}"));
+
+        assertThat(orderBook.getBids().keySet())
+                .containsExactly(new BigDecimal("6500.00"), new BigDecimal("6499.00"));
+        assertThat(orderBook.getAsks().get(new BigDecimal("6500.20"))).isEqualByComparingTo("1.5");
+
+        orderBook.update(transaction("{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\",\"bids\":[],\"asks\":[]}"));
+        assertThat(orderBook.getBids()).isEmpty();
+        assertThat(orderBook.getAsks()).isEmpty();
+    }
+
+    @Test
+    public void testScaledModeMatchesBigDecimalMode() throws Exception {
+        GDAXOrderBook scaled = new GDAXOrderBook(CurrencyPair.BTC_USD, DecimalScale.of(2, 8));
+        for (GDAXOrderBook book : new GDAXOrderBook[]{orderBook, scaled}) {
+            book.update(transaction("{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\"," +
+                    "\"bids\":[[\"6500.10\",\"0.5\"],[\"6500.00\",\"1.25\"]],\"asks\":[[\"6500.20\",\"2\"]]}"));
+            book.update(transaction("{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[" +
+                    "[\"buy\",\"6500.10\",\"0.00000000\"],[\"sell\",\"6500.30\",\"0.12345678\"]]}"));
+        }
+
+        assertThat(scaled.isScaled()).isTrue();
+        assertThat(scaled.getBids().keySet()).containsExactlyElementsOf(orderBook.getBids().keySet());
+        assertThat(scaled.getBids().firstEntry().getValue()).isEqualByComparingTo("1.25");
+        assertBooksEqual(scaled.toOrderBook(0), orderBook.toOrderBook(0));
+    }
+
+    @Test
+    public void testScaledModeFallsBackToBigDecimal() throws Exception {
+        GDAXOrderBook scaled = new GDAXOrderBook(CurrencyPair.BTC_USD, DecimalScale.of(2, 8));
+        scaled.update(transaction("{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\"," +
+                "\"bids\":[[\"6500.10\",\"0.5\"]],\"asks\":[[\"6500.20\",\"2\"]]}"));
+        scaled.update(transaction("{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[" +
+                "[\"sell\",\"6500.205\",\"1\"]]}"));
+
+        assertThat(scaled.isScaled()).isFalse();
+        assertThat(scaled.getAsks().keySet())
+                .containsExactly(new BigDecimal("6500.20"), new BigDecimal("6500.205"));
+        assertThat(scaled.getBids().firstEntry().getValue()).isEqualByComparingTo("0.5");
+    }
+
+    private static void assertBooksEqual(OrderBook actual, OrderBook expected) {
+        assertThat(actual.getBids()).extracting(LimitOrder::getLimitPrice)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyElementsOf(expected.getBids().stream().map(LimitOrder::getLimitPrice)::iterator);
+        assertThat(actual.getAsks()).extracting(LimitOrder::getOriginalAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyElementsOf(expected.getAsks().stream().map(LimitOrder::getOriginalAmount)::iterator);
+    }
+
+    private GDAXWebSocketTransaction transaction(String json) throws Exception {
+        return mapper.readValue(json, GDAXWebSocketTransaction.class);
+    }
+}
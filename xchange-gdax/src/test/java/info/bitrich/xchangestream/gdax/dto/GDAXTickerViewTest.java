@@ -0,0 +1,44 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.gdax.dto.marketdata.GDAXProductTicker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.knowm.xchange.gdax.GDAXAdapters.adaptTicker;
+
+public class GDAXTickerViewTest {
+
+    private static final String TICKER = "{\"type\":\"ticker\",\"sequence\":3262786978,\"product_id\":\"BTC-USD\"," +
+            "\"price\":\"4388.01\",\"open_24h\":\"4200\",\"volume_24h\":\"8400.5\",\"low_24h\":\"4100\"," +
+            "\"high_24h\":\"4400.00000000\",\"volume_30d\":\"\",\"best_bid\":4388,\"best_ask\":\"4388.01\"," +
+            "\"side\":\"buy\",\"time\":\"2017-09-02T17:05:49.250000Z\",\"trade_id\":20153558,\"last_size\":\"0.03\"}";
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Test
+    public void testMatchesEagerTransaction() throws Exception {
+        GDAXTickerView view = new GDAXTickerView(mapper.readTree(TICKER));
+        GDAXWebSocketTransaction transaction = mapper.readValue(TICKER, GDAXWebSocketTransaction.class);
+
+        GDAXProductTicker expected = transaction.toGDAXProductTicker();
+        GDAXProductTicker actual = view.toGDAXProductTicker();
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+        assertThat(adaptTicker(actual, view.toGDAXProductStats(), CurrencyPair.BTC_USD).toString())
+                .isEqualTo(adaptTicker(expected, transaction.toGDAXProductStats(), CurrencyPair.BTC_USD).toString());
+        assertThat(view.getSequence()).isEqualTo(3262786978L);
+        assertThat(view.getVolume30d()).isNull();
+    }
+
+    @Test
+    public void testFieldIsDecodedOnce() throws Exception {
+        GDAXTickerView view = new GDAXTickerView(mapper.readTree(TICKER));
+
+        assertThat(view.getPrice()).isEqualByComparingTo("4388.01");
+        assertThat(view.getPrice()).isSameAs(view.getPrice());
+        assertThat(view.getBestBid()).isEqualByComparingTo("4388");
+    }
+}
@@ -8,6 +8,8 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.knowm.xchange.currency.CurrencyPair;
 
+import java.util.Collections;
+
 /**
  * Created by luca on 5/3/17.
  */
@@ -27,4 +29,28 @@ public class GDAXWebSocketSubscriptionMessageTest {
 
         Assert.assertEquals("{\"type\":\"subscribe\",\"channels\":[{\"name\":\"matches\",\"product_ids\":[\"BTC-USD\"]},{\"name\":\"ticker\",\"product_ids\":[\"BTC-USD\"]},{\"name\":\"level2\",\"product_ids\":[\"BTC-USD\"]}]}", serialized);
     }
+
+    @Test
+    public void testBatchedLevel2OnlyForOrderBookProducts() throws JsonProcessingException {
+        ProductSubscription productSubscription = ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USD)
+                .addTrades(CurrencyPair.ETH_USD).build();
+        GDAXWebSocketSubscriptionMessage message = new GDAXWebSocketSubscriptionMessage("unsubscribe",
+                productSubscription, Collections.singleton(CurrencyPair.BTC_USD), null);
+
+        String serialized = new ObjectMapper().writeValueAsString(message);
+
+        Assert.assertEquals("{\"type\":\"unsubscribe\",\"channels\":[{\"name\":\"matches\",\"product_ids\":[\"ETH-USD\"]},{\"name\":\"level2_batch\",\"product_ids\":[\"BTC-USD\"]}]}", serialized);
+    }
+
+    @Test
+    public void testOnlyBatchedPairsUseLevel2Batch() throws JsonProcessingException {
+        ProductSubscription productSubscription = ProductSubscription.create().addOrderbook(CurrencyPair.BTC_USD)
+                .addOrderbook(CurrencyPair.ETH_USD).build();
+        GDAXWebSocketSubscriptionMessage message = new GDAXWebSocketSubscriptionMessage("subscribe",
+                productSubscription, Collections.singleton(CurrencyPair.ETH_USD), null);
+
+        String serialized = new ObjectMapper().writeValueAsString(message);
+
+        Assert.assertEquals("{\"type\":\"subscribe\",\"channels\":[{\"name\":\"level2_batch\",\"product_ids\":[\"ETH-USD\"]},{\"name\":\"level2\",\"product_ids\":[\"BTC-USD\"]}]}", serialized);
+    }
 }
@@ -0,0 +1,54 @@
+package info.bitrich.xchangestream.gdax.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GDAXWebSocketTransactionDecoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final GDAXWebSocketTransactionDecoder decoder = new GDAXWebSocketTransactionDecoder();
+
+    @Test
+    public void testDecodesLikeJackson() throws Exception {
+        String[] messages = {
+                "{\"type\":\"match\",\"trade_id\":10,\"sequence\":50,\"maker_order_id\":\"ac928c66\"," +
+                        "\"taker_order_id\":\"132fb6ae\",\"time\":\"2014-11-07T08:19:27.028459Z\"," +
+                        "\"product_id\":\"BTC-USD\",\"size\":\"5.23512\",\"price\":\"400.23\",\"side\":\"sell\"}",
+                "{\"type\":\"snapshot\",\"product_id\":\"BTC-USD\",\"bids\":[[\"6500.11\",\"0.45054140\"]]," +
+                        "\"asks\":[[\"6500.15\",\"0.57753524\"],[\"6504.38\",\"0.5\"]]}",
+                "{\"type\":\"ticker\",\"trade_id\":20153558,\"sequence\":3262786978,\"time\":\"2017-09-02T17:05:49.250000Z\"," +
+                        "\"product_id\":\"BTC-USD\",\"price\":4388.01,\"side\":\"buy\",\"last_size\":\"0.03\"," +
+                        "\"best_bid\":\"4388\",\"best_ask\":\"4388.01\",\"volume_24h\":null," +
+                        "\"unknown\":{\"nested\":[1,2,{\"x\":[]}]},\"changes\":[]}"
+        };
+
+        for (String message : messages) {
+            GDAXWebSocketTransaction expected = mapper.readValue(message, GDAXWebSocketTransaction.class);
+            GDAXWebSocketTransaction actual;
+            try (JsonParser parser = mapper.getFactory().createParser(message)) {
+                actual = decoder.decode(parser);
+            }
+            assertThat(actual.toString()).isEqualTo(expected.toString());
+            assertThat(actual.getBids()).isEqualTo(expected.getBids());
+            assertThat(actual.getAsks()).isEqualTo(expected.getAsks());
+            assertThat(actual.getChanges()).isEqualTo(expected.getChanges());
+            assertThat(actual.getTradeId()).isEqualTo(expected.getTradeId());
+            assertThat(actual.getMakerOrderId()).isEqualTo(expected.getMakerOrderId());
+        }
+    }
+
+    @Test
+    public void testDecodesTree() throws Exception {
+        String message = "{\"type\":\"l2update\",\"product_id\":\"BTC-USD\",\"changes\":[[\"buy\",\"6500.09\",\"0.84702376\"]]}";
+
+        GDAXWebSocketTransaction transaction = decoder.decode(mapper.readTree(message).traverse(mapper));
+
+        assertThat(transaction.getType()).isEqualTo("l2update");
+        assertThat(transaction.getChanges()).containsExactly(new String[]{"buy", "6500.09", "0.84702376"});
+    }
+}
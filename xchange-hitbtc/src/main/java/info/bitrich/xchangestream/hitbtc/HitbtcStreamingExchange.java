@@ -4,10 +4,12 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.SymbolTable;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
 import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
+import org.knowm.xchange.hitbtc.v2.HitbtcAdapters;
 import org.knowm.xchange.hitbtc.v2.HitbtcExchange;
 
 /**
@@ -16,6 +18,12 @@ import org.knowm.xchange.hitbtc.v2.HitbtcExchange;
 public class HitbtcStreamingExchange extends HitbtcExchange implements StreamingExchange {
     private static final String API_URI = "wss://api.hitbtc.com/api/2/ws";
 
+    /**
+     * HitBTC symbols, e.g. {@code BTCUSD}, used for the channel names.
+     */
+    public static final SymbolTable SYMBOLS = new SymbolTable(
+            pair -> pair.base.getCurrencyCode() + pair.counter.getCurrencyCode(), HitbtcAdapters::adaptSymbol);
+
     private final HitbtcStreamingService streamingService;
     private HitbtcStreamingMarketDataService streamingMarketDataService;
 
@@ -26,6 +34,7 @@ public class HitbtcStreamingExchange extends HitbtcExchange implements Streaming
     @Override
     protected void initServices() {
         super.initServices();
+        SYMBOLS.register(exchangeMetaData);
         streamingMarketDataService = new HitbtcStreamingMarketDataService(streamingService);
     }
 
@@ -3,7 +3,11 @@ package info.bitrich.xchangestream.hitbtc;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.Conflation;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
+import info.bitrich.xchangestream.core.orderbook.OrderBookSequencer;
+import info.bitrich.xchangestream.core.orderbook.SequenceStrategy;
 import info.bitrich.xchangestream.hitbtc.dto.*;
 import io.reactivex.Observable;
 import org.knowm.xchange.currency.CurrencyPair;
@@ -14,8 +18,6 @@ import org.knowm.xchange.dto.marketdata.Trades;
 import org.knowm.xchange.hitbtc.v2.HitbtcAdapters;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -24,7 +26,7 @@ import java.util.Objects;
 public class HitbtcStreamingMarketDataService implements StreamingMarketDataService {
 
     private final HitbtcStreamingService service;
-    private Map<CurrencyPair, HitbtcWebSocketOrderBook> orderbooks = new HashMap<>();
+    private final SharedStreams streams = new SharedStreams();
 
     public HitbtcStreamingMarketDataService(HitbtcStreamingService service) {
         this.service = service;
@@ -32,23 +34,47 @@ public class HitbtcStreamingMarketDataService implements StreamingMarketDataServ
 
     @Override
     public Observable<OrderBook> getOrderBook(CurrencyPair currencyPair, Object... args) {
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        return streams.get(SharedStreams.key("orderbook", currencyPair), () -> orderBookStream(currencyPair))
+                .compose(Conflation.apply(args, book -> {
+                    synchronized (book) {
+                        return HitbtcAdapters.adaptOrderBook(book.toHitbtcOrderBook(), currencyPair);
+                    }
+                }));
+    }
+
+    private Observable<HitbtcWebSocketOrderBook> orderBookStream(CurrencyPair currencyPair) {
+        String pair = HitbtcStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = getChannelName("orderbook", pair);
         final ObjectMapper mapper = getObjectMapper();
 
-        Observable<JsonNode> jsonNodeObservable = service.subscribeChannel(channelName);
-        return jsonNodeObservable
-                .map(s -> mapper.readValue(s.toString(), HitbtcWebSocketOrderBookTransaction.class))
-                .map(s -> {
-                    HitbtcWebSocketOrderBook hitbtcOrderBook = s.toHitbtcOrderBook(orderbooks.getOrDefault(currencyPair, null));
-                    orderbooks.put(currencyPair, hitbtcOrderBook);
-                    return HitbtcAdapters.adaptOrderBook(hitbtcOrderBook.toHitbtcOrderBook(), currencyPair);
-                });
+        return Observable.defer(() -> {
+            HitbtcWebSocketOrderBook[] orderbook = new HitbtcWebSocketOrderBook[1];
+            // the updates of a symbol carry consecutive sequences, a fresh snapshot is obtained by subscribing again
+            OrderBookSequencer<HitbtcWebSocketOrderBookTransaction> sequencer = new OrderBookSequencer<>(
+                    "Hitbtc " + currencyPair,
+                    SequenceStrategy.strict(transaction -> transaction.getParams().getSequence()),
+                    transaction -> {
+                        synchronized (orderbook[0]) {
+                            transaction.toHitbtcOrderBook(orderbook[0]);
+                        }
+                    },
+                    () -> service.resubscribeChannel(channelName));
+            // the snapshot is sent right after subscribing
+            sequencer.expectSnapshot();
+
+            return service.subscribeChannel(channelName)
+                    .map(s -> mapper.readValue(s.toString(), HitbtcWebSocketOrderBookTransaction.class))
+                    .filter(s -> s.isUpdate()
+                            ? sequencer.onUpdate(s)
+                            : sequencer.onSnapshot(s.getParams().getSequence(),
+                                    () -> orderbook[0] = s.toHitbtcOrderBook(null)))
+                    .map(s -> orderbook[0]);
+        });
     }
 
     @Override
     public Observable<Trade> getTrades(CurrencyPair currencyPair, Object... args) {
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        String pair = HitbtcStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = getChannelName("trades", pair);
         final ObjectMapper mapper = getObjectMapper();
 
@@ -67,13 +93,15 @@ public class HitbtcStreamingMarketDataService implements StreamingMarketDataServ
 
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
-        String pair = currencyPair.base.toString() + currencyPair.counter.toString();
+        String pair = HitbtcStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         String channelName = getChannelName("ticker", pair);
         final ObjectMapper mapper = getObjectMapper();
 
         return service.subscribeChannel(channelName)
-                .map(s -> mapper.readValue(s.toString(), HitbtcWebSocketTickerTransaction.class))
-                .map(s -> HitbtcAdapters.adaptTicker(s.getParams(), currencyPair));
+                .compose(Conflation.apply(args, s -> {
+                    HitbtcWebSocketTickerTransaction ticker = mapper.readValue(s.toString(), HitbtcWebSocketTickerTransaction.class);
+                    return HitbtcAdapters.adaptTicker(ticker.getParams(), currencyPair);
+                }));
     }
 
     private String getChannelName(String entityName, String pair) {
@@ -19,8 +19,12 @@ public class HitbtcWebSocketOrderBookTransaction extends HitbtcWebSocketBaseTran
         return params;
     }
 
+    public boolean isUpdate() {
+        return ORDERBOOK_METHOD_UPDATE.equals(method);
+    }
+
     public HitbtcWebSocketOrderBook toHitbtcOrderBook(HitbtcWebSocketOrderBook orderbook) {
-        if (method.equals(ORDERBOOK_METHOD_UPDATE)) {
+        if (isUpdate()) {
             orderbook.updateOrderBook(this);
             return orderbook;
         }
@@ -1,8 +1,10 @@
 package info.bitrich.xchangestream.hitbtc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.reactivex.Observable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -22,7 +24,10 @@ import java.util.Date;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -67,6 +72,32 @@ public class HitbtcStreamingMarketDataServiceTest {
         });
     }
 
+    @Test
+    public void testSkippedSequenceResubscribesOrderbook() throws Exception {
+        PublishSubject<JsonNode> messages = PublishSubject.create();
+        when(streamingService.subscribeChannel(eq("orderbook-BTCEUR"))).thenReturn(messages);
+        TestObserver<OrderBook> test = marketDataService.getOrderBook(CurrencyPair.BTC_EUR).test();
+
+        messages.onNext(orderBookMessage("snapshotOrderbook", 100, "0.054588", "0.245"));
+        messages.onNext(orderBookMessage("updateOrderbook", 101, "0.054589", "1.000"));
+        verify(streamingService, never()).resubscribeChannel(anyString());
+
+        messages.onNext(orderBookMessage("updateOrderbook", 103, "0.054590", "2.000"));
+        verify(streamingService).resubscribeChannel("orderbook-BTCEUR");
+        test.assertValueCount(2);
+
+        messages.onNext(orderBookMessage("snapshotOrderbook", 103, "0.054591", "3.000"));
+        test.assertValueCount(3);
+        assertThat(test.values().get(2).getAsks()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("0.054591"));
+    }
+
+    private JsonNode orderBookMessage(String method, long sequence, String askPrice, String askSize) throws Exception {
+        return objectMapper.readTree("{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\",\"params\":{"
+                + "\"ask\":[{\"price\":\"" + askPrice + "\",\"size\":\"" + askSize + "\"}],\"bid\":[],"
+                + "\"symbol\":\"BTCEUR\",\"sequence\":" + sequence + "}}");
+    }
+
     @Test
     public void testGetTrades() throws Exception {
         // Read trades in JSON
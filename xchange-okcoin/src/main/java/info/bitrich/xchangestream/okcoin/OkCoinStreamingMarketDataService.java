@@ -2,6 +2,7 @@ package info.bitrich.xchangestream.okcoin;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.okcoin.dto.OkCoinOrderbook;
 import info.bitrich.xchangestream.okcoin.dto.OkCoinWebSocketTrade;
@@ -20,8 +21,6 @@ import org.knowm.xchange.okcoin.dto.marketdata.OkCoinTicker;
 import org.knowm.xchange.okcoin.dto.marketdata.OkCoinTickerResponse;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * #### spot ####
@@ -34,7 +33,7 @@ public class OkCoinStreamingMarketDataService implements StreamingMarketDataServ
     private final OkCoinStreamingService service;
 
     private final ObjectMapper mapper = new ObjectMapper();
-    private final Map<String, OkCoinOrderbook> orderbooks = new HashMap<>();
+    private final SharedStreams streams = new SharedStreams();
 
     OkCoinStreamingMarketDataService(OkCoinStreamingService service) {
         this.service = service;
@@ -70,34 +69,34 @@ public class OkCoinStreamingMarketDataService implements StreamingMarketDataServ
                 channel = channel + "_" + args[1];
             }
         }
-        final String key=channel;
-
-        return service.subscribeChannel(channel)
-                .map(s -> {
-                    OkCoinOrderbook okCoinOrderbook;
-                    if (!orderbooks.containsKey(key)) {
-                        OkCoinDepth okCoinDepth = mapper.treeToValue(s.get("data"), OkCoinDepth.class);
-                        okCoinOrderbook = new OkCoinOrderbook(okCoinDepth);
-                        orderbooks.put(key, okCoinOrderbook);
-                    } else {
-                        okCoinOrderbook = orderbooks.get(key);
-                        if (s.get("data").has("asks")) {
-                            if (s.get("data").get("asks").size() > 0) {
-                                BigDecimal[][] askLevels = mapper.treeToValue(s.get("data").get("asks"), BigDecimal[][].class);
-                                okCoinOrderbook.updateLevels(askLevels, Order.OrderType.ASK);
+        final String key = channel;
+
+        return streams.get(key, () -> Observable.defer(() -> {
+            OkCoinOrderbook[] orderbook = new OkCoinOrderbook[1];
+            return service.subscribeChannel(key)
+                    .map(s -> {
+                        if (orderbook[0] == null) {
+                            OkCoinDepth okCoinDepth = mapper.treeToValue(s.get("data"), OkCoinDepth.class);
+                            orderbook[0] = new OkCoinOrderbook(okCoinDepth);
+                        } else {
+                            if (s.get("data").has("asks")) {
+                                if (s.get("data").get("asks").size() > 0) {
+                                    BigDecimal[][] askLevels = mapper.treeToValue(s.get("data").get("asks"), BigDecimal[][].class);
+                                    orderbook[0].updateLevels(askLevels, Order.OrderType.ASK);
+                                }
                             }
-                        }
 
-                        if (s.get("data").has("bids")) {
-                            if (s.get("data").get("bids").size() > 0) {
-                                BigDecimal[][] bidLevels = mapper.treeToValue(s.get("data").get("bids"), BigDecimal[][].class);
-                                okCoinOrderbook.updateLevels(bidLevels, Order.OrderType.BID);
+                            if (s.get("data").has("bids")) {
+                                if (s.get("data").get("bids").size() > 0) {
+                                    BigDecimal[][] bidLevels = mapper.treeToValue(s.get("data").get("bids"), BigDecimal[][].class);
+                                    orderbook[0].updateLevels(bidLevels, Order.OrderType.BID);
+                                }
                             }
                         }
-                    }
 
-                    return OkCoinAdapters.adaptOrderBook(okCoinOrderbook.toOkCoinDepth(s.get("data").get("timestamp").asLong()), currencyPair);
-                });
+                        return OkCoinAdapters.adaptOrderBook(orderbook[0].toOkCoinDepth(s.get("data").get("timestamp").asLong()), currencyPair);
+                    });
+        }));
     }
 
     /**
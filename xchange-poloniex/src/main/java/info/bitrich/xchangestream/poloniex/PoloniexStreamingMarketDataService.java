@@ -2,6 +2,7 @@ package info.bitrich.xchangestream.poloniex;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.MinMaxPriorityQueue;
+import info.bitrich.xchangestream.core.FanOutTable;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.poloniex.utils.MinMaxPriorityQueueUtils;
 import info.bitrich.xchangestream.service.wamp.WampStreamingService;
@@ -24,8 +25,11 @@ import java.util.*;
 public class PoloniexStreamingMarketDataService implements StreamingMarketDataService {
     private final WampStreamingService streamingService;
 
+    private final FanOutTable<CurrencyPair, Ticker> tickers;
+
     public PoloniexStreamingMarketDataService(WampStreamingService streamingService) {
         this.streamingService = streamingService;
+        this.tickers = new FanOutTable<>(tickerStream(), Ticker::getCurrencyPair);
     }
 
     private Map<CurrencyPair, MinMaxPriorityQueue<LimitOrder>> orderBookBids = new HashMap<>();
@@ -89,9 +93,17 @@ public class PoloniexStreamingMarketDataService implements StreamingMarketDataSe
         return result;
     }
 
+    /**
+     * Tickers of all pairs arrive on the {@code ticker} topic. Each message is parsed once and delivered to the
+     * subscribers of its pair only.
+     */
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
-        return streamingService.subscribeChannel("ticker")
+        return tickers.observe(currencyPair);
+    }
+
+    private Observable<Ticker> tickerStream() {
+        return Observable.defer(() -> streamingService.subscribeChannel("ticker"))
                 .map(pubSubData -> {
                     PoloniexMarketData marketData = new PoloniexMarketData();
                     marketData.setLast(new BigDecimal(pubSubData.arguments().get(1).asText()));
@@ -105,8 +117,7 @@ public class PoloniexStreamingMarketDataService implements StreamingMarketDataSe
 
                     PoloniexTicker ticker = new PoloniexTicker(marketData, PoloniexUtils.toCurrencyPair(pubSubData.arguments().get(0).asText()));
                     return PoloniexAdapters.adaptPoloniexTicker(ticker, ticker.getCurrencyPair());
-                })
-                .filter(ticker -> ticker.getCurrencyPair().equals(currencyPair));
+                });
     }
 
     @Override
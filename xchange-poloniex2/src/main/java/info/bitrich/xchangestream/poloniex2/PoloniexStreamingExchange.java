@@ -7,10 +7,10 @@ import info.bitrich.xchangestream.core.ProductSubscription;
 import info.bitrich.xchangestream.core.StreamingExchange;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.core.StreamingPrivateDataService;
+import info.bitrich.xchangestream.core.SymbolTable;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.ExchangeSpecification;
-import org.knowm.xchange.currency.Currency;
 import org.knowm.xchange.currency.CurrencyPair;
 import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
 import org.knowm.xchange.poloniex.PoloniexExchange;
@@ -28,6 +28,16 @@ public class PoloniexStreamingExchange extends PoloniexExchange implements Strea
     private static final String API_URI = "wss://api2.poloniex.com";
     private static final String TICKER_URL = "https://poloniex.com/public?command=returnTicker";
 
+    /**
+     * Poloniex market names, e.g. {@code USDT_BTC} for BTC/USDT.
+     */
+    public static final SymbolTable SYMBOLS = new SymbolTable(
+            pair -> pair.counter.getCurrencyCode() + "_" + pair.base.getCurrencyCode(),
+            symbol -> {
+                String[] currencies = symbol.split("_");
+                return new CurrencyPair(currencies[1], currencies[0]);
+            });
+
     private final PoloniexStreamingService streamingService;
     private PoloniexStreamingMarketDataService streamingMarketDataService;
 
@@ -54,9 +64,7 @@ public class PoloniexStreamingExchange extends PoloniexExchange implements Strea
                 String pairSymbol = pairSymbols.next();
                 String id = jsonRootTickers.get(pairSymbol).get("id").toString();
 
-                String[] currencies = pairSymbol.split("_");
-                CurrencyPair currencyPair = new CurrencyPair(new Currency(currencies[1]), new Currency(currencies[0]));
-                currencyPairMap.put(currencyPair, new Integer(id));
+                currencyPairMap.put(SYMBOLS.toCurrencyPair(pairSymbol), new Integer(id));
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -2,6 +2,8 @@ package info.bitrich.xchangestream.poloniex2;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import info.bitrich.xchangestream.core.FanOutTable;
+import info.bitrich.xchangestream.core.SharedStreams;
 import info.bitrich.xchangestream.core.StreamingMarketDataService;
 import info.bitrich.xchangestream.poloniex2.dto.*;
 import io.reactivex.Observable;
@@ -15,7 +17,6 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.util.Map;
 import java.util.SortedMap;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.knowm.xchange.poloniex.PoloniexAdapters.*;
 
@@ -28,47 +29,50 @@ public class PoloniexStreamingMarketDataService implements StreamingMarketDataSe
     private final PoloniexStreamingService service;
     private final Map<CurrencyPair, Integer> currencyPairMap;
 
-    private Map<CurrencyPair, PoloniexOrderbook> orderbooks = new ConcurrentHashMap<>();
+    private final SharedStreams streams = new SharedStreams();
+    // pair id -> ticker
+    private final FanOutTable<Integer, PoloniexWebSocketTickerTransaction> tickers;
 
     public PoloniexStreamingMarketDataService(PoloniexStreamingService service, Map<CurrencyPair, Integer> currencyPairMap) {
         this.service = service;
         this.currencyPairMap = currencyPairMap;
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.tickers = new FanOutTable<>(
+                Observable.defer(() -> service.subscribeChannel("1002"))
+                        .map(s -> mapper.treeToValue(s, PoloniexWebSocketTickerTransaction.class)),
+                PoloniexWebSocketTickerTransaction::getPairId);
     }
 
     @Override
     public Observable<OrderBook> getOrderBook(CurrencyPair currencyPair, Object... args) {
-        Observable<PoloniexOrderbook> subscribedOrderbook = service.subscribeCurrencyPairChannel(currencyPair)
-                .filter(s -> s.getEventType().equals("i") || s.getEventType().equals("o"))
-                .map(s -> {
-                    PoloniexOrderbook orderbook;
-                    if (s.getEventType().equals("i")) {
-                        OrderbookInsertEvent insertEvent = ((PoloniexWebSocketOrderbookInsertEvent) s).getInsert();
-                        SortedMap<BigDecimal, BigDecimal> asks = insertEvent.toDepthLevels(OrderbookInsertEvent.ASK_SIDE);
-                        SortedMap<BigDecimal, BigDecimal> bids = insertEvent.toDepthLevels(OrderbookInsertEvent.BID_SIDE);
-                        orderbook = new PoloniexOrderbook(asks, bids);
-                        orderbooks.put(currencyPair, orderbook);
-                    } else {
-                        OrderbookModifiedEvent modifiedEvent = ((PoloniexWebSocketOrderbookModifiedEvent) s).getModifiedEvent();
-                        orderbook = orderbooks.get(currencyPair);
-                        orderbook.modify(modifiedEvent);
-                    }
-                    return orderbook;
-                });
-
-        return subscribedOrderbook.map(s -> adaptPoloniexDepth(s.toPoloniexDepth(), currencyPair));
+        return streams.get(currencyPair, () -> Observable.defer(() -> {
+            PoloniexOrderbook[] orderbook = new PoloniexOrderbook[1];
+            return service.subscribeCurrencyPairChannel(currencyPair)
+                    .filter(s -> s.getEventType().equals("i") || (s.getEventType().equals("o") && orderbook[0] != null))
+                    .map(s -> {
+                        if (s.getEventType().equals("i")) {
+                            OrderbookInsertEvent insertEvent = ((PoloniexWebSocketOrderbookInsertEvent) s).getInsert();
+                            SortedMap<BigDecimal, BigDecimal> asks = insertEvent.toDepthLevels(OrderbookInsertEvent.ASK_SIDE);
+                            SortedMap<BigDecimal, BigDecimal> bids = insertEvent.toDepthLevels(OrderbookInsertEvent.BID_SIDE);
+                            orderbook[0] = new PoloniexOrderbook(asks, bids);
+                        } else {
+                            OrderbookModifiedEvent modifiedEvent = ((PoloniexWebSocketOrderbookModifiedEvent) s).getModifiedEvent();
+                            orderbook[0].modify(modifiedEvent);
+                        }
+                        return adaptPoloniexDepth(orderbook[0].toPoloniexDepth(), currencyPair);
+                    });
+        }));
     }
 
+    /**
+     * Tickers of all pairs arrive on the {@code 1002} channel. Each message is parsed once and delivered to the
+     * subscribers of its pair only.
+     */
     @Override
     public Observable<Ticker> getTicker(CurrencyPair currencyPair, Object... args) {
-        final ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
         int currencyPairId = currencyPairMap.getOrDefault(currencyPair, 0);
-        Observable<PoloniexWebSocketTickerTransaction> subscribedChannel = service.subscribeChannel("1002")
-                .map(s -> mapper.readValue(s.toString(), PoloniexWebSocketTickerTransaction.class));
-
-        return subscribedChannel
-                .filter(s -> s.getPairId() == currencyPairId)
+        return tickers.observe(currencyPairId)
                 .map(s -> adaptPoloniexTicker(s.toPoloniexTicker(currencyPair), currencyPair));
     }
 
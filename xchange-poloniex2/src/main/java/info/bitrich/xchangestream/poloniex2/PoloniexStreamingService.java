@@ -92,7 +92,7 @@ public class PoloniexStreamingService extends JsonNettyStreamingService {
     }
 
     public Observable<PoloniexWebSocketEvent> subscribeCurrencyPairChannel(CurrencyPair currencyPair) {
-        String channelName = currencyPair.counter.toString() + "_" + currencyPair.base.toString();
+        String channelName = PoloniexStreamingExchange.SYMBOLS.toSymbol(currencyPair);
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
@@ -0,0 +1,296 @@
+package info.bitrich.xchangestream.codegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code StreamingDecoder} for every class annotated with {@code @GenerateDecoder}.
+ * <p>
+ * The decoder reads the object with one pass over the {@code JsonParser}: a {@code switch} on the field name reads
+ * each known field into a local variable, unknown fields are skipped, and the locals are passed to the binding
+ * constructor. Types without a dedicated reader in {@code DecoderSupport} are bound with the parser's codec.
+ * <p>
+ * The processor refers to the runtime types by name only, so it has no dependencies besides the JDK.
+ */
+@SupportedAnnotationTypes(DecoderProcessor.GENERATE_DECODER)
+public class DecoderProcessor extends AbstractProcessor {
+    static final String GENERATE_DECODER = "info.bitrich.xchangestream.core.decoder.GenerateDecoder";
+    private static final String JSON_CREATOR = "com.fasterxml.jackson.annotation.JsonCreator";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String SUPPORT_CLASS = "info.bitrich.xchangestream.core.decoder.DecoderSupport";
+    private static final String SUPPORT = "DecoderSupport";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateDecoder is only supported on classes");
+                    continue;
+                }
+                try {
+                    generate((TypeElement) element);
+                } catch (IOException e) {
+                    error(element, "Can't write the decoder: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement dto) throws IOException {
+        ExecutableElement constructor = findConstructor(dto);
+        if (constructor == null) {
+            error(dto, "No @JsonCreator constructor or constructor with only @JsonProperty parameters");
+            return;
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for (VariableElement parameter : constructor.getParameters()) {
+            String name = jsonProperty(parameter);
+            String reader = reader(parameter.asType());
+            if (name == null || name.isEmpty()) {
+                error(parameter, "Parameter needs a @JsonProperty name");
+                return;
+            }
+            if (reader == null) {
+                error(parameter, "Unsupported parameter type " + parameter.asType());
+                return;
+            }
+            fields.add(new Field(name, "v" + fields.size(), parameter.asType(), reader));
+        }
+
+        String packageName = packageOf(dto).getQualifiedName().toString();
+        String decoderName = decoderName(dto);
+        String dtoType = dto.getQualifiedName().toString();
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? decoderName : packageName + "." + decoderName, dto);
+
+        try (Writer out = file.openWriter()) {
+            if (!packageName.isEmpty()) {
+                out.write("package " + packageName + ";\n\n");
+            }
+            out.write("import com.fasterxml.jackson.core.JsonParser;\n");
+            out.write("import com.fasterxml.jackson.core.JsonToken;\n");
+            out.write("import " + SUPPORT_CLASS + ";\n");
+            out.write("import info.bitrich.xchangestream.core.decoder.StreamingDecoder;\n\n");
+            out.write("import java.io.IOException;\n\n");
+            out.write("/**\n * Decoder of {@link " + dtoType + "}, generated by " + getClass().getName()
+                    + ", do not edit.\n */\n");
+            out.write("public final class " + decoderName + " implements StreamingDecoder<" + dtoType + "> {\n\n");
+            out.write("    @Override\n");
+            out.write("    public " + dtoType + " decode(JsonParser parser) throws IOException {\n");
+            out.write("        if (!DecoderSupport.startObject(parser)) {\n");
+            out.write("            return null;\n");
+            out.write("        }\n");
+            for (Field field : fields) {
+                out.write("        " + field.type + " " + field.variable + " = " + defaultValue(field.type) + ";\n");
+            }
+            out.write("        while (parser.nextToken() == JsonToken.FIELD_NAME) {\n");
+            out.write("            String field = parser.getCurrentName();\n");
+            out.write("            parser.nextToken();\n");
+            out.write("            switch (field) {\n");
+            for (Field field : fields) {
+                out.write("                case \"" + escape(field.name) + "\":\n");
+                out.write("                    " + field.variable + " = " + field.reader + ";\n");
+                out.write("                    break;\n");
+            }
+            out.write("                default:\n");
+            out.write("                    parser.skipChildren();\n");
+            out.write("            }\n");
+            out.write("        }\n");
+            out.write("        return new " + dtoType + "(");
+            for (int i = 0; i < fields.size(); i++) {
+                out.write((i == 0 ? "" : ", ") + fields.get(i).variable);
+            }
+            out.write(");\n");
+            out.write("    }\n");
+            out.write("}\n");
+        }
+    }
+
+    private ExecutableElement findConstructor(TypeElement dto) {
+        ExecutableElement propertiesConstructor = null;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(dto.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            if (annotation(constructor, JSON_CREATOR) != null) {
+                return constructor;
+            }
+            boolean allProperties = !constructor.getParameters().isEmpty();
+            for (VariableElement parameter : constructor.getParameters()) {
+                allProperties &= annotation(parameter, JSON_PROPERTY) != null;
+            }
+            if (allProperties && propertiesConstructor == null) {
+                propertiesConstructor = constructor;
+            }
+        }
+        return propertiesConstructor;
+    }
+
+    private String reader(TypeMirror type) {
+        switch (type.getKind()) {
+            case LONG:
+                return SUPPORT + ".readLong(parser)";
+            case INT:
+                return SUPPORT + ".readInt(parser)";
+            case DOUBLE:
+                return SUPPORT + ".readDouble(parser)";
+            case BOOLEAN:
+                return SUPPORT + ".readBoolean(parser)";
+            case ARRAY:
+                String typeName = type.toString();
+                if (typeName.equals("java.lang.String[]")) {
+                    return SUPPORT + ".readStringArray(parser)";
+                }
+                if (typeName.equals("java.lang.String[][]")) {
+                    return SUPPORT + ".readStringArray2D(parser)";
+                }
+                return isPlain(((ArrayType) type).getComponentType()) ? readValue(type) : null;
+            case DECLARED:
+                switch (type.toString()) {
+                    case "java.lang.String":
+                        return SUPPORT + ".readString(parser)";
+                    case "java.math.BigDecimal":
+                        return SUPPORT + ".readBigDecimal(parser)";
+                    case "java.lang.Long":
+                        return SUPPORT + ".readLongObject(parser)";
+                    case "java.lang.Integer":
+                        return SUPPORT + ".readIntObject(parser)";
+                    case "java.lang.Double":
+                        return SUPPORT + ".readDoubleObject(parser)";
+                    case "java.lang.Boolean":
+                        return SUPPORT + ".readBooleanObject(parser)";
+                    default:
+                        return isPlain(type) ? readValue(type) : null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return true for types which can be named by a class literal, i.e. without type arguments.
+     */
+    private static boolean isPlain(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return isPlain(((ArrayType) type).getComponentType());
+        }
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty();
+    }
+
+    private static String readValue(TypeMirror type) {
+        return SUPPORT + ".readValue(parser, " + type + ".class)";
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        switch (type.getKind()) {
+            case LONG:
+                return "0L";
+            case INT:
+                return "0";
+            case DOUBLE:
+                return "0.0";
+            case BOOLEAN:
+                return "false";
+            default:
+                return "null";
+        }
+    }
+
+    private static String jsonProperty(VariableElement parameter) {
+        AnnotationMirror property = annotation(parameter, JSON_PROPERTY);
+        if (property == null) {
+            return null;
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : property.getElementValues().entrySet()) {
+            if (value.getKey().getSimpleName().contentEquals("value")) {
+                return (String) value.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static AnnotationMirror annotation(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static PackageElement packageOf(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement) element;
+    }
+
+    /**
+     * @return {@code FooDecoder} for {@code Foo}, {@code Outer_FooDecoder} for a nested {@code Outer.Foo}.
+     */
+    private static String decoderName(TypeElement dto) {
+        StringBuilder name = new StringBuilder(dto.getSimpleName());
+        for (Element outer = dto.getEnclosingElement(); outer.getKind() != ElementKind.PACKAGE;
+             outer = outer.getEnclosingElement()) {
+            name.insert(0, outer.getSimpleName() + "_");
+        }
+        return name.append("Decoder").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Field {
+        final String name;
+        final String variable;
+        final TypeMirror type;
+        final String reader;
+
+        Field(String name, String variable, TypeMirror type, String reader) {
+            this.name = name;
+            this.variable = variable;
+            this.type = type;
+            this.reader = reader;
+        }
+    }
+}
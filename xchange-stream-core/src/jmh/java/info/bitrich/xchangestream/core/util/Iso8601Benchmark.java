@@ -0,0 +1,62 @@
+package info.bitrich.xchangestream.core.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Iso8601} with the {@code SimpleDateFormat} per message the adapters used before and with
+ * {@link Instant#parse(CharSequence)}. Run with the {@code benchmark} profile of the parent pom.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Iso8601Benchmark {
+    private final String gdaxTime = "2017-09-02T18:09:55.158000Z";
+    private final String bitmexTime = "2017-11-13T22:55:57.123Z";
+
+    @Benchmark
+    public long iso8601Gdax() {
+        return Iso8601.parseEpochMicros(gdaxTime);
+    }
+
+    @Benchmark
+    public long iso8601Bitmex() {
+        return Iso8601.parseEpochMicros(bitmexTime);
+    }
+
+    @Benchmark
+    public long instantParseGdax() {
+        Instant instant = Instant.parse(gdaxTime);
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1000;
+    }
+
+    @Benchmark
+    public long simpleDateFormatBitmex() throws ParseException {
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return formatter.parse(bitmexTime).getTime();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Iso8601Benchmark.class.getSimpleName()).build()).run();
+    }
+}
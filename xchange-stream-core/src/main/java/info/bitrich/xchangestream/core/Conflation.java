@@ -0,0 +1,112 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thins out a stream of order book or ticker updates before it reaches the subscriber.
+ * <p>
+ * Pass an instance as one of the {@code args} of {@link StreamingMarketDataService#getOrderBook} or
+ * {@link StreamingMarketDataService#getTicker}. Services which support conflation apply it to their internal
+ * state stream and run the (expensive) conversion to the XChange DTO only for the value which is finally emitted.
+ * <p>
+ * For example, to receive at most one order book every 100 ms:
+ * <pre>
+ * exchange.getStreamingMarketDataService()
+ *         .getOrderBook(CurrencyPair.BTC_USD, Conflation.latest(100, TimeUnit.MILLISECONDS))
+ * </pre>
+ * In the time based mode the conversion runs on the given scheduler while holding the monitor of the value being
+ * converted, so services which mutate their local state in place must do it while holding the same monitor.
+ */
+public final class Conflation {
+    private final long period;
+    private final TimeUnit unit;
+    private final Scheduler scheduler;
+    private final int count;
+
+    private Conflation(long period, TimeUnit unit, Scheduler scheduler, int count) {
+        this.period = period;
+        this.unit = unit;
+        this.scheduler = scheduler;
+        this.count = count;
+    }
+
+    /**
+     * Emits the first update immediately and then the latest update of each period.
+     */
+    public static Conflation latest(long period, TimeUnit unit) {
+        return latest(period, unit, Schedulers.computation());
+    }
+
+    public static Conflation latest(long period, TimeUnit unit, Scheduler scheduler) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Conflation period must be positive: " + period);
+        }
+        return new Conflation(period, unit, scheduler, 0);
+    }
+
+    /**
+     * Emits the first update and then every n-th update after it.
+     */
+    public static Conflation everyNth(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Conflation count must be positive: " + count);
+        }
+        return new Conflation(0, null, null, count);
+    }
+
+    /**
+     * @return the first {@link Conflation} found among the args, or null when there is none.
+     */
+    public static Conflation fromArgs(Object... args) {
+        if (args == null) {
+            return null;
+        }
+        for (Object arg : args) {
+            if (arg instanceof Conflation) {
+                return (Conflation) arg;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies the conflation requested in args (if any) and converts the emitted values.
+     * Without a conflation argument this is a plain {@code map(converter)}.
+     */
+    public static <T, R> ObservableTransformer<T, R> apply(Object[] args, Function<? super T, ? extends R> converter) {
+        Conflation conflation = fromArgs(args);
+        if (conflation == null) {
+            return upstream -> upstream.map(converter);
+        }
+        return conflation.transformer(converter);
+    }
+
+    public <T, R> ObservableTransformer<T, R> transformer(Function<? super T, ? extends R> converter) {
+        if (count > 0) {
+            return upstream -> Observable.defer(() -> {
+                long[] seen = new long[1];
+                return upstream
+                        .filter(value -> seen[0]++ % count == 0)
+                        .map(converter);
+            });
+        }
+        return upstream -> upstream
+                .throttleLatest(period, unit, scheduler, true)
+                .map(value -> {
+                    synchronized (value) {
+                        return converter.apply(value);
+                    }
+                });
+    }
+
+    @Override
+    public String toString() {
+        return count > 0 ? "Conflation{every " + count + "}" : "Conflation{latest " + period + " " + unit + "}";
+    }
+}
@@ -0,0 +1,96 @@
+package info.bitrich.xchangestream.core;
+
+import info.bitrich.xchangestream.core.util.ScaledDecimal;
+import org.knowm.xchange.dto.meta.CurrencyPairMetaData;
+
+import java.math.BigDecimal;
+
+/**
+ * Requests the scaled long numeric mode of a service's local order book.
+ * <p>
+ * Pass an instance as one of the {@code args} of {@link StreamingMarketDataService#getOrderBook}. Services which
+ * support it parse the price and size strings of the updates straight into longs with the given number of fraction
+ * digits (see {@link ScaledDecimal}) and keep the levels in primitive arrays instead of {@link BigDecimal} maps.
+ * A book which receives a number the scales can't hold exactly falls back to {@link BigDecimal} for good, so the
+ * emitted order books hold the same numbers in both modes, only the scaled ones carry the trailing zeros of the scale.
+ * <pre>
+ * exchange.getStreamingMarketDataService()
+ *         .getOrderBook(CurrencyPair.BTC_USD, DecimalScale.fromMetaData(metaData, 8))
+ * </pre>
+ */
+public final class DecimalScale {
+    private final int priceScale;
+    private final int sizeScale;
+
+    private DecimalScale(int priceScale, int sizeScale) {
+        this.priceScale = priceScale;
+        this.sizeScale = sizeScale;
+    }
+
+    public static DecimalScale of(int priceScale, int sizeScale) {
+        ScaledDecimal.parse("0", priceScale);
+        ScaledDecimal.parse("0", sizeScale);
+        return new DecimalScale(priceScale, sizeScale);
+    }
+
+    /**
+     * @param metaData  Exchange metadata of the instrument, provides the price scale.
+     * @param sizeScale Number of fraction digits of the sizes.
+     */
+    public static DecimalScale fromMetaData(CurrencyPairMetaData metaData, int sizeScale) {
+        if (metaData == null || metaData.getPriceScale() == null) {
+            throw new IllegalArgumentException("No price scale in the metadata: " + metaData);
+        }
+        return of(metaData.getPriceScale(), sizeScale);
+    }
+
+    /**
+     * @return the first {@link DecimalScale} found among the args, or null when there is none.
+     */
+    public static DecimalScale fromArgs(Object... args) {
+        if (args == null) {
+            return null;
+        }
+        for (Object arg : args) {
+            if (arg instanceof DecimalScale) {
+                return (DecimalScale) arg;
+            }
+        }
+        return null;
+    }
+
+    public int getPriceScale() {
+        return priceScale;
+    }
+
+    public int getSizeScale() {
+        return sizeScale;
+    }
+
+    /**
+     * @return the scaled price or {@link ScaledDecimal#NOT_REPRESENTABLE}.
+     */
+    public long parsePrice(CharSequence price) {
+        return ScaledDecimal.parse(price, priceScale);
+    }
+
+    /**
+     * @return the scaled size or {@link ScaledDecimal#NOT_REPRESENTABLE}.
+     */
+    public long parseSize(CharSequence size) {
+        return ScaledDecimal.parse(size, sizeScale);
+    }
+
+    public BigDecimal toPrice(long price) {
+        return ScaledDecimal.toBigDecimal(price, priceScale);
+    }
+
+    public BigDecimal toSize(long size) {
+        return ScaledDecimal.toBigDecimal(size, sizeScale);
+    }
+
+    @Override
+    public String toString() {
+        return "DecimalScale{priceScale=" + priceScale + ", sizeScale=" + sizeScale + '}';
+    }
+}
@@ -0,0 +1,85 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.Subject;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Fans out an all-market stream, e.g. the tickers of every pair, to subscribers of single keys.
+ * <p>
+ * The source is subscribed once, with the first subscriber of any key, and each of its values is parsed once. The
+ * latest value of every key is kept in a table and delivered only to the subscribers of that key, so the cost of a
+ * message no longer grows with the number of subscribers. A new subscriber receives the latest value of its key
+ * first, each key has a {@link BehaviorSubject}, so no value published while subscribing is lost. The source is
+ * disposed together with the last subscriber, the table is then cleared, so a later subscriber doesn't receive the
+ * values of the previous connection.
+ *
+ * @param <K> Type of the key, e.g. {@code CurrencyPair}.
+ * @param <V> Type of the values.
+ */
+public final class FanOutTable<K, V> {
+    private final Function<? super V, ? extends K> keyFunction;
+    private final ConcurrentMap<K, V> latest = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, Subject<V>> subjects = new ConcurrentHashMap<>();
+    private final Completable connection;
+
+    /**
+     * @param source      Values of all keys, subscribed once for all subscribers.
+     * @param keyFunction Key of a value.
+     */
+    public FanOutTable(Observable<V> source, Function<? super V, ? extends K> keyFunction) {
+        this.keyFunction = keyFunction;
+        this.connection = source
+                .doOnNext(this::publish)
+                .doFinally(this::clear)
+                .share()
+                .ignoreElements();
+    }
+
+    /**
+     * @return the values of the key, starting with the latest one if there is one.
+     */
+    public Observable<V> observe(K key) {
+        return Observable.defer(() -> subject(key).mergeWith(connection));
+    }
+
+    /**
+     * @return the latest value of the key, null if there is none yet.
+     */
+    public V get(K key) {
+        return latest.get(key);
+    }
+
+    /**
+     * @return a read-only view of the latest values of all keys received so far.
+     */
+    public Map<K, V> values() {
+        return Collections.unmodifiableMap(latest);
+    }
+
+    private void publish(V value) {
+        K key = keyFunction.apply(value);
+        if (key == null) {
+            return;
+        }
+        latest.put(key, value);
+        subject(key).onNext(value);
+    }
+
+    private void clear() {
+        latest.clear();
+        // a subject already subscribed by a new subscriber stays, its next value comes from the new connection
+        subjects.values().removeIf(subject -> !subject.hasObservers());
+    }
+
+    private Subject<V> subject(K key) {
+        return subjects.computeIfAbsent(key, k -> BehaviorSubject.<V>create().toSerialized());
+    }
+}
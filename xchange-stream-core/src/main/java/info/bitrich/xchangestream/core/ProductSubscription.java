@@ -13,11 +13,13 @@ public class ProductSubscription {
     private List<CurrencyPair> orderBook;
     private List<CurrencyPair> trades;
     private List<CurrencyPair> ticker;
+    private List<CurrencyPair> orderBookL3;
 
     private ProductSubscription(ProductSubscriptionBuilder builder) {
         this.orderBook = builder.orderBook;
         this.trades = builder.trades;
         this.ticker = builder.ticker;
+        this.orderBookL3 = builder.orderBookL3;
     }
 
     public List<CurrencyPair> getOrderBook() {
@@ -32,6 +34,13 @@ public class ProductSubscription {
         return ticker;
     }
 
+    /**
+     * Pairs subscribed for order by order (level 3) books, on exchanges which publish them.
+     */
+    public List<CurrencyPair> getOrderBookL3() {
+        return orderBookL3;
+    }
+
     public static ProductSubscriptionBuilder create() {
         return new ProductSubscriptionBuilder();
     }
@@ -40,11 +49,13 @@ public class ProductSubscription {
         private List<CurrencyPair> orderBook;
         private List<CurrencyPair> trades;
         private List<CurrencyPair> ticker;
+        private List<CurrencyPair> orderBookL3;
 
         private ProductSubscriptionBuilder() {
             orderBook = new ArrayList<>();
             trades = new ArrayList<>();
             ticker = new ArrayList<>();
+            orderBookL3 = new ArrayList<>();
         }
 
         public ProductSubscriptionBuilder addOrderbook(CurrencyPair pair) {
@@ -62,6 +73,11 @@ public class ProductSubscription {
             return this;
         }
 
+        public ProductSubscriptionBuilder addOrderBookL3(CurrencyPair pair) {
+            orderBookL3.add(pair);
+            return this;
+        }
+
         public ProductSubscriptionBuilder addAll(CurrencyPair pair) {
             orderBook.add(pair);
             trades.add(pair);
@@ -0,0 +1,65 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.Observable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * One shared stream per key, e.g. per (pair, channel, depth), for the subscribers of a market data service.
+ * <p>
+ * The first {@link #get} of a key builds the pipeline, all subscribers of the key then share its single
+ * subscription: every message is parsed once and the local state (e.g. the order book) is owned by the pipeline
+ * instead of a map shared by independent pipelines. The latest value is replayed to late subscribers, so they
+ * receive the current book immediately without a new snapshot. The pipeline is disposed together with its last
+ * subscriber and removed from the cache, the next {@link #get} starts a new one.
+ * <p>
+ * Per subscriber operators, like {@link Conflation}, must be applied to the returned stream, not inside the factory.
+ * Pipelines which need state should create it in {@link Observable#defer}, so a restarted pipeline starts fresh.
+ * The replayed value is delivered on the thread of the late subscriber, a mutable value must therefore be read
+ * while holding the monitor it is mutated under.
+ */
+public final class SharedStreams {
+    private final ConcurrentMap<Object, Observable<?>> streams = new ConcurrentHashMap<>();
+
+    /**
+     * @return a key made of the parts, equal to any other key made of equal parts.
+     */
+    public static Object key(Object... parts) {
+        return Arrays.asList(parts);
+    }
+
+    /**
+     * @param key     Identifies the stream, see {@link #key(Object...)}.
+     * @param factory Builds the pipeline when there is no active stream for the key.
+     * @return the shared stream of the key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Observable<T> get(Object key, Supplier<Observable<T>> factory) {
+        Observable<?> stream = streams.get(key);
+        if (stream == null) {
+            stream = streams.computeIfAbsent(key, k -> share(k, factory.get()));
+        }
+        return (Observable<T>) stream;
+    }
+
+    /**
+     * @return the number of streams with at least one subscriber or not subscribed yet.
+     */
+    public int size() {
+        return streams.size();
+    }
+
+    private <T> Observable<T> share(Object key, Observable<T> source) {
+        AtomicReference<Observable<T>> self = new AtomicReference<>();
+        Observable<T> shared = source
+                .doFinally(() -> streams.remove(key, self.get()))
+                .replay(1)
+                .refCount();
+        self.set(shared);
+        return shared;
+    }
+}
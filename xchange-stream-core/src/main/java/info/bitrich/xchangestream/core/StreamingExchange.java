@@ -3,6 +3,7 @@ package info.bitrich.xchangestream.core;
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import org.knowm.xchange.Exchange;
+import org.knowm.xchange.exceptions.NotYetImplementedForExchangeException;
 
 public interface StreamingExchange extends Exchange {
     /**
@@ -45,6 +46,13 @@ public interface StreamingExchange extends Exchange {
      */
     StreamingPrivateDataService getStreamingPrivateDataService();    
 
+    /**
+     * Returns service that can be used to place and cancel orders over the WebSocket connection.
+     */
+    default StreamingTradeService getStreamingTradeService() {
+        throw new NotYetImplementedForExchangeException();
+    }
+
     /**
      * Set whether or not to enable compression handler.
      *
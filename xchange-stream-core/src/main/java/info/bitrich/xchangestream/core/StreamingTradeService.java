@@ -0,0 +1,37 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.Single;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.knowm.xchange.dto.trade.MarketOrder;
+
+/**
+ * Interface to provide the following to {@link StreamingExchange}:
+ * <ul>
+ * <li>Standard methods to place and cancel orders over the WebSocket connection, without a REST request per order
+ * </ul>
+ * Each request is sent when the returned {@link Single} is subscribed. It succeeds with the acknowledgement of the
+ * exchange, correlated to the request, and fails with the rejection of the exchange or when no acknowledgement comes
+ * in time.
+ */
+public interface StreamingTradeService {
+    /**
+     * Places a limit order.
+     *
+     * @return {@link Single} that emits the id of the order assigned by the exchange.
+     */
+    Single<String> placeLimitOrder(LimitOrder limitOrder);
+
+    /**
+     * Places a market order.
+     *
+     * @return {@link Single} that emits the id of the order assigned by the exchange.
+     */
+    Single<String> placeMarketOrder(MarketOrder marketOrder);
+
+    /**
+     * Cancels an order.
+     *
+     * @return {@link Single} that emits true once the exchange has accepted the cancellation.
+     */
+    Single<Boolean> cancelOrder(String orderId);
+}
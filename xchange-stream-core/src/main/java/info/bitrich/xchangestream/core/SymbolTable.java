@@ -0,0 +1,100 @@
+package info.bitrich.xchangestream.core;
+
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.meta.ExchangeMetaData;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Interned mapping between the instrument symbols of an exchange and {@link CurrencyPair}s.
+ * <p>
+ * Each exchange keeps one table. The pairs of the exchange metadata are registered once, symbols which are not in
+ * the metadata are converted by the exchange specific functions on first use and kept from then on. Every lookup
+ * of a known symbol returns the same {@link CurrencyPair} instance and every lookup of a known pair the same symbol
+ * string, so the DTOs and channel builders don't split, concatenate and hash new strings for each message.
+ */
+public final class SymbolTable {
+    private final Function<CurrencyPair, String> symbolFunction;
+    private final Function<String, CurrencyPair> currencyPairFunction;
+    private final ConcurrentMap<CurrencyPair, String> symbols = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CurrencyPair> currencyPairs = new ConcurrentHashMap<>();
+
+    /**
+     * @param symbolFunction       Builds the exchange symbol of a pair.
+     * @param currencyPairFunction Parses an exchange symbol.
+     */
+    public SymbolTable(Function<CurrencyPair, String> symbolFunction, Function<String, CurrencyPair> currencyPairFunction) {
+        this.symbolFunction = symbolFunction;
+        this.currencyPairFunction = currencyPairFunction;
+    }
+
+    /**
+     * @return a table of symbols made of the base and counter currency codes joined by the separator,
+     * e.g. {@code BTCUSD} or {@code BTC_USD}.
+     */
+    public static SymbolTable concatenated(String separator) {
+        return new SymbolTable(
+                pair -> pair.base.getCurrencyCode() + separator + pair.counter.getCurrencyCode(),
+                symbol -> {
+                    int index = symbol.indexOf(separator);
+                    if (separator.isEmpty() || index < 0) {
+                        throw new IllegalArgumentException("Can't split symbol " + symbol);
+                    }
+                    return new CurrencyPair(symbol.substring(0, index), symbol.substring(index + separator.length()));
+                });
+    }
+
+    /**
+     * Registers the pairs of the metadata, does nothing if there's no metadata.
+     */
+    public SymbolTable register(ExchangeMetaData metaData) {
+        if (metaData != null && metaData.getCurrencyPairs() != null) {
+            register(metaData.getCurrencyPairs().keySet());
+        }
+        return this;
+    }
+
+    public SymbolTable register(Collection<CurrencyPair> currencyPairs) {
+        for (CurrencyPair currencyPair : currencyPairs) {
+            toSymbol(currencyPair);
+        }
+        return this;
+    }
+
+    /**
+     * @return the interned symbol of the pair.
+     */
+    public String toSymbol(CurrencyPair currencyPair) {
+        String symbol = symbols.get(currencyPair);
+        if (symbol != null) {
+            return symbol;
+        }
+        String newSymbol = symbolFunction.apply(currencyPair);
+        symbol = symbols.putIfAbsent(currencyPair, newSymbol);
+        if (symbol != null) {
+            return symbol;
+        }
+        currencyPairs.putIfAbsent(newSymbol, currencyPair);
+        return newSymbol;
+    }
+
+    /**
+     * @return the interned pair of the symbol.
+     */
+    public CurrencyPair toCurrencyPair(String symbol) {
+        CurrencyPair currencyPair = currencyPairs.get(symbol);
+        if (currencyPair != null) {
+            return currencyPair;
+        }
+        CurrencyPair newCurrencyPair = currencyPairFunction.apply(symbol);
+        currencyPair = currencyPairs.putIfAbsent(symbol, newCurrencyPair);
+        if (currencyPair != null) {
+            return currencyPair;
+        }
+        symbols.putIfAbsent(newCurrencyPair, symbol);
+        return newCurrencyPair;
+    }
+}
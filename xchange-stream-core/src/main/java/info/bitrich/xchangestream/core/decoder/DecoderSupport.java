@@ -0,0 +1,137 @@
+package info.bitrich.xchangestream.core.decoder;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Field readers used by the generated {@link StreamingDecoder}s. Each reader expects the parser at the value token
+ * of the field and accepts the same representations as Jackson's default binding (e.g. numbers sent as strings).
+ */
+public final class DecoderSupport {
+    private static final String[] EMPTY_STRINGS = new String[0];
+
+    private DecoderSupport() {
+    }
+
+    /**
+     * Moves the parser to the {@code START_OBJECT} of the DTO.
+     *
+     * @return false if the value is {@code null}.
+     */
+    public static boolean startObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object, got " + token);
+        }
+        return true;
+    }
+
+    public static String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    public static BigDecimal readBigDecimal(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDecimalValue();
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                return text.isEmpty() ? null : new BigDecimal(text);
+            default:
+                throw new JsonParseException(parser, "Expected a decimal number, got " + parser.currentToken());
+        }
+    }
+
+    public static long readLong(JsonParser parser) throws IOException {
+        return parser.getValueAsLong();
+    }
+
+    public static Long readLongObject(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+    }
+
+    public static int readInt(JsonParser parser) throws IOException {
+        return parser.getValueAsInt();
+    }
+
+    public static Integer readIntObject(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    public static double readDouble(JsonParser parser) throws IOException {
+        return parser.getValueAsDouble();
+    }
+
+    public static Double readDoubleObject(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsDouble();
+    }
+
+    public static boolean readBoolean(JsonParser parser) throws IOException {
+        return parser.getValueAsBoolean();
+    }
+
+    public static Boolean readBooleanObject(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+    }
+
+    public static String[] readStringArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectArray(parser);
+        if (parser.nextToken() == JsonToken.END_ARRAY) {
+            return EMPTY_STRINGS;
+        }
+        List<String> values = new ArrayList<>(4);
+        do {
+            values.add(readString(parser));
+        } while (parser.nextToken() != JsonToken.END_ARRAY);
+        return values.toArray(new String[values.size()]);
+    }
+
+    public static String[][] readStringArray2D(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expectArray(parser);
+        List<String[]> rows = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            rows.add(readStringArray(parser));
+        }
+        return rows.toArray(new String[rows.size()][]);
+    }
+
+    /**
+     * Binds a field of any other type with the parser's codec, i.e. with regular Jackson binding.
+     */
+    public static <T> T readValue(JsonParser parser, Class<T> type) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (parser.getCodec() == null) {
+            throw new JsonParseException(parser, "No codec to read a " + type.getName() + ", create the parser with an ObjectMapper");
+        }
+        return parser.readValueAs(type);
+    }
+
+    private static void expectArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected an array, got " + parser.currentToken());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package info.bitrich.xchangestream.core.decoder;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a stream DTO for which the xchange-stream-codegen annotation processor generates a
+ * {@link StreamingDecoder} named {@code <DTO>Decoder} in the same package.
+ * <p>
+ * The DTO is bound through its {@code @JsonCreator} constructor, or the constructor whose parameters are all
+ * annotated with {@code @JsonProperty}, exactly as Jackson binds it. Add xchange-stream-codegen as a
+ * {@code provided} dependency of the module to run the processor.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateDecoder {
+}
@@ -0,0 +1,75 @@
+package info.bitrich.xchangestream.core.decoder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+
+/**
+ * Base of DTO views which decode the fields of a message only when they are read.
+ * <p>
+ * The view keeps the message as received from the streaming service and converts a field to its Java type on the
+ * first access, the result is cached for the following ones. Consumers which read only a few fields of a wide
+ * message (e.g. just the price of a ticker) skip the conversion of the rest.
+ * <p>
+ * Views are immutable from the outside. The cache is filled without locking: concurrent first reads may both
+ * convert a field, but always to equal values.
+ */
+public abstract class LazyJsonView {
+    private static final Object NULL = new Object();
+
+    private final JsonNode message;
+    private final Object[] values;
+
+    /**
+     * @param message    The message.
+     * @param fieldCount Number of cached fields, i.e. the size of the index range used by the subclass.
+     */
+    protected LazyJsonView(JsonNode message, int fieldCount) {
+        this.message = message;
+        this.values = new Object[fieldCount];
+    }
+
+    /**
+     * @return the message the view reads from.
+     */
+    public JsonNode getMessage() {
+        return message;
+    }
+
+    /**
+     * @param index Cache slot of the field.
+     * @param field Name of the field in the message.
+     * @return the field as a decimal, null if it's missing, null or empty.
+     */
+    protected final BigDecimal decimal(int index, String field) {
+        Object value = values[index];
+        if (value == null) {
+            JsonNode node = message.get(field);
+            BigDecimal decimal = null;
+            if (node != null && node.isNumber()) {
+                decimal = node.decimalValue();
+            } else if (node != null && node.isTextual() && !node.textValue().isEmpty()) {
+                decimal = new BigDecimal(node.textValue());
+            }
+            values[index] = decimal == null ? NULL : decimal;
+            return decimal;
+        }
+        return value == NULL ? null : (BigDecimal) value;
+    }
+
+    /**
+     * @return the field as text, null if it's missing or null. Not cached, the text is held by the message.
+     */
+    protected final String text(String field) {
+        JsonNode node = message.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    /**
+     * @return the field as a long, 0 if it's missing or null. Not cached, reading it doesn't allocate.
+     */
+    protected final long longValue(String field) {
+        JsonNode node = message.get(field);
+        return node == null ? 0L : node.asLong();
+    }
+}
@@ -0,0 +1,21 @@
+package info.bitrich.xchangestream.core.decoder;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Reads one DTO from a streaming {@link JsonParser}, see {@link GenerateDecoder}.
+ * <p>
+ * Implementations read the fields in a single pass straight into the constructor arguments and skip unknown
+ * fields with {@link JsonParser#skipChildren()}, they don't buffer the message or bind it by reflection.
+ * They are stateless and thread safe.
+ */
+public interface StreamingDecoder<T> {
+
+    /**
+     * @param parser Parser positioned before or at the {@code START_OBJECT} of the DTO. It's left at the matching
+     *               {@code END_OBJECT}.
+     */
+    T decode(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,116 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import org.knowm.xchange.currency.CurrencyPair;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Best bid and offer across all venues of a {@link ConsolidatedOrderBook}. Sizes are summed over the venues quoting
+ * the best price, the per venue split is kept in {@link #getBidSizes()} and {@link #getAskSizes()}.
+ * <p>
+ * Prices are null while the side is empty.
+ */
+public class BestBidOffer {
+    private final CurrencyPair currencyPair;
+    private final BigDecimal bidPrice;
+    private final BigDecimal bidSize;
+    private final BigDecimal askPrice;
+    private final BigDecimal askSize;
+    private final Map<String, BigDecimal> bidSizes;
+    private final Map<String, BigDecimal> askSizes;
+
+    public BestBidOffer(CurrencyPair currencyPair, BigDecimal bidPrice, BigDecimal bidSize, Map<String, BigDecimal> bidSizes,
+                        BigDecimal askPrice, BigDecimal askSize, Map<String, BigDecimal> askSizes) {
+        this.currencyPair = currencyPair;
+        this.bidPrice = bidPrice;
+        this.bidSize = bidSize;
+        this.bidSizes = Collections.unmodifiableMap(bidSizes);
+        this.askPrice = askPrice;
+        this.askSize = askSize;
+        this.askSizes = Collections.unmodifiableMap(askSizes);
+    }
+
+    public CurrencyPair getCurrencyPair() {
+        return currencyPair;
+    }
+
+    public BigDecimal getBidPrice() {
+        return bidPrice;
+    }
+
+    public BigDecimal getBidSize() {
+        return bidSize;
+    }
+
+    /** Size at the best bid by venue. */
+    public Map<String, BigDecimal> getBidSizes() {
+        return bidSizes;
+    }
+
+    public BigDecimal getAskPrice() {
+        return askPrice;
+    }
+
+    public BigDecimal getAskSize() {
+        return askSize;
+    }
+
+    /** Size at the best ask by venue. */
+    public Map<String, BigDecimal> getAskSizes() {
+        return askSizes;
+    }
+
+    /**
+     * @return true if the best bid is at or above the best ask, i.e. the venues are crossed or locked.
+     */
+    public boolean isCrossed() {
+        return bidPrice != null && askPrice != null && bidPrice.compareTo(askPrice) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BestBidOffer that = (BestBidOffer) o;
+        return Objects.equals(currencyPair, that.currencyPair) &&
+                sameNumber(bidPrice, that.bidPrice) &&
+                sameNumber(bidSize, that.bidSize) &&
+                sameNumber(askPrice, that.askPrice) &&
+                sameNumber(askSize, that.askSize) &&
+                sameSizes(bidSizes, that.bidSizes) &&
+                sameSizes(askSizes, that.askSizes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(currencyPair, bidSizes.keySet(), askSizes.keySet());
+    }
+
+    private static boolean sameNumber(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private static boolean sameSizes(Map<String, BigDecimal> a, Map<String, BigDecimal> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, BigDecimal> entry : a.entrySet()) {
+            if (!sameNumber(entry.getValue(), b.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "BestBidOffer{" +
+                "currencyPair=" + currencyPair +
+                ", bid=" + bidSize + "@" + bidPrice + " " + bidSizes +
+                ", ask=" + askSize + "@" + askPrice + " " + askSizes +
+                '}';
+    }
+}
@@ -0,0 +1,416 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import info.bitrich.xchangestream.core.StreamingExchange;
+import io.reactivex.Observable;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Order book of one currency pair merged from the book streams of several venues.
+ * <p>
+ * Every venue's last levels are kept in sorted arrays. An emitted book, whose sides are sorted from the best price
+ * outwards, is walked once alongside them, so the diff is linear in the venue's depth and only the changed prices
+ * touch the merged ladder. Each merged level keeps the size quoted by every venue. The cross venue best bid and offer
+ * is only rebuilt when a change reaches the top of the book.
+ * <p>
+ * Venues are added before subscribing to {@link #getUpdates()}. A venue whose stream fails or completes is removed
+ * from the book, the other venues keep streaming. The book is mutated while holding its monitor.
+ * <pre>
+ * ConsolidatedOrderBook book = new ConsolidatedOrderBook(CurrencyPair.BTC_USD)
+ *         .addExchange("bitfinex", bitfinex)
+ *         .addExchange("gdax", gdax);
+ * book.getBestBidOffer().subscribe(bbo -&gt; ...);
+ * </pre>
+ */
+public class ConsolidatedOrderBook {
+    private static final Logger LOG = LoggerFactory.getLogger(ConsolidatedOrderBook.class);
+
+    private final CurrencyPair currencyPair;
+    private final List<Venue> venues = new ArrayList<>();
+    private final List<String> venueNames = new ArrayList<>();
+    private final NavigableMap<BigDecimal, Level> bids = new TreeMap<>(Collections.reverseOrder());
+    private final NavigableMap<BigDecimal, Level> asks = new TreeMap<>();
+    private final List<OrderBookListener> listeners = new ArrayList<>();
+
+    private Observable<ConsolidatedOrderBook> updates;
+    private BestBidOffer bestBidOffer;
+    private BigDecimal bestBidBefore;
+    private BigDecimal bestAskBefore;
+    private boolean topChanged;
+
+    private static final class Venue {
+        final int index;
+        final String name;
+        final Observable<OrderBook> orderBooks;
+        VenueSide bids = new VenueSide();
+        VenueSide asks = new VenueSide();
+        VenueSide scratch = new VenueSide();
+
+        Venue(int index, String name, Observable<OrderBook> orderBooks) {
+            this.index = index;
+            this.name = name;
+            this.orderBooks = orderBooks;
+        }
+    }
+
+    /**
+     * Levels of one side of a venue, from the best price outwards. The arrays are reused across updates.
+     */
+    private static final class VenueSide {
+        BigDecimal[] prices = new BigDecimal[16];
+        BigDecimal[] sizes = new BigDecimal[16];
+        int count;
+
+        void add(BigDecimal price, BigDecimal size) {
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            prices[count] = price;
+            sizes[count] = size;
+            count++;
+        }
+
+        void clear() {
+            Arrays.fill(prices, 0, count, null);
+            Arrays.fill(sizes, 0, count, null);
+            count = 0;
+        }
+    }
+
+    /**
+     * Merged price level.
+     */
+    public static final class Level {
+        private final BigDecimal price;
+        private final BigDecimal[] sizes;
+        private final List<String> venueNames;
+        private BigDecimal size = BigDecimal.ZERO;
+        private int venueCount;
+
+        private Level(BigDecimal price, List<String> venueNames) {
+            this.price = price;
+            this.venueNames = venueNames;
+            this.sizes = new BigDecimal[venueNames.size()];
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        /** Size summed over all venues. */
+        public BigDecimal getSize() {
+            return size;
+        }
+
+        /** @return the size quoted by the venue, zero if it doesn't quote this price. */
+        public BigDecimal getSize(String venue) {
+            int index = venueNames.indexOf(venue);
+            return index < 0 || sizes[index] == null ? BigDecimal.ZERO : sizes[index];
+        }
+
+        /** Sizes of the venues quoting this price. */
+        public Map<String, BigDecimal> getVenueSizes() {
+            Map<String, BigDecimal> venueSizes = new LinkedHashMap<>(venueCount * 2);
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] != null) {
+                    venueSizes.put(venueNames.get(i), sizes[i]);
+                }
+            }
+            return venueSizes;
+        }
+
+        public int getVenueCount() {
+            return venueCount;
+        }
+    }
+
+    public ConsolidatedOrderBook(CurrencyPair currencyPair) {
+        this.currencyPair = currencyPair;
+        this.bestBidOffer = createBestBidOffer();
+    }
+
+    /**
+     * @param venue      Name of the venue, unique within this book.
+     * @param orderBooks Full order books of the venue, as emitted by {@code StreamingMarketDataService.getOrderBook}.
+     */
+    public synchronized ConsolidatedOrderBook addVenue(String venue, Observable<OrderBook> orderBooks) {
+        if (updates != null) {
+            throw new IllegalStateException("Venues have to be added before subscribing to the consolidated book");
+        }
+        if (venueNames.contains(venue)) {
+            throw new IllegalArgumentException("Venue " + venue + " is already added");
+        }
+        venues.add(new Venue(venues.size(), venue, orderBooks));
+        venueNames.add(venue);
+        return this;
+    }
+
+    /**
+     * Adds the order book stream of a connected exchange.
+     *
+     * @param args Arguments of {@code getOrderBook}, e.g. the depth or a {@code Conflation}.
+     */
+    public ConsolidatedOrderBook addExchange(String venue, StreamingExchange exchange, Object... args) {
+        return addVenue(venue, exchange.getStreamingMarketDataService().getOrderBook(currencyPair, args));
+    }
+
+    /**
+     * Emits this book after every applied venue update. All subscribers share one subscription to the venues.
+     */
+    public synchronized Observable<ConsolidatedOrderBook> getUpdates() {
+        if (updates == null) {
+            List<Observable<ConsolidatedOrderBook>> streams = new ArrayList<>(venues.size());
+            for (Venue venue : venues) {
+                streams.add(venue.orderBooks
+                        .map(orderBook -> apply(venue, orderBook))
+                        .concatWith(Observable.fromCallable(() -> removeVenue(venue)))
+                        .onErrorResumeNext((Throwable e) -> {
+                            LOG.warn("Order book stream of {} failed, removing it from the {} book", venue.name, currencyPair, e);
+                            return Observable.fromCallable(() -> removeVenue(venue));
+                        }));
+            }
+            updates = Observable.merge(streams).share();
+        }
+        return updates;
+    }
+
+    /**
+     * Emits the cross venue best bid and offer whenever it changes.
+     */
+    public Observable<BestBidOffer> getBestBidOffer() {
+        return getUpdates()
+                .map(ConsolidatedOrderBook::bestBidOffer)
+                .distinctUntilChanged();
+    }
+
+    /**
+     * Registers a listener of merged level changes, see {@link OrderBookListener}.
+     */
+    public synchronized void addListener(OrderBookListener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void removeListener(OrderBookListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized BestBidOffer bestBidOffer() {
+        return bestBidOffer;
+    }
+
+    public CurrencyPair getCurrencyPair() {
+        return currencyPair;
+    }
+
+    public List<String> getVenues() {
+        return Collections.unmodifiableList(venueNames);
+    }
+
+    /** Merged levels from the best price outwards. Read them while holding the book's monitor. */
+    public Collection<Level> getLevels(OrderType side) {
+        return Collections.unmodifiableCollection(levels(side).values());
+    }
+
+    /**
+     * Aggregated view of the merged ladder.
+     *
+     * @param maxDepth Maximum number of levels per side, 0 for all.
+     */
+    public synchronized OrderBook toOrderBook(int maxDepth) {
+        return new OrderBook(null,
+                toLimitOrders(OrderType.ASK, maxDepth),
+                toLimitOrders(OrderType.BID, maxDepth));
+    }
+
+    synchronized ConsolidatedOrderBook apply(Venue venue, OrderBook orderBook) {
+        beginUpdate();
+        synchronized (orderBook) {
+            diff(venue, OrderType.BID, orderBook.getBids());
+            diff(venue, OrderType.ASK, orderBook.getAsks());
+        }
+        endUpdate();
+        return this;
+    }
+
+    synchronized ConsolidatedOrderBook removeVenue(Venue venue) {
+        beginUpdate();
+        diff(venue, OrderType.BID, Collections.emptyList());
+        diff(venue, OrderType.ASK, Collections.emptyList());
+        endUpdate();
+        return this;
+    }
+
+    /**
+     * Walks the venue's new side and its previous one together, both sorted from the best price outwards, and
+     * applies only the changed prices.
+     */
+    private void diff(Venue venue, OrderType side, List<LimitOrder> orders) {
+        VenueSide previous = side == OrderType.BID ? venue.bids : venue.asks;
+        VenueSide current = venue.scratch;
+        if (!collect(side, orders, current)) {
+            // not sorted by the venue, which the XChange order books normally are
+            current.clear();
+            List<LimitOrder> sorted = new ArrayList<>(orders);
+            sorted.sort(Comparator.comparing(LimitOrder::getLimitPrice, priceOrder(side)));
+            collect(side, sorted, current);
+        }
+
+        Comparator<BigDecimal> priceOrder = priceOrder(side);
+        int i = 0;
+        int j = 0;
+        while (i < previous.count || j < current.count) {
+            int order = i == previous.count ? 1
+                    : j == current.count ? -1
+                    : priceOrder.compare(previous.prices[i], current.prices[j]);
+            if (order < 0) {
+                setVenueSize(venue, side, previous.prices[i++], BigDecimal.ZERO);
+            } else if (order > 0) {
+                setVenueSize(venue, side, current.prices[j], current.sizes[j]);
+                j++;
+            } else {
+                if (previous.sizes[i].compareTo(current.sizes[j]) != 0) {
+                    setVenueSize(venue, side, current.prices[j], current.sizes[j]);
+                }
+                i++;
+                j++;
+            }
+        }
+
+        previous.clear();
+        venue.scratch = previous;
+        if (side == OrderType.BID) {
+            venue.bids = current;
+        } else {
+            venue.asks = current;
+        }
+    }
+
+    /**
+     * Copies the positive levels of a sorted side, the sizes of consecutive orders at the same price are summed.
+     *
+     * @return false if the orders aren't sorted from the best price outwards.
+     */
+    private static boolean collect(OrderType side, List<LimitOrder> orders, VenueSide levels) {
+        Comparator<BigDecimal> priceOrder = priceOrder(side);
+        for (int k = 0; k < orders.size(); k++) {
+            LimitOrder order = orders.get(k);
+            BigDecimal size = order.getOriginalAmount();
+            if (size == null || size.signum() <= 0) {
+                continue;
+            }
+            BigDecimal price = order.getLimitPrice();
+            int last = levels.count - 1;
+            int position = last < 0 ? -1 : priceOrder.compare(levels.prices[last], price);
+            if (position == 0) {
+                levels.sizes[last] = levels.sizes[last].add(size);
+            } else if (position < 0) {
+                levels.add(price, size);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Comparator<BigDecimal> priceOrder(OrderType side) {
+        return side == OrderType.BID ? Comparator.reverseOrder() : Comparator.naturalOrder();
+    }
+
+    private void setVenueSize(Venue venue, OrderType side, BigDecimal price, BigDecimal size) {
+        NavigableMap<BigDecimal, Level> levels = levels(side);
+        Level level = levels.get(price);
+        if (level == null) {
+            if (size.signum() == 0) {
+                return;
+            }
+            level = new Level(price, venueNames);
+            levels.put(price, level);
+        }
+        BigDecimal previous = level.sizes[venue.index];
+        if (previous != null) {
+            level.size = level.size.subtract(previous);
+            level.venueCount--;
+        }
+        if (size.signum() == 0) {
+            level.sizes[venue.index] = null;
+        } else {
+            level.sizes[venue.index] = size;
+            level.size = level.size.add(size);
+            level.venueCount++;
+        }
+        if (level.venueCount == 0) {
+            levels.remove(price);
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onLevelChanged(side, price, level.venueCount == 0 ? BigDecimal.ZERO : level.size);
+        }
+        if (isAtOrBetterThanBest(side, price)) {
+            topChanged = true;
+        }
+    }
+
+    private boolean isAtOrBetterThanBest(OrderType side, BigDecimal price) {
+        if (side == OrderType.BID) {
+            return bestBidBefore == null || price.compareTo(bestBidBefore) >= 0;
+        }
+        return bestAskBefore == null || price.compareTo(bestAskBefore) <= 0;
+    }
+
+    private void beginUpdate() {
+        bestBidBefore = bids.isEmpty() ? null : bids.firstKey();
+        bestAskBefore = asks.isEmpty() ? null : asks.firstKey();
+        topChanged = false;
+    }
+
+    private void endUpdate() {
+        if (topChanged) {
+            bestBidOffer = createBestBidOffer();
+        }
+    }
+
+    private BestBidOffer createBestBidOffer() {
+        Map.Entry<BigDecimal, Level> bid = bids.firstEntry();
+        Map.Entry<BigDecimal, Level> ask = asks.firstEntry();
+        return new BestBidOffer(currencyPair,
+                bid == null ? null : bid.getKey(),
+                bid == null ? BigDecimal.ZERO : bid.getValue().size,
+                bid == null ? Collections.emptyMap() : bid.getValue().getVenueSizes(),
+                ask == null ? null : ask.getKey(),
+                ask == null ? BigDecimal.ZERO : ask.getValue().size,
+                ask == null ? Collections.emptyMap() : ask.getValue().getVenueSizes());
+    }
+
+    private NavigableMap<BigDecimal, Level> levels(OrderType side) {
+        return side == OrderType.BID ? bids : asks;
+    }
+
+    private List<LimitOrder> toLimitOrders(OrderType side, int maxDepth) {
+        NavigableMap<BigDecimal, Level> levels = levels(side);
+        int depth = maxDepth > 0 ? Math.min(maxDepth, levels.size()) : levels.size();
+        List<LimitOrder> orders = new ArrayList<>(depth);
+        for (Level level : levels.values()) {
+            if (orders.size() == depth) {
+                break;
+            }
+            orders.add(new LimitOrder(side, level.size, currencyPair, null, null, level.price));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,455 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import info.bitrich.xchangestream.core.util.LongObjectHashMap;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Order by order (level 3) book.
+ * <p>
+ * Every resting order is kept in a FIFO queue of its price level, so the book knows the queue position of each
+ * order. Levels keep their aggregated size and order count, which gives the usual aggregated (level 2) view.
+ * <p>
+ * Orders are identified either by a string id (GDAX) or by a numeric id (Bitfinex raw books), the latter indexed
+ * without boxing. Order nodes and price levels are recycled through pools, so once the book is warmed up adding and
+ * removing orders doesn't allocate book structures.
+ * <p>
+ * Not thread safe. Streaming services which hand the book to subscribers mutate it while holding its monitor.
+ */
+public class L3OrderBook {
+
+    private final NavigableMap<BigDecimal, PriceLevel> bids = new TreeMap<>(Collections.reverseOrder());
+    private final NavigableMap<BigDecimal, PriceLevel> asks = new TreeMap<>();
+    private final Map<String, OrderNode> ordersById = new HashMap<>();
+    private final LongObjectHashMap<OrderNode> ordersByNumericId = new LongObjectHashMap<>(1024);
+    private final ArrayDeque<OrderNode> orderPool = new ArrayDeque<>();
+    private final ArrayDeque<PriceLevel> levelPool = new ArrayDeque<>();
+    private final List<OrderBookListener> listeners = new ArrayList<>();
+
+    private Date timestamp;
+
+    /**
+     * Resting order. Instances are owned and reused by the book, don't keep references to them across updates.
+     */
+    public static final class OrderNode {
+        private String id;
+        private long numericId;
+        private BigDecimal size;
+        private PriceLevel level;
+        private OrderNode previous;
+        private OrderNode next;
+
+        public String getId() {
+            return id != null ? id : String.valueOf(numericId);
+        }
+
+        public long getNumericId() {
+            return numericId;
+        }
+
+        public BigDecimal getSize() {
+            return size;
+        }
+
+        public BigDecimal getPrice() {
+            return level.price;
+        }
+
+        public OrderType getSide() {
+            return level.side;
+        }
+
+        private void reset() {
+            id = null;
+            numericId = 0;
+            size = null;
+            level = null;
+            previous = null;
+            next = null;
+        }
+    }
+
+    /**
+     * Price level with the FIFO queue of its orders.
+     */
+    public static final class PriceLevel {
+        private OrderType side;
+        private BigDecimal price;
+        private BigDecimal size = BigDecimal.ZERO;
+        private int orderCount;
+        private OrderNode head;
+        private OrderNode tail;
+
+        public OrderType getSide() {
+            return side;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        /** Aggregated size of all orders at this price. */
+        public BigDecimal getSize() {
+            return size;
+        }
+
+        public int getOrderCount() {
+            return orderCount;
+        }
+
+        /** Orders in time priority. */
+        public List<OrderNode> getOrders() {
+            List<OrderNode> orders = new ArrayList<>(orderCount);
+            for (OrderNode node = head; node != null; node = node.next) {
+                orders.add(node);
+            }
+            return orders;
+        }
+
+        private void append(OrderNode node) {
+            node.level = this;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size = size.add(node.size);
+            orderCount++;
+        }
+
+        private void unlink(OrderNode node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            size = size.subtract(node.size);
+            orderCount--;
+        }
+
+        private void reset() {
+            side = null;
+            price = null;
+            size = BigDecimal.ZERO;
+            orderCount = 0;
+            head = null;
+            tail = null;
+        }
+    }
+
+    public void add(String orderId, OrderType side, BigDecimal price, BigDecimal size) {
+        remove(orderId);
+        OrderNode node = newNode(size);
+        node.id = orderId;
+        ordersById.put(orderId, node);
+        append(level(side, price), node);
+    }
+
+    public void add(long orderId, OrderType side, BigDecimal price, BigDecimal size) {
+        remove(orderId);
+        OrderNode node = newNode(size);
+        node.numericId = orderId;
+        ordersByNumericId.put(orderId, node);
+        append(level(side, price), node);
+    }
+
+    /**
+     * Adds the order, or changes it if it is already in the book. A changed price sends the order to the back of
+     * the new level's queue, a changed size keeps its position.
+     */
+    public void update(long orderId, OrderType side, BigDecimal price, BigDecimal size) {
+        OrderNode node = ordersByNumericId.get(orderId);
+        if (node != null && node.level.side == side && node.level.price.compareTo(price) == 0) {
+            changeSize(node, size);
+        } else {
+            add(orderId, side, price, size);
+        }
+    }
+
+    /**
+     * Sets the remaining size of an order, keeping its queue position.
+     *
+     * @return false if the order is not in the book.
+     */
+    public boolean change(String orderId, BigDecimal newSize) {
+        OrderNode node = ordersById.get(orderId);
+        if (node == null) {
+            return false;
+        }
+        changeSize(node, newSize);
+        return true;
+    }
+
+    public boolean change(long orderId, BigDecimal newSize) {
+        OrderNode node = ordersByNumericId.get(orderId);
+        if (node == null) {
+            return false;
+        }
+        changeSize(node, newSize);
+        return true;
+    }
+
+    /**
+     * Reduces the remaining size of an order by a filled amount. The order is removed when nothing remains.
+     *
+     * @return false if the order is not in the book.
+     */
+    public boolean fill(String orderId, BigDecimal filled) {
+        OrderNode node = ordersById.get(orderId);
+        if (node == null) {
+            return false;
+        }
+        BigDecimal remaining = node.size.subtract(filled);
+        if (remaining.signum() <= 0) {
+            remove(orderId);
+        } else {
+            changeSize(node, remaining);
+        }
+        return true;
+    }
+
+    public boolean remove(String orderId) {
+        OrderNode node = ordersById.remove(orderId);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    public boolean remove(long orderId) {
+        OrderNode node = ordersByNumericId.remove(orderId);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Removes all orders, e.g. before loading a new snapshot. Nodes are returned to the pools.
+     */
+    public void clear() {
+        recycleSide(bids);
+        recycleSide(asks);
+        ordersById.clear();
+        ordersByNumericId.clear();
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onBookCleared();
+        }
+    }
+
+    /**
+     * Registers a listener of aggregated level changes, see {@link OrderBookListener}.
+     */
+    public void addListener(OrderBookListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(OrderBookListener listener) {
+        listeners.remove(listener);
+    }
+
+    public OrderNode getOrder(String orderId) {
+        return ordersById.get(orderId);
+    }
+
+    public OrderNode getOrder(long orderId) {
+        return ordersByNumericId.get(orderId);
+    }
+
+    /**
+     * @return the size queued before the order at its price level, or null if the order is not in the book.
+     */
+    public BigDecimal getSizeAhead(String orderId) {
+        return sizeAhead(ordersById.get(orderId));
+    }
+
+    public BigDecimal getSizeAhead(long orderId) {
+        return sizeAhead(ordersByNumericId.get(orderId));
+    }
+
+    /**
+     * @return the number of orders queued before the order at its price level, or -1 if the order is not in the book.
+     */
+    public int getOrdersAhead(String orderId) {
+        return ordersAhead(ordersById.get(orderId));
+    }
+
+    public int getOrdersAhead(long orderId) {
+        return ordersAhead(ordersByNumericId.get(orderId));
+    }
+
+    public int getOrderCount() {
+        return ordersById.size() + ordersByNumericId.size();
+    }
+
+    /** Levels from the best price outwards. */
+    public Collection<PriceLevel> getLevels(OrderType side) {
+        return Collections.unmodifiableCollection(levels(side).values());
+    }
+
+    public PriceLevel getLevel(OrderType side, BigDecimal price) {
+        return levels(side).get(price);
+    }
+
+    public PriceLevel getBestBid() {
+        Map.Entry<BigDecimal, PriceLevel> best = bids.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    public PriceLevel getBestAsk() {
+        Map.Entry<BigDecimal, PriceLevel> best = asks.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Aggregated view of the book.
+     *
+     * @param maxDepth Maximum number of levels per side, 0 for all.
+     */
+    public OrderBook toOrderBook(CurrencyPair currencyPair, int maxDepth) {
+        return new OrderBook(timestamp,
+                toLimitOrders(OrderType.ASK, currencyPair, maxDepth),
+                toLimitOrders(OrderType.BID, currencyPair, maxDepth));
+    }
+
+    public OrderBook toOrderBook(CurrencyPair currencyPair) {
+        return toOrderBook(currencyPair, 0);
+    }
+
+    private List<LimitOrder> toLimitOrders(OrderType side, CurrencyPair currencyPair, int maxDepth) {
+        NavigableMap<BigDecimal, PriceLevel> levels = levels(side);
+        int depth = maxDepth > 0 ? Math.min(maxDepth, levels.size()) : levels.size();
+        List<LimitOrder> orders = new ArrayList<>(depth);
+        for (PriceLevel level : levels.values()) {
+            if (orders.size() == depth) {
+                break;
+            }
+            orders.add(new LimitOrder(side, level.size, currencyPair, null, timestamp, level.price));
+        }
+        return orders;
+    }
+
+    private NavigableMap<BigDecimal, PriceLevel> levels(OrderType side) {
+        return side == OrderType.BID || side == OrderType.EXIT_ASK ? bids : asks;
+    }
+
+    private PriceLevel level(OrderType side, BigDecimal price) {
+        NavigableMap<BigDecimal, PriceLevel> levels = levels(side);
+        PriceLevel level = levels.get(price);
+        if (level == null) {
+            level = levelPool.isEmpty() ? new PriceLevel() : levelPool.pollFirst();
+            level.side = side;
+            level.price = price;
+            levels.put(price, level);
+        }
+        return level;
+    }
+
+    private OrderNode newNode(BigDecimal size) {
+        OrderNode node = orderPool.isEmpty() ? new OrderNode() : orderPool.pollFirst();
+        node.size = size;
+        return node;
+    }
+
+    private void changeSize(OrderNode node, BigDecimal newSize) {
+        PriceLevel level = node.level;
+        level.size = level.size.subtract(node.size).add(newSize);
+        node.size = newSize;
+        fireLevelChanged(level.side, level.price, level.size);
+    }
+
+    private void append(PriceLevel level, OrderNode node) {
+        level.append(node);
+        fireLevelChanged(level.side, level.price, level.size);
+    }
+
+    private void unlink(OrderNode node) {
+        PriceLevel level = node.level;
+        level.unlink(node);
+        if (level.orderCount == 0) {
+            fireLevelChanged(level.side, level.price, BigDecimal.ZERO);
+            levels(level.side).remove(level.price);
+            level.reset();
+            levelPool.addFirst(level);
+        } else {
+            fireLevelChanged(level.side, level.price, level.size);
+        }
+        node.reset();
+        orderPool.addFirst(node);
+    }
+
+    private void fireLevelChanged(OrderType side, BigDecimal price, BigDecimal size) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onLevelChanged(side, price, size);
+        }
+    }
+
+    private void recycleSide(NavigableMap<BigDecimal, PriceLevel> levels) {
+        for (PriceLevel level : levels.values()) {
+            OrderNode node = level.head;
+            while (node != null) {
+                OrderNode next = node.next;
+                node.reset();
+                orderPool.addFirst(node);
+                node = next;
+            }
+            level.reset();
+            levelPool.addFirst(level);
+        }
+        levels.clear();
+    }
+
+    private static BigDecimal sizeAhead(OrderNode node) {
+        if (node == null) {
+            return null;
+        }
+        BigDecimal ahead = BigDecimal.ZERO;
+        for (OrderNode current = node.level.head; current != node; current = current.next) {
+            ahead = ahead.add(current.size);
+        }
+        return ahead;
+    }
+
+    private static int ordersAhead(OrderNode node) {
+        if (node == null) {
+            return -1;
+        }
+        int ahead = 0;
+        for (OrderNode current = node.level.head; current != node; current = current.next) {
+            ahead++;
+        }
+        return ahead;
+    }
+}
@@ -0,0 +1,270 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import io.reactivex.Observable;
+import org.knowm.xchange.dto.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Order book statistics maintained from level changes of a local book.
+ * <p>
+ * The size of the best {@code depthLevels} levels of each side is kept as a running sum together with the price of
+ * the last level it covers, so a level change costs O(log n) and the depth, imbalance and microprice are read in
+ * constant time. Size within a band around the mid and the cost to fill a quantity depend on the query, they walk
+ * only the levels inside the band or needed for the fill.
+ * <p>
+ * Attach it with {@link #attach(L3OrderBook, int)} or {@link #attach(ConsolidatedOrderBook, int)}, or feed it as an
+ * {@link OrderBookListener} of another book. {@link #metrics(Observable)} turns the book's update stream into a
+ * stream of {@link OrderBookMetrics}.
+ */
+public class OrderBookAnalytics implements OrderBookListener {
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal BPS = BigDecimal.valueOf(10000);
+
+    private final int depthLevels;
+    private final Side bids = new Side(Collections.reverseOrder());
+    private final Side asks = new Side(Comparator.naturalOrder());
+
+    private final class Side {
+        final Comparator<BigDecimal> order;
+        final NavigableMap<BigDecimal, BigDecimal> levels;
+        /** Size of the best depthLevels levels. */
+        BigDecimal topSize = BigDecimal.ZERO;
+        /** Price of the depthLevels-th level, null while the side has at most depthLevels levels. */
+        BigDecimal boundary;
+
+        Side(Comparator<BigDecimal> order) {
+            this.order = order;
+            this.levels = new TreeMap<>(order);
+        }
+
+        void update(BigDecimal price, BigDecimal size) {
+            BigDecimal previous = levels.get(price);
+            if (size.signum() == 0) {
+                if (previous != null) {
+                    remove(price, previous);
+                }
+            } else if (previous == null) {
+                insert(price, size);
+            } else {
+                levels.put(price, size);
+                if (boundary == null || order.compare(price, boundary) <= 0) {
+                    topSize = topSize.add(size).subtract(previous);
+                }
+            }
+        }
+
+        private void insert(BigDecimal price, BigDecimal size) {
+            levels.put(price, size);
+            if (boundary == null) {
+                topSize = topSize.add(size);
+                if (levels.size() > depthLevels) {
+                    BigDecimal worst = levels.lastKey();
+                    topSize = topSize.subtract(levels.get(worst));
+                    boundary = levels.lowerKey(worst);
+                }
+            } else if (order.compare(price, boundary) < 0) {
+                // the new level pushes the boundary level out of the top
+                topSize = topSize.add(size).subtract(levels.get(boundary));
+                boundary = levels.lowerKey(boundary);
+            }
+        }
+
+        private void remove(BigDecimal price, BigDecimal size) {
+            if (boundary == null) {
+                levels.remove(price);
+                topSize = topSize.subtract(size);
+            } else if (order.compare(price, boundary) <= 0) {
+                // the next level behind the boundary moves into the top
+                BigDecimal next = levels.higherKey(boundary);
+                topSize = topSize.subtract(size).add(levels.get(next));
+                levels.remove(price);
+                boundary = levels.size() > depthLevels ? next : null;
+            } else {
+                levels.remove(price);
+                if (levels.size() <= depthLevels) {
+                    boundary = null;
+                }
+            }
+        }
+
+        void clear() {
+            levels.clear();
+            topSize = BigDecimal.ZERO;
+            boundary = null;
+        }
+    }
+
+    /**
+     * @param depthLevels Number of levels per side summed by {@link #getDepth(OrderType)}.
+     */
+    public OrderBookAnalytics(int depthLevels) {
+        if (depthLevels < 1) {
+            throw new IllegalArgumentException("depthLevels must be positive");
+        }
+        this.depthLevels = depthLevels;
+    }
+
+    public static OrderBookAnalytics attach(L3OrderBook book, int depthLevels) {
+        OrderBookAnalytics analytics = new OrderBookAnalytics(depthLevels);
+        synchronized (book) {
+            for (L3OrderBook.PriceLevel level : book.getLevels(OrderType.BID)) {
+                analytics.onLevelChanged(OrderType.BID, level.getPrice(), level.getSize());
+            }
+            for (L3OrderBook.PriceLevel level : book.getLevels(OrderType.ASK)) {
+                analytics.onLevelChanged(OrderType.ASK, level.getPrice(), level.getSize());
+            }
+            book.addListener(analytics);
+        }
+        return analytics;
+    }
+
+    public static OrderBookAnalytics attach(ConsolidatedOrderBook book, int depthLevels) {
+        OrderBookAnalytics analytics = new OrderBookAnalytics(depthLevels);
+        synchronized (book) {
+            for (ConsolidatedOrderBook.Level level : book.getLevels(OrderType.BID)) {
+                analytics.onLevelChanged(OrderType.BID, level.getPrice(), level.getSize());
+            }
+            for (ConsolidatedOrderBook.Level level : book.getLevels(OrderType.ASK)) {
+                analytics.onLevelChanged(OrderType.ASK, level.getPrice(), level.getSize());
+            }
+            book.addListener(analytics);
+        }
+        return analytics;
+    }
+
+    @Override
+    public synchronized void onLevelChanged(OrderType side, BigDecimal price, BigDecimal size) {
+        side(side).update(price, size);
+    }
+
+    @Override
+    public synchronized void onBookCleared() {
+        bids.clear();
+        asks.clear();
+    }
+
+    /**
+     * Maps every update of the book to the current metrics.
+     *
+     * @param updates Update stream of the book this is attached to, e.g. {@code getOrderBookL3}.
+     */
+    public Observable<OrderBookMetrics> metrics(Observable<?> updates) {
+        return updates.map(update -> getMetrics());
+    }
+
+    public synchronized OrderBookMetrics getMetrics() {
+        return new OrderBookMetrics(getBestBid(), getBestAsk(), getMidPrice(), getMicroPrice(),
+                bids.topSize, asks.topSize, getImbalance());
+    }
+
+    public synchronized BigDecimal getBestBid() {
+        return bids.levels.isEmpty() ? null : bids.levels.firstKey();
+    }
+
+    public synchronized BigDecimal getBestAsk() {
+        return asks.levels.isEmpty() ? null : asks.levels.firstKey();
+    }
+
+    public synchronized BigDecimal getMidPrice() {
+        if (bids.levels.isEmpty() || asks.levels.isEmpty()) {
+            return null;
+        }
+        return bids.levels.firstKey().add(asks.levels.firstKey()).divide(TWO, MATH_CONTEXT);
+    }
+
+    /**
+     * Mid price weighted by the size on the opposite side of the top of book:
+     * {@code (bid * askSize + ask * bidSize) / (bidSize + askSize)}.
+     */
+    public synchronized BigDecimal getMicroPrice() {
+        Map.Entry<BigDecimal, BigDecimal> bid = bids.levels.firstEntry();
+        Map.Entry<BigDecimal, BigDecimal> ask = asks.levels.firstEntry();
+        if (bid == null || ask == null) {
+            return null;
+        }
+        return bid.getKey().multiply(ask.getValue())
+                .add(ask.getKey().multiply(bid.getValue()))
+                .divide(bid.getValue().add(ask.getValue()), MATH_CONTEXT);
+    }
+
+    /**
+     * @return the size of the best {@code depthLevels} levels of the side.
+     */
+    public synchronized BigDecimal getDepth(OrderType side) {
+        return side(side).topSize;
+    }
+
+    /**
+     * @return {@code (bidDepth - askDepth) / (bidDepth + askDepth)} over the best {@code depthLevels} levels, between
+     * -1 and 1, or null for an empty book.
+     */
+    public synchronized BigDecimal getImbalance() {
+        BigDecimal total = bids.topSize.add(asks.topSize);
+        if (total.signum() == 0) {
+            return null;
+        }
+        return bids.topSize.subtract(asks.topSize).divide(total, MATH_CONTEXT);
+    }
+
+    /**
+     * @return the size of the side priced within {@code bps} basis points of the mid price, zero without a mid.
+     */
+    public synchronized BigDecimal getDepthWithin(OrderType side, BigDecimal bps) {
+        BigDecimal mid = getMidPrice();
+        if (mid == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal offset = mid.multiply(bps).divide(BPS, MATH_CONTEXT);
+        BigDecimal limit = side == OrderType.BID ? mid.subtract(offset) : mid.add(offset);
+        Side levels = side(side);
+        BigDecimal size = BigDecimal.ZERO;
+        for (Map.Entry<BigDecimal, BigDecimal> level : levels.levels.entrySet()) {
+            if (levels.order.compare(level.getKey(), limit) > 0) {
+                break;
+            }
+            size = size.add(level.getValue());
+        }
+        return size;
+    }
+
+    /**
+     * Notional of filling a market order against the book, a buy ({@link OrderType#BID}) walks the asks and a sell
+     * ({@link OrderType#ASK}) the bids.
+     *
+     * @return the cost, or null if the book is not deep enough.
+     */
+    public synchronized BigDecimal getCostToFill(OrderType orderSide, BigDecimal quantity) {
+        Side levels = orderSide == OrderType.BID ? asks : bids;
+        BigDecimal remaining = quantity;
+        BigDecimal cost = BigDecimal.ZERO;
+        for (Map.Entry<BigDecimal, BigDecimal> level : levels.levels.entrySet()) {
+            BigDecimal filled = remaining.min(level.getValue());
+            cost = cost.add(filled.multiply(level.getKey()));
+            remaining = remaining.subtract(filled);
+            if (remaining.signum() == 0) {
+                return cost;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the average price of filling the quantity, see {@link #getCostToFill(OrderType, BigDecimal)}.
+     */
+    public synchronized BigDecimal getVwapToFill(OrderType orderSide, BigDecimal quantity) {
+        BigDecimal cost = getCostToFill(orderSide, quantity);
+        return cost == null ? null : cost.divide(quantity, MATH_CONTEXT);
+    }
+
+    private Side side(OrderType side) {
+        return side == OrderType.BID ? bids : asks;
+    }
+}
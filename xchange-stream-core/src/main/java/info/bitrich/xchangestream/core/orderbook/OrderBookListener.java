@@ -0,0 +1,27 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import org.knowm.xchange.dto.Order.OrderType;
+
+import java.math.BigDecimal;
+
+/**
+ * Receives the aggregated level changes of a local order book ({@link L3OrderBook}, {@link ConsolidatedOrderBook}),
+ * so derived values can be maintained from the deltas instead of walking the whole book after every update.
+ * <p>
+ * Called while the book's monitor is held, implementations must be quick and must not call back into the book.
+ */
+public interface OrderBookListener {
+
+    /**
+     * @param side  {@link OrderType#BID} or {@link OrderType#ASK}.
+     * @param price Price of the changed level.
+     * @param size  New aggregated size at the price, zero if the level was removed.
+     */
+    void onLevelChanged(OrderType side, BigDecimal price, BigDecimal size);
+
+    /**
+     * All levels were removed, e.g. before a new snapshot is loaded.
+     */
+    default void onBookCleared() {
+    }
+}
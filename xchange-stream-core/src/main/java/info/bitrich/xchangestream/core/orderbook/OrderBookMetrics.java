@@ -0,0 +1,70 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import java.math.BigDecimal;
+
+/**
+ * Snapshot of the values maintained by {@link OrderBookAnalytics}. Prices are null while a side is empty.
+ */
+public class OrderBookMetrics {
+    private final BigDecimal bestBid;
+    private final BigDecimal bestAsk;
+    private final BigDecimal midPrice;
+    private final BigDecimal microPrice;
+    private final BigDecimal bidDepth;
+    private final BigDecimal askDepth;
+    private final BigDecimal imbalance;
+
+    public OrderBookMetrics(BigDecimal bestBid, BigDecimal bestAsk, BigDecimal midPrice, BigDecimal microPrice,
+                            BigDecimal bidDepth, BigDecimal askDepth, BigDecimal imbalance) {
+        this.bestBid = bestBid;
+        this.bestAsk = bestAsk;
+        this.midPrice = midPrice;
+        this.microPrice = microPrice;
+        this.bidDepth = bidDepth;
+        this.askDepth = askDepth;
+        this.imbalance = imbalance;
+    }
+
+    public BigDecimal getBestBid() {
+        return bestBid;
+    }
+
+    public BigDecimal getBestAsk() {
+        return bestAsk;
+    }
+
+    public BigDecimal getMidPrice() {
+        return midPrice;
+    }
+
+    public BigDecimal getMicroPrice() {
+        return microPrice;
+    }
+
+    /** Size of the best levels of the bid side. */
+    public BigDecimal getBidDepth() {
+        return bidDepth;
+    }
+
+    /** Size of the best levels of the ask side. */
+    public BigDecimal getAskDepth() {
+        return askDepth;
+    }
+
+    public BigDecimal getImbalance() {
+        return imbalance;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderBookMetrics{" +
+                "bestBid=" + bestBid +
+                ", bestAsk=" + bestAsk +
+                ", midPrice=" + midPrice +
+                ", microPrice=" + microPrice +
+                ", bidDepth=" + bidDepth +
+                ", askDepth=" + askDepth +
+                ", imbalance=" + imbalance +
+                '}';
+    }
+}
@@ -0,0 +1,273 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import info.bitrich.xchangestream.core.orderbook.SequenceStrategy.Alignment;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a local order book in line with the exchange's sequence of updates.
+ * <p>
+ * Until a snapshot is installed, and whenever a gap in the sequence is detected, updates are buffered and a new
+ * snapshot is requested from the snapshot requester. The requester obtains it (REST call, resubscription, ...)
+ * and hands it over via {@link #onSnapshot(long, Runnable)}, which may happen synchronously or from any other
+ * thread. Buffered updates newer than the snapshot are then replayed and the book resumes normal operation.
+ * <p>
+ * A requester which can't fetch a snapshot right now, e.g. while backing off, postpones it with
+ * {@link #retrySnapshot(long, TimeUnit)}, the sequencer then requests it once more after the delay.
+ * <p>
+ * All methods are thread safe. The applier and the snapshot installer are always invoked while holding the
+ * sequencer's monitor, so the book they mutate is never touched concurrently by the sequencer.
+ *
+ * @param <U> Type of the update message.
+ */
+public class OrderBookSequencer<U> {
+    private static final Logger LOG = LoggerFactory.getLogger(OrderBookSequencer.class);
+
+    public static final int DEFAULT_MAX_BUFFERED_UPDATES = 10000;
+
+    private final String name;
+    private final SequenceStrategy<U> strategy;
+    private final Consumer<U> applier;
+    private final Runnable snapshotRequester;
+    private final int maxBufferedUpdates;
+    private final Scheduler retryScheduler;
+
+    private final Deque<U> buffer = new ArrayDeque<>();
+    private long lastSequence;
+    private boolean synced;
+    private boolean firstAfterSnapshot;
+    private boolean snapshotRequested;
+    private boolean retryScheduled;
+    private Disposable retry;
+
+    private long gapCount;
+    private long resyncCount;
+    private long staleCount;
+    private long overflowCount;
+
+    /**
+     * @param name              Used in log messages, e.g. "Binance BTC/USDT".
+     * @param strategy          Sequence semantics of the exchange.
+     * @param applier           Applies an in-sequence update to the local book.
+     * @param snapshotRequester Starts fetching a new snapshot, which has to be delivered with
+     *                          {@link #onSnapshot(long, Runnable)} or reported with {@link #snapshotFailed()}.
+     */
+    public OrderBookSequencer(String name, SequenceStrategy<U> strategy, Consumer<U> applier,
+                              Runnable snapshotRequester) {
+        this(name, strategy, applier, snapshotRequester, DEFAULT_MAX_BUFFERED_UPDATES);
+    }
+
+    public OrderBookSequencer(String name, SequenceStrategy<U> strategy, Consumer<U> applier,
+                              Runnable snapshotRequester, int maxBufferedUpdates) {
+        this(name, strategy, applier, snapshotRequester, maxBufferedUpdates, Schedulers.computation());
+    }
+
+    /**
+     * @param retryScheduler Runs the snapshot requests postponed with {@link #retrySnapshot(long, TimeUnit)}.
+     */
+    public OrderBookSequencer(String name, SequenceStrategy<U> strategy, Consumer<U> applier,
+                              Runnable snapshotRequester, int maxBufferedUpdates, Scheduler retryScheduler) {
+        this.name = name;
+        this.strategy = strategy;
+        this.applier = applier;
+        this.snapshotRequester = snapshotRequester;
+        this.maxBufferedUpdates = maxBufferedUpdates;
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * Handles an update received from the exchange.
+     *
+     * @return true if the local book is in sync and contains the update, i.e. it should be emitted.
+     */
+    public synchronized boolean onUpdate(U update) {
+        if (!synced) {
+            bufferUpdate(update);
+            requestSnapshot();
+            return synced;
+        }
+
+        switch (strategy.align(lastSequence, update, firstAfterSnapshot)) {
+            case STALE:
+                staleCount++;
+                return false;
+            case IN_SEQUENCE:
+                apply(update);
+                return true;
+            default:
+                gapCount++;
+                LOG.info("{} order book: sequence gap after {}, resynchronizing.", name, lastSequence);
+                synced = false;
+                bufferUpdate(update);
+                requestSnapshot();
+                return synced;
+        }
+    }
+
+    /**
+     * Installs a snapshot and replays the buffered updates on top of it.
+     *
+     * @param sequence  Sequence (or last update id) the snapshot is at.
+     * @param installer Replaces the local book with the snapshot.
+     * @return true if the book is in sync afterwards.
+     */
+    public synchronized boolean onSnapshot(long sequence, Runnable installer) {
+        installer.run();
+        lastSequence = sequence;
+        firstAfterSnapshot = true;
+        synced = true;
+        snapshotRequested = false;
+        cancelRetry();
+
+        while (!buffer.isEmpty()) {
+            U update = buffer.peekFirst();
+            Alignment alignment = strategy.align(lastSequence, update, firstAfterSnapshot);
+            if (alignment == Alignment.GAP) {
+                LOG.info("{} order book: snapshot {} does not line up with buffered updates, resynchronizing.",
+                        name, sequence);
+                synced = false;
+                requestSnapshot();
+                return synced;
+            }
+            buffer.pollFirst();
+            if (alignment == Alignment.STALE) {
+                staleCount++;
+            } else {
+                apply(update);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports that the requested snapshot could not be obtained. The next update requests it again.
+     */
+    public synchronized void snapshotFailed() {
+        snapshotRequested = false;
+    }
+
+    /**
+     * Reports that the requested snapshot can't be fetched yet. It is requested once more after the delay, the
+     * updates received meanwhile are buffered without requesting it again. A postponed request isn't counted as a
+     * resync.
+     */
+    public synchronized void retrySnapshot(long delay, TimeUnit unit) {
+        cancelRetry();
+        snapshotRequested = true;
+        retryScheduled = true;
+        retry = retryScheduler.scheduleDirect(this::retryNow, delay, unit);
+    }
+
+    private synchronized void retryNow() {
+        retry = null;
+        snapshotRequested = false;
+        if (!synced) {
+            requestSnapshot();
+        }
+    }
+
+    private void cancelRetry() {
+        if (retry != null) {
+            retry.dispose();
+            retry = null;
+        }
+    }
+
+    /**
+     * Marks a snapshot as already being on its way (e.g. sent automatically after subscribing), so the first
+     * updates don't trigger another request.
+     */
+    public synchronized void expectSnapshot() {
+        snapshotRequested = true;
+    }
+
+    /**
+     * Drops the local state, e.g. after a reconnect. Updates are buffered until the next snapshot.
+     */
+    public synchronized void reset() {
+        synced = false;
+        snapshotRequested = false;
+        cancelRetry();
+        buffer.clear();
+    }
+
+    public synchronized boolean isSynced() {
+        return synced;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /** Number of detected sequence gaps. */
+    public synchronized long getGapCount() {
+        return gapCount;
+    }
+
+    /** Number of snapshot requests the requester started, including the initial one. */
+    public synchronized long getResyncCount() {
+        return resyncCount;
+    }
+
+    /** Number of dropped updates which were already contained in the book. */
+    public synchronized long getStaleCount() {
+        return staleCount;
+    }
+
+    /** Number of updates dropped because the buffer was full while waiting for a snapshot. */
+    public synchronized long getOverflowCount() {
+        return overflowCount;
+    }
+
+    public synchronized int getBufferedCount() {
+        return buffer.size();
+    }
+
+    private void apply(U update) {
+        applier.accept(update);
+        lastSequence = strategy.lastSequence(update);
+        firstAfterSnapshot = false;
+    }
+
+    private void bufferUpdate(U update) {
+        if (buffer.size() >= maxBufferedUpdates) {
+            buffer.pollFirst();
+            overflowCount++;
+        }
+        buffer.addLast(update);
+    }
+
+    private void requestSnapshot() {
+        if (snapshotRequested) {
+            return;
+        }
+        snapshotRequested = true;
+        retryScheduled = false;
+        snapshotRequester.run();
+        if (!retryScheduled) {
+            resyncCount++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "OrderBookSequencer{" +
+                "name='" + name + '\'' +
+                ", synced=" + synced +
+                ", lastSequence=" + lastSequence +
+                ", buffered=" + buffer.size() +
+                ", gaps=" + gapCount +
+                ", resyncs=" + resyncCount +
+                ", stale=" + staleCount +
+                ", overflows=" + overflowCount +
+                '}';
+    }
+}
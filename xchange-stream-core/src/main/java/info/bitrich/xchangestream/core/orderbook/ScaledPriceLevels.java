@@ -0,0 +1,108 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * One side of a price level book with prices and sizes held as scaled longs, see
+ * {@link info.bitrich.xchangestream.core.util.ScaledDecimal}.
+ * <p>
+ * The levels are kept in two sorted primitive arrays, best price first, so updating a level neither boxes nor
+ * allocates once the arrays have grown to the depth of the book. Not thread safe.
+ */
+public final class ScaledPriceLevels {
+    private final boolean descending;
+    private long[] prices = new long[16];
+    private long[] sizes = new long[16];
+    private int count;
+
+    /**
+     * @param descending true for bids (highest price first), false for asks.
+     */
+    public ScaledPriceLevels(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * Sets the size of a level, a size of 0 removes it.
+     */
+    public void set(long price, long size) {
+        int index = indexOf(price);
+        if (index >= 0) {
+            if (size == 0) {
+                System.arraycopy(prices, index + 1, prices, index, count - index - 1);
+                System.arraycopy(sizes, index + 1, sizes, index, count - index - 1);
+                count--;
+            } else {
+                sizes[index] = size;
+            }
+        } else if (size != 0) {
+            index = -index - 1;
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            System.arraycopy(prices, index, prices, index + 1, count - index);
+            System.arraycopy(sizes, index, sizes, index + 1, count - index);
+            prices[index] = price;
+            sizes[index] = size;
+            count++;
+        }
+    }
+
+    /**
+     * @return size at the price, 0 if there's no such level.
+     */
+    public long getSize(long price) {
+        int index = indexOf(price);
+        return index >= 0 ? sizes[index] : 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * @param index 0 for the best level.
+     */
+    public long priceAt(int index) {
+        checkIndex(index);
+        return prices[index];
+    }
+
+    public long sizeAt(int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    private int indexOf(long price) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middlePrice = prices[middle];
+            int compare = descending ? Long.compare(price, middlePrice) : Long.compare(middlePrice, price);
+            if (compare > 0) {
+                high = middle - 1;
+            } else if (compare < 0) {
+                low = middle + 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + count);
+        }
+    }
+}
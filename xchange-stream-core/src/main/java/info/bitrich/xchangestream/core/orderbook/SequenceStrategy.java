@@ -0,0 +1,93 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Sequence semantics of an exchange's order book updates, used by {@link OrderBookSequencer}.
+ *
+ * @param <U> Type of the update message.
+ */
+public interface SequenceStrategy<U> {
+
+    enum Alignment {
+        /** Already contained in the book, drop it. */
+        STALE,
+        /** Directly follows the last applied update, apply it. */
+        IN_SEQUENCE,
+        /** One or more updates were missed, the book has to be resynchronized. */
+        GAP
+    }
+
+    /**
+     * @param lastSequence       Sequence of the last applied update or of the snapshot.
+     * @param update             Update to check.
+     * @param firstAfterSnapshot True for the first update applied on top of a fresh snapshot.
+     */
+    Alignment align(long lastSequence, U update, boolean firstAfterSnapshot);
+
+    /**
+     * @return the sequence the book is at after applying the update.
+     */
+    long lastSequence(U update);
+
+    /**
+     * Every update carries a sequence exactly one greater than the previous one (GDAX full channel, ...).
+     */
+    static <U> SequenceStrategy<U> strict(ToLongFunction<U> sequence) {
+        return new SequenceStrategy<U>() {
+            @Override
+            public Alignment align(long lastSequence, U update, boolean firstAfterSnapshot) {
+                long current = sequence.applyAsLong(update);
+                if (current <= lastSequence) {
+                    return Alignment.STALE;
+                }
+                return current == lastSequence + 1 ? Alignment.IN_SEQUENCE : Alignment.GAP;
+            }
+
+            @Override
+            public long lastSequence(U update) {
+                return sequence.applyAsLong(update);
+            }
+        };
+    }
+
+    /**
+     * Every update covers a range of ids {@code first..last} (Binance {@code U..u}). The first update after a
+     * snapshot has to contain the id following the snapshot, every other has to start right after the previous one.
+     */
+    static <U> SequenceStrategy<U> range(ToLongFunction<U> first, ToLongFunction<U> last) {
+        return new SequenceStrategy<U>() {
+            @Override
+            public Alignment align(long lastSequence, U update, boolean firstAfterSnapshot) {
+                if (last.applyAsLong(update) <= lastSequence) {
+                    return Alignment.STALE;
+                }
+                long firstId = first.applyAsLong(update);
+                boolean aligned = firstAfterSnapshot ? firstId <= lastSequence + 1 : firstId == lastSequence + 1;
+                return aligned ? Alignment.IN_SEQUENCE : Alignment.GAP;
+            }
+
+            @Override
+            public long lastSequence(U update) {
+                return last.applyAsLong(update);
+            }
+        };
+    }
+
+    /**
+     * Sequences only grow, but not necessarily by one. Gaps can't be detected, older updates are dropped.
+     */
+    static <U> SequenceStrategy<U> monotonic(ToLongFunction<U> sequence) {
+        return new SequenceStrategy<U>() {
+            @Override
+            public Alignment align(long lastSequence, U update, boolean firstAfterSnapshot) {
+                return sequence.applyAsLong(update) <= lastSequence ? Alignment.STALE : Alignment.IN_SEQUENCE;
+            }
+
+            @Override
+            public long lastSequence(U update) {
+                return sequence.applyAsLong(update);
+            }
+        };
+    }
+}
@@ -0,0 +1,165 @@
+package info.bitrich.xchangestream.core.util;
+
+import java.util.Date;
+
+/**
+ * Parser of the ISO-8601 timestamps sent by the exchanges, e.g. {@code 2017-09-02T18:09:55.158000Z} (GDAX) or
+ * {@code 2017-11-13T22:55:57.000Z} (BitMEX).
+ * <p>
+ * Accepts {@code yyyy-MM-dd'T'HH:mm:ss}, optionally followed by up to nine fraction digits and by {@code Z},
+ * {@code +HH:mm}, {@code +HHmm} or {@code +HH}. A space is accepted instead of {@code T}, timestamps without an
+ * offset are UTC. The parser reads the characters in place, it neither allocates nor keeps state, so it's thread safe,
+ * unlike {@code SimpleDateFormat}.
+ */
+public final class Iso8601 {
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    private Iso8601() {
+    }
+
+    /**
+     * @return microseconds since the epoch, digits beyond the microsecond are truncated.
+     * @throws IllegalArgumentException if the text is not a supported timestamp.
+     */
+    public static long parseEpochMicros(CharSequence text) {
+        int length = text.length();
+        if (length < 19) {
+            throw invalid(text);
+        }
+        int year = digits(text, 0, 4);
+        expect(text, 4, '-');
+        int month = digits(text, 5, 2);
+        expect(text, 7, '-');
+        int day = digits(text, 8, 2);
+        char separator = text.charAt(10);
+        if (separator != 'T' && separator != 't' && separator != ' ') {
+            throw invalid(text);
+        }
+        int hour = digits(text, 11, 2);
+        expect(text, 13, ':');
+        int minute = digits(text, 14, 2);
+        expect(text, 16, ':');
+        int second = digits(text, 17, 2);
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 59) {
+            throw invalid(text);
+        }
+
+        int position = 19;
+        long micros = 0;
+        if (position < length && (text.charAt(position) == '.' || text.charAt(position) == ',')) {
+            position++;
+            int fractionDigits = 0;
+            while (position < length && isDigit(text.charAt(position))) {
+                if (fractionDigits < 6) {
+                    micros = micros * 10 + (text.charAt(position) - '0');
+                }
+                fractionDigits++;
+                position++;
+            }
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                throw invalid(text);
+            }
+            for (int i = fractionDigits; i < 6; i++) {
+                micros *= 10;
+            }
+        }
+
+        int offsetSeconds = 0;
+        if (position < length) {
+            char zone = text.charAt(position);
+            if ((zone == 'Z' || zone == 'z') && position + 1 == length) {
+                position++;
+            } else if (zone == '+' || zone == '-') {
+                int offsetHours = digits(text, position + 1, 2);
+                int offsetMinutes = 0;
+                position += 3;
+                if (position < length) {
+                    if (text.charAt(position) == ':') {
+                        position++;
+                    }
+                    offsetMinutes = digits(text, position, 2);
+                    position += 2;
+                }
+                if (position != length || offsetHours > 18 || offsetMinutes > 59) {
+                    throw invalid(text);
+                }
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (zone == '-' ? -1 : 1);
+            } else {
+                throw invalid(text);
+            }
+        }
+
+        long epochSecond = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offsetSeconds;
+        return epochSecond * MICROS_PER_SECOND + micros;
+    }
+
+    /**
+     * @return milliseconds since the epoch, see {@link #parseEpochMicros(CharSequence)}.
+     */
+    public static long parseEpochMillis(CharSequence text) {
+        return Math.floorDiv(parseEpochMicros(text), 1000L);
+    }
+
+    /**
+     * @return the timestamp as a {@link Date}, or null for a null text.
+     */
+    public static Date parseDate(CharSequence text) {
+        return text == null ? null : new Date(parseEpochMillis(text));
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, see http://howardhinnant.github.io/date_algorithms.html
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static int digits(CharSequence text, int from, int count) {
+        if (from + count > text.length()) {
+            throw invalid(text);
+        }
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                throw invalid(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(CharSequence text, int position, char expected) {
+        if (text.charAt(position) != expected) {
+            throw invalid(text);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Unsupported ISO-8601 timestamp: " + text);
+    }
+}
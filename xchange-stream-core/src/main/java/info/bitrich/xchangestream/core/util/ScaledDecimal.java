@@ -0,0 +1,117 @@
+package info.bitrich.xchangestream.core.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Decimal numbers stored as a {@code long} count of {@code 10^-scale} units, e.g. {@code "6500.12"} at scale 8 is
+ * {@code 650012000000}.
+ * <p>
+ * {@link #parse(CharSequence, int)} reads the digits in place without allocating. A number which can not be stored
+ * without losing precision (more significant fraction digits than the scale, exponent notation, or too many digits
+ * for a {@code long}) is reported as {@link #NOT_REPRESENTABLE}, callers are expected to fall back to
+ * {@link BigDecimal} for it.
+ */
+public final class ScaledDecimal {
+    /**
+     * Returned by {@link #parse(CharSequence, int)} for numbers which don't fit the scale.
+     */
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private ScaledDecimal() {
+    }
+
+    /**
+     * @param text  Plain decimal number, optionally signed.
+     * @param scale Number of fraction digits kept, 0 to 18.
+     * @return the scaled value or {@link #NOT_REPRESENTABLE}.
+     * @throws NumberFormatException if the text is not a number.
+     */
+    public static long parse(CharSequence text, int scale) {
+        checkScale(scale);
+        int length = text.length();
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            position++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean representable = true;
+        for (; position < length; position++) {
+            char c = text.charAt(position);
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (c == 'e' || c == 'E') {
+                if (digits == 0) {
+                    break;
+                }
+                return NOT_REPRESENTABLE;
+            }
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a decimal number: " + text);
+            }
+            digits++;
+            int digit = c - '0';
+            if (fractionDigits >= 0 && ++fractionDigits > scale) {
+                representable &= digit == 0;
+                continue;
+            }
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                representable = false;
+                continue;
+            }
+            value = value * 10 + digit;
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a decimal number: " + text);
+        }
+        if (!representable) {
+            return NOT_REPRESENTABLE;
+        }
+
+        int missing = scale - Math.max(fractionDigits, 0);
+        if (missing > 0) {
+            if (value > Long.MAX_VALUE / POWERS_OF_TEN[missing]) {
+                return NOT_REPRESENTABLE;
+            }
+            value *= POWERS_OF_TEN[missing];
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return the scaled value of a {@link BigDecimal} or {@link #NOT_REPRESENTABLE}.
+     */
+    public static long valueOf(BigDecimal decimal, int scale) {
+        checkScale(scale);
+        try {
+            return decimal.setScale(scale).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return NOT_REPRESENTABLE;
+        }
+    }
+
+    public static BigDecimal toBigDecimal(long value, int scale) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    private static void checkScale(int scale) {
+        if (scale < 0 || scale >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + (POWERS_OF_TEN.length - 1) + ": " + scale);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConflationTest {
+
+    @Test
+    public void testWithoutConflationConvertsEveryValue() {
+        AtomicInteger conversions = new AtomicInteger();
+        PublishSubject<Integer> source = PublishSubject.create();
+
+        TestObserver<String> test = source
+                .compose(Conflation.apply(new Object[]{"100"}, value -> {
+                    conversions.incrementAndGet();
+                    return "v" + value;
+                }))
+                .test();
+
+        source.onNext(1);
+        source.onNext(2);
+        source.onNext(3);
+
+        test.assertValues("v1", "v2", "v3");
+        assertThat(conversions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testEveryNthConvertsOnlyEmittedValues() {
+        AtomicInteger conversions = new AtomicInteger();
+        PublishSubject<Integer> source = PublishSubject.create();
+
+        TestObserver<String> test = source
+                .compose(Conflation.apply(new Object[]{Conflation.everyNth(3)}, value -> {
+                    conversions.incrementAndGet();
+                    return "v" + value;
+                }))
+                .test();
+
+        for (int i = 1; i <= 7; i++) {
+            source.onNext(i);
+        }
+
+        test.assertValues("v1", "v4", "v7");
+        assertThat(conversions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testLatestEmitsLastValueOfEachPeriod() {
+        AtomicInteger conversions = new AtomicInteger();
+        TestScheduler scheduler = new TestScheduler();
+        PublishSubject<Integer> source = PublishSubject.create();
+
+        TestObserver<String> test = source
+                .compose(Conflation.latest(100, TimeUnit.MILLISECONDS, scheduler).transformer(value -> {
+                    conversions.incrementAndGet();
+                    return "v" + value;
+                }))
+                .test();
+
+        source.onNext(1);
+        source.onNext(2);
+        source.onNext(3);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        source.onNext(4);
+        source.onNext(5);
+        scheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+
+        test.assertValues("v1", "v3", "v5");
+        assertThat(conversions.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFromArgsIgnoresOtherArguments() {
+        Conflation conflation = Conflation.everyNth(2);
+
+        assertThat(Conflation.fromArgs()).isNull();
+        assertThat(Conflation.fromArgs("P0", 25)).isNull();
+        assertThat(Conflation.fromArgs("P0", conflation)).isSameAs(conflation);
+    }
+}
@@ -0,0 +1,115 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Test;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FanOutTableTest {
+
+    private final PublishSubject<String> source = PublishSubject.create();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    // values are "<key>:<value>"
+    private final FanOutTable<String, String> table = new FanOutTable<>(
+            source.doOnSubscribe(d -> subscriptions.incrementAndGet()),
+            value -> value.substring(0, value.indexOf(':')));
+
+    @Test
+    public void deliversValuesToSubscribersOfTheirKeyOnly() {
+        TestObserver<String> btc = table.observe("BTC").test();
+        TestObserver<String> eth = table.observe("ETH").test();
+
+        source.onNext("BTC:1");
+        source.onNext("LTC:1");
+        source.onNext("BTC:2");
+
+        btc.assertValues("BTC:1", "BTC:2");
+        eth.assertNoValues();
+        assertThat(subscriptions.get()).isEqualTo(1);
+        assertThat(table.values()).containsOnlyKeys("BTC", "LTC");
+    }
+
+    @Test
+    public void startsWithTheLatestValue() {
+        TestObserver<String> btc = table.observe("BTC").test();
+        source.onNext("LTC:1");
+        source.onNext("LTC:2");
+
+        TestObserver<String> ltc = table.observe("LTC").test();
+        source.onNext("LTC:3");
+
+        ltc.assertValues("LTC:2", "LTC:3");
+        assertThat(table.get("LTC")).isEqualTo("LTC:3");
+        btc.assertNoValues();
+    }
+
+    @Test
+    public void doesNotLoseValuesPublishedWhileSubscribing() throws Exception {
+        TestObserver<String> btc = table.observe("BTC").test();
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        for (int i = 0; i < 1000; i++) {
+            String value = "LTC:" + i;
+            Thread publisher = new Thread(() -> {
+                await(barrier);
+                source.onNext(value);
+            });
+            publisher.start();
+            await(barrier);
+            TestObserver<String> ltc = table.observe("LTC").test();
+            publisher.join();
+
+            assertThat(ltc.values()).last().isEqualTo(value);
+            ltc.dispose();
+        }
+        btc.assertNoValues();
+    }
+
+    @Test
+    public void disposesTheSourceWithTheLastSubscriber() {
+        TestObserver<String> btc = table.observe("BTC").test();
+        TestObserver<String> eth = table.observe("ETH").test();
+
+        btc.dispose();
+        assertThat(source.hasObservers()).isTrue();
+        eth.dispose();
+        assertThat(source.hasObservers()).isFalse();
+    }
+
+    @Test
+    public void doesNotReplayValuesOfThePreviousConnection() {
+        TestObserver<String> btc = table.observe("BTC").test();
+        source.onNext("BTC:1");
+        btc.dispose();
+
+        assertThat(table.get("BTC")).isNull();
+        assertThat(table.values()).isEmpty();
+
+        TestObserver<String> again = table.observe("BTC").test();
+        again.assertNoValues();
+        source.onNext("BTC:2");
+
+        again.assertValues("BTC:2");
+        assertThat(subscriptions.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void propagatesSourceErrors() {
+        TestObserver<String> btc = table.observe("BTC").test();
+
+        source.onError(new IllegalStateException("closed"));
+
+        btc.assertError(IllegalStateException.class);
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package info.bitrich.xchangestream.core;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedStreamsTest {
+
+    @Test
+    public void sharesOnePipelinePerKey() {
+        SharedStreams streams = new SharedStreams();
+        PublishSubject<Integer> source = PublishSubject.create();
+        AtomicInteger pipelines = new AtomicInteger();
+        AtomicInteger parsed = new AtomicInteger();
+
+        TestObserver<Integer> first = streams.get(SharedStreams.key("book", "BTC/USD", 25), () -> {
+            pipelines.incrementAndGet();
+            return source.doOnNext(value -> parsed.incrementAndGet());
+        }).test();
+        TestObserver<Integer> second = streams.<Integer>get(SharedStreams.key("book", "BTC/USD", 25), () -> {
+            pipelines.incrementAndGet();
+            return source;
+        }).test();
+
+        source.onNext(1);
+        source.onNext(2);
+
+        assertThat(pipelines.get()).isEqualTo(1);
+        assertThat(parsed.get()).isEqualTo(2);
+        first.assertValues(1, 2);
+        second.assertValues(1, 2);
+    }
+
+    @Test
+    public void replaysLatestValueToLateSubscribers() {
+        SharedStreams streams = new SharedStreams();
+        PublishSubject<Integer> source = PublishSubject.create();
+        Observable<Integer> stream = streams.get("book", () -> source);
+
+        TestObserver<Integer> first = stream.test();
+        source.onNext(1);
+        source.onNext(2);
+        TestObserver<Integer> late = streams.<Integer>get("book", () -> Observable.never()).test();
+        source.onNext(3);
+
+        first.assertValues(1, 2, 3);
+        late.assertValues(2, 3);
+    }
+
+    @Test
+    public void restartsPipelineAfterLastSubscriberLeaves() {
+        SharedStreams streams = new SharedStreams();
+        PublishSubject<Integer> source = PublishSubject.create();
+        AtomicInteger pipelines = new AtomicInteger();
+
+        Disposable first = streams.get("book", () -> {
+            pipelines.incrementAndGet();
+            return source;
+        }).subscribe();
+        source.onNext(1);
+        first.dispose();
+
+        assertThat(source.hasObservers()).isFalse();
+        assertThat(streams.size()).isZero();
+
+        TestObserver<Integer> second = streams.get("book", () -> {
+            pipelines.incrementAndGet();
+            return source;
+        }).test();
+        source.onNext(2);
+
+        assertThat(pipelines.get()).isEqualTo(2);
+        second.assertValues(2);
+    }
+
+    @Test
+    public void keepsStreamsOfDifferentKeysApart() {
+        SharedStreams streams = new SharedStreams();
+
+        TestObserver<String> bids = streams.get(SharedStreams.key("book", "BTC/USD", 25), () -> Observable.just("25")).test();
+        TestObserver<String> asks = streams.get(SharedStreams.key("book", "BTC/USD", 100), () -> Observable.just("100")).test();
+
+        bids.assertValues("25");
+        asks.assertValues("100");
+    }
+}
@@ -0,0 +1,35 @@
+package info.bitrich.xchangestream.core;
+
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SymbolTableTest {
+
+    @Test
+    public void testLookupsAreInterned() {
+        SymbolTable table = SymbolTable.concatenated("_")
+                .register(Collections.singletonList(CurrencyPair.BTC_USD));
+
+        assertThat(table.toCurrencyPair(new String("BTC_USD"))).isSameAs(CurrencyPair.BTC_USD);
+        assertThat(table.toSymbol(new CurrencyPair("BTC", "USD"))).isSameAs(table.toSymbol(CurrencyPair.BTC_USD));
+
+        CurrencyPair ethBtc = table.toCurrencyPair("ETH_BTC");
+        assertThat(ethBtc).isEqualTo(CurrencyPair.ETH_BTC);
+        assertThat(table.toCurrencyPair(new String("ETH_BTC"))).isSameAs(ethBtc);
+        assertThat(table.toSymbol(CurrencyPair.ETH_BTC)).isEqualTo("ETH_BTC");
+    }
+
+    @Test
+    public void testExchangeSpecificFunctions() {
+        SymbolTable table = new SymbolTable(
+                pair -> pair.counter.getCurrencyCode() + "-" + pair.base.getCurrencyCode(),
+                symbol -> new CurrencyPair(symbol.substring(4), symbol.substring(0, 3)));
+
+        assertThat(table.toSymbol(CurrencyPair.ETH_BTC)).isEqualTo("BTC-ETH");
+        assertThat(table.toCurrencyPair("USD-LTC")).isEqualTo(CurrencyPair.LTC_USD);
+    }
+}
@@ -0,0 +1,124 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsolidatedOrderBookTest {
+
+    private final PublishSubject<OrderBook> first = PublishSubject.create();
+    private final PublishSubject<OrderBook> second = PublishSubject.create();
+    private ConsolidatedOrderBook book;
+
+    @Before
+    public void setUp() {
+        book = new ConsolidatedOrderBook(CurrencyPair.BTC_USD)
+                .addVenue("first", first)
+                .addVenue("second", second);
+    }
+
+    @Test
+    public void testMergesVenuesWithAttribution() {
+        TestObserver<ConsolidatedOrderBook> updates = book.getUpdates().test();
+
+        first.onNext(orderBook("100:1", "99:2", "-101:3"));
+        second.onNext(orderBook("100.0:4", "-101:1", "-102:5"));
+
+        updates.assertValueCount(2);
+        ConsolidatedOrderBook.Level bestBid = book.getLevels(OrderType.BID).iterator().next();
+        assertThat(bestBid.getPrice()).isEqualByComparingTo("100");
+        assertThat(bestBid.getSize()).isEqualByComparingTo("5");
+        assertThat(bestBid.getSize("first")).isEqualByComparingTo("1");
+        assertThat(bestBid.getSize("second")).isEqualByComparingTo("4");
+
+        OrderBook merged = book.toOrderBook(0);
+        assertThat(merged.getBids()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("99"));
+        assertThat(merged.getAsks()).extracting(LimitOrder::getOriginalAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("4"), new BigDecimal("5"));
+    }
+
+    @Test
+    public void testBestBidOfferOnlyOnChange() {
+        TestObserver<BestBidOffer> bbo = book.getBestBidOffer().test();
+
+        first.onNext(orderBook("100:1", "-101:3"));
+        // deeper level, top unchanged
+        second.onNext(orderBook("98:1", "-105:1"));
+        first.onNext(orderBook("100:1", "-101:3"));
+        // second venue joins the best bid
+        second.onNext(orderBook("100:2", "-105:1"));
+
+        bbo.assertValueCount(2);
+        BestBidOffer last = bbo.values().get(1);
+        assertThat(last.getBidPrice()).isEqualByComparingTo("100");
+        assertThat(last.getBidSize()).isEqualByComparingTo("3");
+        assertThat(last.getBidSizes()).containsOnlyKeys("first", "second");
+        assertThat(last.getAskPrice()).isEqualByComparingTo("101");
+        assertThat(last.isCrossed()).isFalse();
+    }
+
+    @Test
+    public void testFailedVenueIsRemoved() {
+        TestObserver<BestBidOffer> bbo = book.getBestBidOffer().test();
+
+        first.onNext(orderBook("100:1", "-101:3"));
+        second.onNext(orderBook("99:1", "-102:1"));
+        first.onError(new IllegalStateException("disconnected"));
+
+        bbo.assertNoErrors();
+        BestBidOffer last = bbo.values().get(bbo.valueCount() - 1);
+        assertThat(last.getBidPrice()).isEqualByComparingTo("99");
+        assertThat(last.getAskPrice()).isEqualByComparingTo("102");
+        assertThat(book.getLevels(OrderType.BID)).hasSize(1);
+    }
+
+    @Test
+    public void testOnlyChangedLevelsAreApplied() {
+        List<String> changes = new ArrayList<>();
+        book.addListener((side, price, size) -> changes.add(side + " " + price.toPlainString() + ":" + size.toPlainString()));
+        book.getUpdates().test();
+
+        first.onNext(orderBook("100:1", "99:2", "98:1", "-101:3", "-102:1"));
+        changes.clear();
+        // 99 changed, 98 removed, 97 added, asks unchanged
+        first.onNext(orderBook("100:1", "99:3", "97:4", "-101:3", "-102:1"));
+        assertThat(changes).containsExactly("BID 99:3", "BID 98:0", "BID 97:4");
+
+        changes.clear();
+        // orders at the same price are summed, unsorted sides are still diffed
+        first.onNext(orderBook("100:1", "99:1", "99:2", "97:4", "-102:1", "-101:3"));
+        assertThat(changes).isEmpty();
+        assertThat(book.toOrderBook(0).getBids()).extracting(LimitOrder::getOriginalAmount)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1"), new BigDecimal("3"), new BigDecimal("4"));
+    }
+
+    /**
+     * @param levels "price:size", asks with a leading minus.
+     */
+    private static OrderBook orderBook(String... levels) {
+        List<LimitOrder> bids = new ArrayList<>();
+        List<LimitOrder> asks = new ArrayList<>();
+        for (String level : levels) {
+            boolean ask = level.startsWith("-");
+            String[] parts = (ask ? level.substring(1) : level).split(":");
+            LimitOrder order = new LimitOrder(ask ? OrderType.ASK : OrderType.BID, new BigDecimal(parts[1]),
+                    CurrencyPair.BTC_USD, null, null, new BigDecimal(parts[0]));
+            (ask ? asks : bids).add(order);
+        }
+        return new OrderBook(null, asks, bids);
+    }
+}
@@ -0,0 +1,100 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knowm.xchange.currency.CurrencyPair;
+import org.knowm.xchange.dto.Order.OrderType;
+import org.knowm.xchange.dto.marketdata.OrderBook;
+import org.knowm.xchange.dto.trade.LimitOrder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class L3OrderBookTest {
+
+    private L3OrderBook book;
+
+    @Before
+    public void setUp() {
+        book = new L3OrderBook();
+        book.add("a", OrderType.BID, new BigDecimal("100"), new BigDecimal("1"));
+        book.add("b", OrderType.BID, new BigDecimal("100"), new BigDecimal("2"));
+        book.add("c", OrderType.BID, new BigDecimal("100"), new BigDecimal("3"));
+        book.add("d", OrderType.BID, new BigDecimal("99"), new BigDecimal("4"));
+        book.add("e", OrderType.ASK, new BigDecimal("101"), new BigDecimal("5"));
+    }
+
+    @Test
+    public void testLevelsAggregateOrders() {
+        assertThat(book.getBestBid().getPrice()).isEqualByComparingTo("100");
+        assertThat(book.getBestBid().getSize()).isEqualByComparingTo("6");
+        assertThat(book.getBestBid().getOrderCount()).isEqualTo(3);
+        assertThat(book.getBestAsk().getPrice()).isEqualByComparingTo("101");
+        assertThat(book.getOrderCount()).isEqualTo(5);
+
+        OrderBook orderBook = book.toOrderBook(CurrencyPair.BTC_USD);
+        assertThat(orderBook.getBids()).extracting(LimitOrder::getLimitPrice)
+                .containsExactly(new BigDecimal("100"), new BigDecimal("99"));
+        assertThat(orderBook.getBids().get(0).getOriginalAmount()).isEqualByComparingTo("6");
+        assertThat(orderBook.getAsks()).hasSize(1);
+        assertThat(book.toOrderBook(CurrencyPair.BTC_USD, 1).getBids()).hasSize(1);
+    }
+
+    @Test
+    public void testQueuePosition() {
+        assertThat(book.getOrdersAhead("c")).isEqualTo(2);
+        assertThat(book.getSizeAhead("c")).isEqualByComparingTo("3");
+
+        book.fill("a", new BigDecimal("0.5"));
+        assertThat(book.getSizeAhead("c")).isEqualByComparingTo("2.5");
+
+        book.remove("b");
+        assertThat(book.getOrdersAhead("c")).isEqualTo(1);
+        assertThat(book.getSizeAhead("c")).isEqualByComparingTo("0.5");
+
+        book.change("c", new BigDecimal("1"));
+        assertThat(book.getOrdersAhead("c")).isEqualTo(1);
+        assertThat(book.getBestBid().getSize()).isEqualByComparingTo("1.5");
+
+        assertThat(book.getOrdersAhead("unknown")).isEqualTo(-1);
+        assertThat(book.getSizeAhead("unknown")).isNull();
+    }
+
+    @Test
+    public void testFilledAndRemovedOrdersLeaveTheBook() {
+        book.fill("d", new BigDecimal("4"));
+        book.remove("e");
+
+        assertThat(book.getLevel(OrderType.BID, new BigDecimal("99"))).isNull();
+        assertThat(book.getBestAsk()).isNull();
+        assertThat(book.getOrderCount()).isEqualTo(3);
+        assertThat(book.remove("e")).isFalse();
+    }
+
+    @Test
+    public void testNumericIdsAndPooling() {
+        L3OrderBook raw = new L3OrderBook();
+        raw.update(1L, OrderType.ASK, new BigDecimal("10"), new BigDecimal("1"));
+        raw.update(2L, OrderType.ASK, new BigDecimal("10"), new BigDecimal("2"));
+        L3OrderBook.OrderNode first = raw.getOrder(1L);
+
+        // size change keeps the queue position, price change goes to the back of the new level
+        raw.update(1L, OrderType.ASK, new BigDecimal("10"), new BigDecimal("3"));
+        assertThat(raw.getOrdersAhead(2L)).isEqualTo(1);
+        raw.update(1L, OrderType.ASK, new BigDecimal("11"), new BigDecimal("3"));
+        assertThat(raw.getOrdersAhead(2L)).isEqualTo(0);
+        assertThat(raw.getLevels(OrderType.ASK)).extracting(L3OrderBook.PriceLevel::getPrice)
+                .containsExactly(new BigDecimal("10"), new BigDecimal("11"));
+
+        // the node released by the price change is reused
+        assertThat(raw.getOrder(1L)).isSameAs(first);
+
+        raw.clear();
+        assertThat(raw.getOrderCount()).isEqualTo(0);
+        assertThat(raw.getBestAsk()).isNull();
+        raw.add(3L, OrderType.BID, new BigDecimal("9"), new BigDecimal("1"));
+        assertThat(raw.getOrder(3L).getId()).isEqualTo("3");
+        assertThat(raw.getOrder(3L).getSide()).isEqualTo(OrderType.BID);
+    }
+}
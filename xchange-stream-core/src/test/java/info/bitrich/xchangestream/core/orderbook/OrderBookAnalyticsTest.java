@@ -0,0 +1,64 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import org.junit.Test;
+import org.knowm.xchange.dto.Order.OrderType;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookAnalyticsTest {
+
+    @Test
+    public void testTopOfBookMetrics() {
+        L3OrderBook book = new L3OrderBook();
+        book.add("a", OrderType.BID, new BigDecimal("99"), new BigDecimal("3"));
+        book.add("b", OrderType.BID, new BigDecimal("98"), new BigDecimal("5"));
+        OrderBookAnalytics analytics = OrderBookAnalytics.attach(book, 2);
+        book.add("c", OrderType.ASK, new BigDecimal("101"), new BigDecimal("1"));
+        book.add("d", OrderType.ASK, new BigDecimal("102"), new BigDecimal("2"));
+        book.add("e", OrderType.ASK, new BigDecimal("103"), new BigDecimal("4"));
+
+        assertThat(analytics.getMidPrice()).isEqualByComparingTo("100");
+        // (99 * 1 + 101 * 3) / 4
+        assertThat(analytics.getMicroPrice()).isEqualByComparingTo("100.5");
+        assertThat(analytics.getDepth(OrderType.BID)).isEqualByComparingTo("8");
+        assertThat(analytics.getDepth(OrderType.ASK)).isEqualByComparingTo("3");
+        assertThat(analytics.getImbalance()).isEqualByComparingTo("0.4545454545454545");
+        assertThat(analytics.getDepthWithin(OrderType.ASK, new BigDecimal("200"))).isEqualByComparingTo("3");
+
+        assertThat(analytics.getCostToFill(OrderType.BID, new BigDecimal("2"))).isEqualByComparingTo("203");
+        assertThat(analytics.getVwapToFill(OrderType.BID, new BigDecimal("2"))).isEqualByComparingTo("101.5");
+        assertThat(analytics.getCostToFill(OrderType.ASK, new BigDecimal("9"))).isNull();
+
+        book.clear();
+        assertThat(analytics.getMidPrice()).isNull();
+        assertThat(analytics.getDepth(OrderType.BID)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    public void testRunningDepthMatchesRecomputation() {
+        int depthLevels = 5;
+        OrderBookAnalytics analytics = new OrderBookAnalytics(depthLevels);
+        NavigableMap<BigDecimal, BigDecimal> expected = new TreeMap<>(Collections.reverseOrder());
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20000; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(20));
+            BigDecimal size = random.nextInt(3) == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(1 + random.nextInt(10));
+            analytics.onLevelChanged(OrderType.BID, price, size);
+            if (size.signum() == 0) {
+                expected.remove(price);
+            } else {
+                expected.put(price, size);
+            }
+
+            BigDecimal top = expected.values().stream().limit(depthLevels).reduce(BigDecimal.ZERO, BigDecimal::add);
+            assertThat(analytics.getDepth(OrderType.BID)).isEqualByComparingTo(top);
+        }
+    }
+}
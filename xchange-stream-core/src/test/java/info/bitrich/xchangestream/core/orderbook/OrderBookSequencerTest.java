@@ -0,0 +1,136 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import io.reactivex.schedulers.TestScheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderBookSequencerTest {
+
+    private final List<long[]> applied = new ArrayList<>();
+    private int snapshotRequests;
+    private OrderBookSequencer<long[]> sequencer;
+
+    @Before
+    public void setUp() {
+        sequencer = new OrderBookSequencer<>("test",
+                SequenceStrategy.range(update -> update[0], update -> update[1]),
+                applied::add,
+                () -> snapshotRequests++);
+    }
+
+    @Test
+    public void testBuffersUntilSnapshotAndReplays() {
+        assertThat(sequencer.onUpdate(new long[]{1, 3})).isFalse();
+        assertThat(sequencer.onUpdate(new long[]{4, 6})).isFalse();
+        assertThat(sequencer.onUpdate(new long[]{7, 9})).isFalse();
+        assertThat(snapshotRequests).isEqualTo(1);
+
+        assertThat(sequencer.onSnapshot(5, () -> { })).isTrue();
+
+        // 1-3 is stale, 4-6 contains 6 and 7-9 follows it
+        assertThat(applied).extracting(update -> update[1]).containsExactly(6L, 9L);
+        assertThat(sequencer.getStaleCount()).isEqualTo(1);
+        assertThat(sequencer.getLastSequence()).isEqualTo(9);
+
+        assertThat(sequencer.onUpdate(new long[]{10, 12})).isTrue();
+        assertThat(sequencer.getGapCount()).isZero();
+    }
+
+    @Test
+    public void testGapTriggersResync() {
+        sequencer.onSnapshot(5, () -> { });
+        assertThat(sequencer.onUpdate(new long[]{6, 8})).isTrue();
+
+        assertThat(sequencer.onUpdate(new long[]{10, 12})).isFalse();
+        assertThat(sequencer.isSynced()).isFalse();
+        assertThat(sequencer.getGapCount()).isEqualTo(1);
+        assertThat(snapshotRequests).isEqualTo(1);
+
+        // further updates are buffered without requesting another snapshot
+        assertThat(sequencer.onUpdate(new long[]{13, 14})).isFalse();
+        assertThat(snapshotRequests).isEqualTo(1);
+
+        assertThat(sequencer.onSnapshot(11, () -> { })).isTrue();
+        assertThat(applied).extracting(update -> update[1]).containsExactly(8L, 12L, 14L);
+    }
+
+    @Test
+    public void testOutdatedSnapshotRequestsAnother() {
+        sequencer.onUpdate(new long[]{10, 12});
+
+        assertThat(sequencer.onSnapshot(5, () -> { })).isFalse();
+        assertThat(snapshotRequests).isEqualTo(2);
+        assertThat(sequencer.getBufferedCount()).isEqualTo(1);
+
+        assertThat(sequencer.onSnapshot(10, () -> { })).isTrue();
+        assertThat(applied).extracting(update -> update[1]).containsExactly(12L);
+        assertThat(sequencer.getResyncCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSynchronousSnapshotRequester() {
+        List<Long> strictApplied = new ArrayList<>();
+        OrderBookSequencer<Long>[] holder = new OrderBookSequencer[1];
+        holder[0] = new OrderBookSequencer<>("strict",
+                SequenceStrategy.strict(Long::longValue),
+                strictApplied::add,
+                () -> holder[0].onSnapshot(41, () -> { }));
+
+        assertThat(holder[0].onUpdate(42L)).isTrue();
+        assertThat(holder[0].onUpdate(43L)).isTrue();
+        assertThat(holder[0].onUpdate(43L)).isFalse();
+        assertThat(strictApplied).containsExactly(42L, 43L);
+    }
+
+    @Test
+    public void testFailedSnapshotIsRequestedAgain() {
+        OrderBookSequencer<Long>[] holder = new OrderBookSequencer[1];
+        holder[0] = new OrderBookSequencer<>("failing",
+                SequenceStrategy.monotonic(Long::longValue),
+                update -> { },
+                () -> holder[0].snapshotFailed());
+
+        holder[0].onUpdate(1L);
+        holder[0].onUpdate(2L);
+
+        assertThat(holder[0].getResyncCount()).isEqualTo(2);
+        assertThat(holder[0].getBufferedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testPostponedSnapshotIsRetriedOnce() {
+        TestScheduler scheduler = new TestScheduler();
+        int[] requests = new int[1];
+        OrderBookSequencer<Long>[] holder = new OrderBookSequencer[1];
+        holder[0] = new OrderBookSequencer<>("backoff",
+                SequenceStrategy.monotonic(Long::longValue),
+                update -> { },
+                () -> {
+                    if (++requests[0] == 1) {
+                        holder[0].retrySnapshot(3, TimeUnit.SECONDS);
+                    }
+                },
+                OrderBookSequencer.DEFAULT_MAX_BUFFERED_UPDATES,
+                scheduler);
+
+        holder[0].onUpdate(1L);
+        holder[0].onUpdate(2L);
+        holder[0].onUpdate(3L);
+        assertThat(requests[0]).isEqualTo(1);
+        assertThat(holder[0].getResyncCount()).isZero();
+
+        scheduler.advanceTimeBy(3, TimeUnit.SECONDS);
+        holder[0].onUpdate(4L);
+        assertThat(requests[0]).isEqualTo(2);
+        assertThat(holder[0].getResyncCount()).isEqualTo(1);
+
+        assertThat(holder[0].onSnapshot(2, () -> { })).isTrue();
+        assertThat(holder[0].getBufferedCount()).isZero();
+    }
+}
@@ -0,0 +1,40 @@
+package info.bitrich.xchangestream.core.orderbook;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScaledPriceLevelsTest {
+
+    @Test
+    public void testBidsAreSortedHighestFirst() {
+        ScaledPriceLevels bids = new ScaledPriceLevels(true);
+        for (long price = 1; price <= 40; price++) {
+            bids.set(price * 7 % 41, price);
+        }
+        assertThat(bids.size()).isEqualTo(40);
+        for (int i = 1; i < bids.size(); i++) {
+            assertThat(bids.priceAt(i)).isLessThan(bids.priceAt(i - 1));
+        }
+    }
+
+    @Test
+    public void testSetUpdatesAndRemoves() {
+        ScaledPriceLevels asks = new ScaledPriceLevels(false);
+        asks.set(300, 1);
+        asks.set(100, 2);
+        asks.set(200, 3);
+        asks.set(100, 5);
+        asks.set(200, 0);
+        asks.set(400, 0);
+
+        assertThat(asks.size()).isEqualTo(2);
+        assertThat(asks.priceAt(0)).isEqualTo(100);
+        assertThat(asks.sizeAt(0)).isEqualTo(5);
+        assertThat(asks.priceAt(1)).isEqualTo(300);
+        assertThat(asks.getSize(200)).isZero();
+
+        asks.clear();
+        assertThat(asks.isEmpty()).isTrue();
+    }
+}
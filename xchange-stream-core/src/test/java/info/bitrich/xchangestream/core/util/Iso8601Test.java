@@ -0,0 +1,64 @@
+package info.bitrich.xchangestream.core.util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class Iso8601Test {
+
+    @Test
+    public void testExchangeFormats() {
+        assertThat(Iso8601.parseEpochMicros("2017-09-02T18:09:55.158000Z"))
+                .isEqualTo(micros(Instant.parse("2017-09-02T18:09:55.158Z")));
+        assertThat(Iso8601.parseEpochMillis("2017-11-13T22:55:57.123Z"))
+                .isEqualTo(Instant.parse("2017-11-13T22:55:57.123Z").toEpochMilli());
+        assertThat(Iso8601.parseEpochMicros("2017-11-13T22:55:57"))
+                .isEqualTo(micros(Instant.parse("2017-11-13T22:55:57Z")));
+        assertThat(Iso8601.parseEpochMicros("2017-11-13 22:55:57.5+01:30"))
+                .isEqualTo(micros(Instant.parse("2017-11-13T21:25:57.5Z")));
+        assertThat(Iso8601.parseEpochMicros("2017-11-13T22:55:57.123456789-0200"))
+                .isEqualTo(micros(Instant.parse("2017-11-14T00:55:57.123456Z")));
+        assertThat(Iso8601.parseEpochMillis("1969-12-31T23:59:59.999Z")).isEqualTo(-1L);
+        assertThat(Iso8601.parseDate(null)).isNull();
+    }
+
+    @Test
+    public void testMatchesJavaTime() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10000; i++) {
+            long second = 1_000_000_000L + (long) (random.nextDouble() * 4_000_000_000L);
+            int nanos = random.nextInt(1_000_000) * 1000;
+            ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(36) - 18) * 1800);
+            OffsetDateTime time = Instant.ofEpochSecond(second, nanos).atOffset(offset);
+
+            assertThat(Iso8601.parseEpochMicros(time.toString()))
+                    .as(time.toString())
+                    .isEqualTo(micros(time.toInstant()));
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidTimestamps() {
+        String[] invalid = {"", "2017-09-02", "2017-13-02T18:09:55Z", "2017-02-29T18:09:55Z", "2017-09-02T24:00:00Z",
+                "2017-09-02T18:09:55.Z", "2017-09-02T18:09:55ZZ", "2017-09-02T18:09:55+1", "2017/09/02T18:09:55Z"};
+        for (String text : invalid) {
+            try {
+                Iso8601.parseEpochMicros(text);
+                fail("Accepted " + text);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private static long micros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+}
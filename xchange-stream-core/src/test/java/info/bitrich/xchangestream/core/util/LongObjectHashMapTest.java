@@ -0,0 +1,58 @@
+package info.bitrich.xchangestream.core.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+
+        assertThat(map.put(8799000000L, "a")).isNull();
+        assertThat(map.put(-1L, "b")).isNull();
+        assertThat(map.put(0L, "c")).isNull();
+        assertThat(map.put(8799000000L, "d")).isEqualTo("a");
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(8799000000L)).isEqualTo("d");
+        assertThat(map.get(-1L)).isEqualTo("b");
+        assertThat(map.get(0L)).isEqualTo("c");
+        assertThat(map.get(1L)).isNull();
+
+        assertThat(map.remove(-1L)).isEqualTo("b");
+        assertThat(map.remove(-1L)).isNull();
+        assertThat(map.containsKey(-1L)).isFalse();
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testBehavesLikeHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 200000; i++) {
+            // narrow key range to force collisions, removals and reinsertions
+            long key = 8799000000L - random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+        int[] count = new int[1];
+        map.forEachValue(value -> count[0]++);
+        assertThat(count[0]).isEqualTo(expected.size());
+    }
+}
@@ -0,0 +1,47 @@
+package info.bitrich.xchangestream.core.util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static info.bitrich.xchangestream.core.util.ScaledDecimal.NOT_REPRESENTABLE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ScaledDecimalTest {
+
+    @Test
+    public void testParse() {
+        assertThat(ScaledDecimal.parse("6500.12", 8)).isEqualTo(650012000000L);
+        assertThat(ScaledDecimal.parse("0.00000001", 8)).isEqualTo(1L);
+        assertThat(ScaledDecimal.parse("-1.5", 2)).isEqualTo(-150L);
+        assertThat(ScaledDecimal.parse("+42", 0)).isEqualTo(42L);
+        assertThat(ScaledDecimal.parse(".5", 1)).isEqualTo(5L);
+        assertThat(ScaledDecimal.parse("7.", 1)).isEqualTo(70L);
+        assertThat(ScaledDecimal.parse("1.25000000000", 2)).isEqualTo(125L);
+        assertThat(ScaledDecimal.toBigDecimal(650012000000L, 8)).isEqualByComparingTo("6500.12");
+    }
+
+    @Test
+    public void testNotRepresentable() {
+        assertThat(ScaledDecimal.parse("1.255", 2)).isEqualTo(NOT_REPRESENTABLE);
+        assertThat(ScaledDecimal.parse("1e-8", 8)).isEqualTo(NOT_REPRESENTABLE);
+        assertThat(ScaledDecimal.parse("92233720368547758070", 0)).isEqualTo(NOT_REPRESENTABLE);
+        assertThat(ScaledDecimal.parse("922337203685", 8)).isEqualTo(NOT_REPRESENTABLE);
+        assertThat(ScaledDecimal.parse("9223372036854775807", 0)).isEqualTo(Long.MAX_VALUE);
+        assertThat(ScaledDecimal.valueOf(new BigDecimal("0.125"), 2)).isEqualTo(NOT_REPRESENTABLE);
+        assertThat(ScaledDecimal.valueOf(new BigDecimal("0.120"), 2)).isEqualTo(12L);
+    }
+
+    @Test
+    public void testRejectsInvalidNumbers() {
+        for (String text : new String[]{"", "-", ".", "1.2.3", "12a", "e5"}) {
+            try {
+                ScaledDecimal.parse(text, 2);
+                fail("Accepted " + text);
+            } catch (NumberFormatException expected) {
+                // expected
+            }
+        }
+    }
+}